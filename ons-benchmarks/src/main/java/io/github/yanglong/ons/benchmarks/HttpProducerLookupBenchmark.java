@@ -0,0 +1,97 @@
+package io.github.yanglong.ons.benchmarks;
+
+import com.aliyun.mq.http.MQProducer;
+import io.github.yanglong.ons.commons.properties.OnsAccessProperties;
+import io.github.yanglong.ons.commons.utils.OnsStringUtils;
+import io.github.yanglong.ons.http.producer.HttpProducerFactory;
+import io.github.yanglong.ons.http.producer.HttpProducerKey;
+import io.github.yanglong.ons.http.producer.HttpProducerProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: HTTP生产者查找在64线程并发下的吞吐量
+ *
+ * legacy为改造前的查找方式：每次按名称和topic拼接后计算MD5作为key，并在工厂上加锁后computeIfAbsent；
+ * nameAndTopic和producerKey为HttpProducerFactory.getProducer当前的无锁查找，后者由调用方预先创建HttpProducerKey。
+ * 生产者在Setup中创建并缓存，只比较已创建后的查找，不连接服务端。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(64)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HttpProducerLookupBenchmark {
+    private static final String NAME = "benchmark";
+    private static final String TOPIC = "benchmark-topic";
+
+    private HttpProducerFactory factory;
+    private HttpProducerKey producerKey;
+    /**
+     * 改造前的生产者缓存，key为名称和topic的MD5
+     */
+    private final Map<String, MQProducer> legacyContainer = new ConcurrentHashMap<>(16);
+    private final Object legacyLock = new Object();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        OnsAccessProperties access = new OnsAccessProperties();
+        access.setAccessKey("benchmark-ak");
+        access.setSecretKey("benchmark-sk");
+        HttpProducerProperties properties = new HttpProducerProperties();
+        properties.setConfigName(NAME);
+        properties.setNameServer("http://localhost");
+        properties.setAccess(access);
+        factory = new HttpProducerFactory(new ConcurrentHashMap<>(4), access, Collections.singletonMap(NAME, properties), null);
+        producerKey = new HttpProducerKey(NAME, TOPIC);
+        MQProducer producer = factory.getProducer(NAME, TOPIC);
+        if (null == producer) {
+            throw new IllegalStateException("can't create HTTP producer for benchmark");
+        }
+        legacyContainer.put(OnsStringUtils.generateKey(NAME, TOPIC), producer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factory.shutdown();
+    }
+
+    @Benchmark
+    public MQProducer legacy() {
+        synchronized (legacyLock) {
+            return legacyContainer.computeIfAbsent(OnsStringUtils.generateKey(NAME, TOPIC), key -> null);
+        }
+    }
+
+    @Benchmark
+    public MQProducer nameAndTopic() {
+        return factory.getProducer(NAME, TOPIC);
+    }
+
+    @Benchmark
+    public MQProducer producerKey() {
+        return factory.getProducer(producerKey);
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.yanglong.ons.commons.audit;
+
+import io.github.yanglong.ons.commons.properties.OnsAuditProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Description: 消息审计日志自动配置类，TCP和HTTP共用
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "ali-ons", name = "enable", havingValue = "true")
+@EnableConfigurationProperties(OnsAuditProperties.class)
+public class OnsAuditAutoConfiguration {
+
+    @Bean(initMethod = "install", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public OnsMessageAudit onsMessageAudit(OnsAuditProperties properties) {
+        log.debug("config OnsMessageAudit,level is {}.", properties.getLevel());
+        return new OnsMessageAudit(properties);
+    }
+}
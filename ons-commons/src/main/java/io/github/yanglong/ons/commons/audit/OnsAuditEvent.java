@@ -0,0 +1,59 @@
+package io.github.yanglong.ons.commons.audit;
+
+/**
+ * Description: 消息审计事件类型
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public enum OnsAuditEvent {
+    /**
+     * 发送普通消息
+     */
+    SEND,
+    /**
+     * 异步发送普通消息
+     */
+    SEND_ASYNC,
+    /**
+     * 单向发送普通消息
+     */
+    SEND_ONEWAY,
+    /**
+     * 发送顺序消息
+     */
+    SEND_ORDER,
+    /**
+     * 发送定时或延时消息
+     */
+    SEND_TIMING,
+    /**
+     * 发送事务消息
+     */
+    SEND_TRANSACTION,
+    /**
+     * 发送成功
+     */
+    SEND_SUCCESS,
+    /**
+     * 本地暂存的消息重新发送成功
+     */
+    RESEND_SUCCESS,
+    /**
+     * 提交事务消息
+     */
+    COMMIT,
+    /**
+     * 回滚事务消息
+     */
+    ROLLBACK,
+    /**
+     * 收到待回查的半消息
+     */
+    HALF_MESSAGE,
+    /**
+     * 消费失败
+     */
+    CONSUME_FAILED
+}
@@ -0,0 +1,290 @@
+package io.github.yanglong.ons.commons.audit;
+
+import io.github.yanglong.ons.commons.properties.AuditLevel;
+import io.github.yanglong.ons.commons.properties.OnsAuditProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Description: 消息审计日志
+ *
+ * 发送、事务回查和消费失败时调用方只做级别和采样判断，并把字段引用放入有界队列，不格式化消息体；
+ * 由后台线程格式化为key=value形式的一行，通过独立的日志记录器输出。队列满时丢弃并计数，不阻塞调用线程。
+ * byte[]消息体在记录时复制需要输出的部分，因为调用方可能在发送完成后复用该数组。
+ * 容器中配置的实例启动时通过{@link #install()}成为当前实例，此前或非Spring环境使用默认配置的实例。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class OnsMessageAudit {
+    private static final String TRUNCATED = "...(truncated)";
+    private static volatile OnsMessageAudit current;
+
+    @Getter
+    private final AuditLevel level;
+    private final int maxBodyLength;
+    private final double sampleRate;
+    private final Map<String, Double> topicSampleRates;
+    private final Logger auditLog;
+    private final BlockingQueue<Entry> queue;
+    /**
+     * 已输出的记录数
+     */
+    private final AtomicLong writtenCount = new AtomicLong();
+    /**
+     * 队列满丢弃的记录数
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean running;
+    private Thread writer;
+
+    public OnsMessageAudit(OnsAuditProperties properties) {
+        this.level = null == properties.getLevel() ? AuditLevel.METADATA : properties.getLevel();
+        this.maxBodyLength = properties.getMaxBodyLength();
+        this.sampleRate = properties.getSampleRate();
+        this.topicSampleRates = null == properties.getTopicSampleRates() ? new HashMap<>(0) : new HashMap<>(properties.getTopicSampleRates());
+        this.auditLog = LoggerFactory.getLogger(properties.getLoggerName());
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+    }
+
+    /**
+     * 获取当前实例，没有配置时创建默认配置的实例
+     *
+     * @return OnsMessageAudit
+     */
+    public static OnsMessageAudit get() {
+        OnsMessageAudit audit = current;
+        if (null == audit) {
+            synchronized (OnsMessageAudit.class) {
+                if (null == current) {
+                    OnsMessageAudit defaults = new OnsMessageAudit(new OnsAuditProperties());
+                    defaults.start();
+                    current = defaults;
+                }
+                audit = current;
+            }
+        }
+        return audit;
+    }
+
+    /**
+     * 启动输出线程并替换当前实例，被替换的实例输出完队列中的记录后停止
+     */
+    public void install() {
+        start();
+        OnsMessageAudit previous;
+        synchronized (OnsMessageAudit.class) {
+            previous = current;
+            current = this;
+        }
+        if (null != previous && previous != this) {
+            previous.close();
+        }
+    }
+
+    /**
+     * 启动输出线程，只启动一次
+     */
+    public synchronized void start() {
+        if (null != writer) {
+            return;
+        }
+        running = true;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ons-audit-");
+        threadFactory.setDaemon(true);
+        writer = threadFactory.newThread(this::drain);
+        writer.start();
+    }
+
+    /**
+     * 停止输出线程，队列中的记录输出完成后退出
+     */
+    public synchronized void close() {
+        running = false;
+        if (null != writer) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(3));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 是否需要记录，级别为OFF或日志记录器未开启INFO时不记录
+     *
+     * @return true-需要记录
+     */
+    public boolean isEnabled() {
+        return AuditLevel.OFF != level && auditLog.isInfoEnabled();
+    }
+
+    /**
+     * 记录一条审计日志
+     *
+     * @param client 客户端类型，TCP或HTTP
+     * @param event  事件
+     * @param topic  topic
+     * @param tag    标签
+     * @param key    业务唯一键值
+     * @param msgId  消息ID，没有时为空
+     * @param body   消息体，String或byte[]，不需要时为空
+     */
+    public void record(String client, OnsAuditEvent event, String topic, String tag, String key, String msgId, Object body) {
+        record(client, event, topic, tag, key, msgId, body, null, null);
+    }
+
+    /**
+     * 记录一条带附加字段的审计日志，附加字段在输出线程中格式化
+     *
+     * @param client    客户端类型，TCP或HTTP
+     * @param event     事件
+     * @param topic     topic
+     * @param tag       标签
+     * @param key       业务唯一键值
+     * @param msgId     消息ID，没有时为空
+     * @param body      消息体，String或byte[]，不需要时为空
+     * @param attrName  附加字段名称
+     * @param attrValue 附加字段值
+     */
+    public void record(String client, OnsAuditEvent event, String topic, String tag, String key, String msgId, Object body, String attrName, Object attrValue) {
+        if (!isEnabled()) {
+            return;
+        }
+        Entry entry = new Entry(client, event, topic, tag, key, msgId, attrName, attrValue);
+        if (null != body) {
+            entry.bodyLength = body instanceof byte[] ? ((byte[]) body).length : body.toString().length();
+            if (shouldRecordBody(topic)) {
+                entry.body = body instanceof byte[] ? copyBody((byte[]) body) : body;
+            }
+        }
+        if (!queue.offer(entry)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private boolean shouldRecordBody(String topic) {
+        switch (level) {
+            case FULL:
+                return true;
+            case SAMPLED:
+                Double rate = null == topic ? null : topicSampleRates.get(topic);
+                double effective = null == rate ? sampleRate : rate;
+                return effective >= 1 || (effective > 0 && ThreadLocalRandom.current().nextDouble() < effective);
+            default:
+                return false;
+        }
+    }
+
+    private byte[] copyBody(byte[] body) {
+        int length = maxBodyLength > 0 ? Math.min(body.length, maxBodyLength) : body.length;
+        return Arrays.copyOf(body, length);
+    }
+
+    private void drain() {
+        StringBuilder builder = new StringBuilder(512);
+        while (running || !queue.isEmpty()) {
+            Entry entry;
+            try {
+                entry = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (null == entry) {
+                continue;
+            }
+            try {
+                builder.setLength(0);
+                auditLog.info(format(builder, entry));
+                writtenCount.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.error("ONS audit can't write record of event {}.", entry.event, e);
+            }
+        }
+    }
+
+    private String format(StringBuilder builder, Entry entry) {
+        builder.append("event=").append(entry.event)
+                .append(" client=").append(entry.client)
+                .append(" topic=").append(entry.topic)
+                .append(" tag=").append(entry.tag)
+                .append(" key=").append(entry.key);
+        if (null != entry.msgId) {
+            builder.append(" msgId=").append(entry.msgId);
+        }
+        if (null != entry.attrName) {
+            builder.append(' ').append(entry.attrName).append('=').append(entry.attrValue);
+        }
+        if (entry.bodyLength >= 0) {
+            builder.append(" bodyLength=").append(entry.bodyLength);
+        }
+        if (null != entry.body) {
+            String body = entry.body instanceof byte[] ? new String((byte[]) entry.body, StandardCharsets.UTF_8) : entry.body.toString();
+            builder.append(" body=");
+            if (maxBodyLength > 0 && body.length() > maxBodyLength) {
+                builder.append(body, 0, maxBodyLength).append(TRUNCATED);
+            } else {
+                builder.append(body);
+                if (entry.body instanceof byte[] && ((byte[]) entry.body).length < entry.bodyLength) {
+                    builder.append(TRUNCATED);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 待输出的一条记录，只保存字段引用
+     */
+    private static class Entry {
+        private final String client;
+        private final OnsAuditEvent event;
+        private final String topic;
+        private final String tag;
+        private final String key;
+        private final String msgId;
+        private final String attrName;
+        private final Object attrValue;
+        private int bodyLength = -1;
+        private Object body;
+
+        Entry(String client, OnsAuditEvent event, String topic, String tag, String key, String msgId, String attrName, Object attrValue) {
+            this.client = client;
+            this.event = event;
+            this.topic = topic;
+            this.tag = tag;
+            this.key = key;
+            this.msgId = msgId;
+            this.attrName = attrName;
+            this.attrValue = attrValue;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.yanglong.ons.commons.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Description: 基于Jackson的JSON消息编解码，支持所有类型
+ *
+ * 按类型创建ObjectWriter和ObjectReader，序列化器在其中缓存，不再为每条消息查找。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class JacksonMessageCodec implements MessageCodec {
+    private final ObjectMapper objectMapper;
+
+    public JacksonMessageCodec() {
+        this(new ObjectMapper());
+    }
+
+    public JacksonMessageCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 使用容器中的ObjectMapper创建，没有时使用默认配置
+     *
+     * @param applicationContext 容器，可以为空
+     * @return JacksonMessageCodec
+     */
+    public static JacksonMessageCodec create(ApplicationContext applicationContext) {
+        ObjectMapper objectMapper = null == applicationContext ? null : applicationContext.getBeanProvider(ObjectMapper.class).getIfAvailable();
+        return null == objectMapper ? new JacksonMessageCodec() : new JacksonMessageCodec(objectMapper);
+    }
+
+    @Override
+    public boolean supports(Type type) {
+        return true;
+    }
+
+    @Override
+    public <T> MessageEncoder<T> encoder(Class<T> type) {
+        ObjectWriter writer = objectMapper.writerFor(type);
+        return payload -> {
+            try {
+                return writer.writeValueAsBytes(payload);
+            } catch (IOException e) {
+                throw new OnsCodecException("can't encode " + type.getName() + " to json", e);
+            }
+        };
+    }
+
+    @Override
+    public <T> MessageDecoder<T> decoder(Type type) {
+        ObjectReader reader = objectMapper.readerFor(objectMapper.constructType(type));
+        return body -> {
+            try {
+                return reader.readValue(body);
+            } catch (IOException e) {
+                throw new OnsCodecException("can't decode json to " + type.getTypeName(), e);
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.yanglong.ons.commons.codec;
+
+import java.lang.reflect.Type;
+
+/**
+ * Description: 消息对象序列化扩展接口
+ *
+ * 实现类注册为Spring Bean即可生效，按@Order顺序选择第一个支持该类型的实现，Jackson在classpath中时默认作为最后一个。
+ * 编码器和解码器由{@link OnsMessageCodecs}按类型缓存，每个类型只创建一次，实现类应在此时完成反射、schema解析等准备工作。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public interface MessageCodec {
+    /**
+     * 是否支持该类型
+     *
+     * @param type 消息对象类型
+     * @return true-支持
+     */
+    boolean supports(Type type);
+
+    /**
+     * 创建指定类型的编码器，返回的编码器需要线程安全
+     *
+     * @param type 消息对象类型
+     * @param <T>  消息对象类型
+     * @return 编码器
+     */
+    <T> MessageEncoder<T> encoder(Class<T> type);
+
+    /**
+     * 创建指定类型的解码器，返回的解码器需要线程安全
+     *
+     * @param type 消息对象类型，可以是带泛型参数的类型
+     * @param <T>  消息对象类型
+     * @return 解码器
+     */
+    <T> MessageDecoder<T> decoder(Type type);
+}
@@ -0,0 +1,20 @@
+package io.github.yanglong.ons.commons.codec;
+
+/**
+ * Description: 消息对象解码器
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@FunctionalInterface
+public interface MessageDecoder<T> {
+    /**
+     * 将消息体解码为消息对象
+     *
+     * @param body 消息体
+     * @return 消息对象
+     * @throws OnsCodecException 解码失败
+     */
+    T decode(byte[] body);
+}
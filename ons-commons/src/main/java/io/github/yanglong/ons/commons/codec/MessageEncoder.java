@@ -0,0 +1,20 @@
+package io.github.yanglong.ons.commons.codec;
+
+/**
+ * Description: 消息对象编码器
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@FunctionalInterface
+public interface MessageEncoder<T> {
+    /**
+     * 将消息对象编码为消息体
+     *
+     * @param payload 消息对象
+     * @return 消息体
+     * @throws OnsCodecException 编码失败
+     */
+    byte[] encode(T payload);
+}
@@ -0,0 +1,31 @@
+package io.github.yanglong.ons.commons.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.stream.Collectors;
+
+/**
+ * Description: 消息对象编解码自动配置类，TCP和HTTP共用
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "ali-ons", name = "enable", havingValue = "true")
+public class OnsCodecAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OnsMessageCodecs onsMessageCodecs(ObjectProvider<MessageCodec> codecs, ApplicationContext applicationContext) {
+        log.debug("config OnsMessageCodecs.");
+        return OnsMessageCodecs.withDefaults(codecs.orderedStream().collect(Collectors.toList()), applicationContext);
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.yanglong.ons.commons.codec;
+
+/**
+ * Description: 消息对象编码或解码失败异常
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class OnsCodecException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public OnsCodecException(String message) {
+        super(message);
+    }
+
+    public OnsCodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.yanglong.ons.commons.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Description: 消息对象编解码器注册表
+ *
+ * 按注册顺序为每个类型选择第一个支持的MessageCodec，创建的编码器和解码器按类型缓存，已缓存时直接读取，不加锁。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class OnsMessageCodecs {
+    private static final String JACKSON_CLASS = "com.fasterxml.jackson.databind.ObjectMapper";
+    /**
+     * 按顺序排列的编解码实现
+     */
+    private final List<MessageCodec> codecs;
+    /**
+     * 类型-编码器缓存
+     */
+    private final Map<Class<?>, MessageEncoder<?>> encoders = new ConcurrentHashMap<>(32);
+    /**
+     * 类型-解码器缓存
+     */
+    private final Map<Type, MessageDecoder<?>> decoders = new ConcurrentHashMap<>(32);
+
+    public OnsMessageCodecs(List<MessageCodec> codecs) {
+        this.codecs = Collections.unmodifiableList(new ArrayList<>(codecs));
+    }
+
+    /**
+     * 在自定义实现之后追加默认实现，Jackson在classpath中且没有自定义JacksonMessageCodec时追加
+     *
+     * @param codecs             自定义实现
+     * @param applicationContext 容器，用于获取ObjectMapper，可以为空
+     * @return OnsMessageCodecs
+     */
+    public static OnsMessageCodecs withDefaults(List<MessageCodec> codecs, ApplicationContext applicationContext) {
+        List<MessageCodec> list = new ArrayList<>(codecs);
+        if (ClassUtils.isPresent(JACKSON_CLASS, OnsMessageCodecs.class.getClassLoader())
+                && list.stream().noneMatch(codec -> codec instanceof JacksonMessageCodec)) {
+            list.add(JacksonMessageCodec.create(applicationContext));
+        }
+        if (list.isEmpty()) {
+            log.warn("no MessageCodec available,typed send and typed listeners can't work.");
+        }
+        return new OnsMessageCodecs(list);
+    }
+
+    /**
+     * 获取指定类型的编码器
+     *
+     * @param type 消息对象类型
+     * @param <T>  消息对象类型
+     * @return 编码器
+     * @throws OnsCodecException 没有支持该类型的MessageCodec
+     */
+    @SuppressWarnings("unchecked")
+    public <T> MessageEncoder<T> encoder(Class<T> type) {
+        MessageEncoder<?> encoder = encoders.get(type);
+        if (null == encoder) {
+            encoder = encoders.computeIfAbsent(type, k -> find(k).encoder(k));
+        }
+        return (MessageEncoder<T>) encoder;
+    }
+
+    /**
+     * 获取指定类型的解码器
+     *
+     * @param type 消息对象类型，可以是带泛型参数的类型
+     * @param <T>  消息对象类型
+     * @return 解码器
+     * @throws OnsCodecException 没有支持该类型的MessageCodec
+     */
+    @SuppressWarnings("unchecked")
+    public <T> MessageDecoder<T> decoder(Type type) {
+        MessageDecoder<?> decoder = decoders.get(type);
+        if (null == decoder) {
+            decoder = decoders.computeIfAbsent(type, k -> find(k).decoder(k));
+        }
+        return (MessageDecoder<T>) decoder;
+    }
+
+    /**
+     * 按消息对象的运行时类型编码
+     *
+     * @param payload 消息对象
+     * @param <T>     消息对象类型
+     * @return 消息体
+     * @throws OnsCodecException 编码失败
+     */
+    @SuppressWarnings("unchecked")
+    public <T> byte[] encode(T payload) {
+        if (null == payload) {
+            throw new OnsCodecException("payload must not be null");
+        }
+        return encoder((Class<T>) payload.getClass()).encode(payload);
+    }
+
+    /**
+     * 解析listener实现类在泛型接口上声明的消息对象类型
+     *
+     * @param listenerClass     listener实现类
+     * @param listenerInterface 带一个泛型参数的listener接口
+     * @return 消息对象类型，未声明时返回NULL
+     */
+    public static Type resolvePayloadType(Class<?> listenerClass, Class<?> listenerInterface) {
+        ResolvableType payloadType = ResolvableType.forClass(listenerClass).as(listenerInterface).getGeneric(0);
+        if (ResolvableType.NONE.equals(payloadType) || payloadType.hasUnresolvableGenerics() || null == payloadType.resolve()) {
+            return null;
+        }
+        return payloadType.getType();
+    }
+
+    private MessageCodec find(Type type) {
+        for (MessageCodec codec : codecs) {
+            if (codec.supports(type)) {
+                return codec;
+            }
+        }
+        throw new OnsCodecException("no MessageCodec supports " + type.getTypeName());
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.yanglong.ons.commons.factory;
+
+import io.github.yanglong.ons.commons.properties.OnsStartupProperties;
+import io.github.yanglong.ons.commons.utils.OnsExecutors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Description: 并行启动多个配置的客户端
+ *
+ * 每个配置的创建和启动作为一个任务，在有界线程池中并行执行，所有任务共用一个总超时时间。
+ * 单个配置启动失败只记录该配置的结果，不影响其他配置；超时未完成的任务不中断，继续在后台完成，
+ * 已标记超时的结果不再改变，后台完成的耗时和结果另行记录。
+ * 任务中不要从Spring容器获取Bean，容器初始化期间其他线程获取未创建的Bean会等待容器锁，应在提交任务前获取。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class OnsParallelStartup {
+    /**
+     * 客户端描述，用于线程名和日志输出，如TCP producer
+     */
+    private final String client;
+    private final OnsStartupProperties properties;
+    private final Map<String, Runnable> tasks = new LinkedHashMap<>();
+
+    public OnsParallelStartup(String client, OnsStartupProperties properties) {
+        this.client = client;
+        this.properties = null == properties ? new OnsStartupProperties() : properties;
+    }
+
+    /**
+     * 添加一个配置的启动任务，任务抛出异常表示启动失败
+     *
+     * @param name 配置名称
+     * @param task 创建并启动客户端
+     * @return this
+     */
+    public OnsParallelStartup add(String name, Runnable task) {
+        tasks.put(name, task);
+        return this;
+    }
+
+    /**
+     * 执行所有启动任务，等待全部完成或达到总超时时间
+     *
+     * @return 各配置的启动结果，按添加顺序排列
+     */
+    public Map<String, OnsStartupTiming> run() {
+        Map<String, OnsStartupTiming> timings = new LinkedHashMap<>(tasks.size() * 2);
+        if (tasks.isEmpty()) {
+            return timings;
+        }
+        long begin = System.currentTimeMillis();
+        int parallelism = Math.min(properties.getParallelism(), tasks.size());
+        if (parallelism <= 1) {
+            tasks.forEach((name, task) -> timings.put(name, execute(name, task)));
+        } else {
+            ThreadPoolExecutor executor = OnsExecutors.newFixedPool("ons-startup-" + client.replace(' ', '-') + "-", parallelism);
+            List<CompletableFuture<Void>> futures = new ArrayList<>(tasks.size());
+            tasks.forEach((name, task) -> {
+                OnsStartupTiming timing = new OnsStartupTiming(name);
+                timings.put(name, timing);
+                futures.add(CompletableFuture.runAsync(() -> execute(timing, task), executor));
+            });
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(properties.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                timeout(timings.values(), begin);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                timeout(timings.values(), begin);
+            } catch (ExecutionException e) {
+                //任务内部已捕获异常，不会到这里
+                log.error("{} startup error!", client, e);
+            } finally {
+                //不中断未完成的任务，执行完后线程退出
+                executor.shutdown();
+            }
+        }
+        long started = timings.values().stream().filter(t -> t.isSuccess() && !t.isTimedOut()).count();
+        long timedOut = timings.values().stream().filter(OnsStartupTiming::isTimedOut).count();
+        log.info("{} startup finished in {}ms,{} configs,{} started,{} failed,{} timed out.", client, System.currentTimeMillis() - begin,
+                timings.size(), started, timings.size() - started - timedOut, timedOut);
+        return timings;
+    }
+
+    private OnsStartupTiming execute(String name, Runnable task) {
+        OnsStartupTiming timing = new OnsStartupTiming(name);
+        execute(timing, task);
+        return timing;
+    }
+
+    private void execute(OnsStartupTiming timing, Runnable task) {
+        long start = System.currentTimeMillis();
+        try {
+            task.run();
+            long cost = System.currentTimeMillis() - start;
+            if (complete(timing, true, null, cost)) {
+                log.info("{} [{}] started in {}ms.", client, timing.getName(), cost);
+            } else {
+                log.warn("{} [{}] started in background after timeout,cost {}ms.", client, timing.getName(), cost);
+            }
+        } catch (Throwable e) {
+            long cost = System.currentTimeMillis() - start;
+            complete(timing, false, e.getMessage(), cost);
+            log.error("{} [{}] can't start,cost {}ms.", client, timing.getName(), cost, e);
+        }
+    }
+
+    /**
+     * 记录启动结果，已标记超时的只记录后台完成的耗时和结果
+     *
+     * @param timing  启动结果
+     * @param success 是否启动成功
+     * @param error   启动失败的原因
+     * @param cost    耗时
+     * @return 未超时返回true
+     */
+    private boolean complete(OnsStartupTiming timing, boolean success, String error, long cost) {
+        synchronized (timing) {
+            if (timing.isTimedOut()) {
+                timing.setLateSuccess(success);
+                timing.setLateCostMillis(cost);
+                return false;
+            }
+            timing.setSuccess(success);
+            timing.setError(error);
+            timing.setCostMillis(cost);
+            return true;
+        }
+    }
+
+    /**
+     * 标记超时未完成的配置
+     *
+     * @param timings 启动结果
+     * @param begin   开始时间
+     */
+    private void timeout(Iterable<OnsStartupTiming> timings, long begin) {
+        long waited = System.currentTimeMillis() - begin;
+        List<String> pending = new ArrayList<>();
+        for (OnsStartupTiming timing : timings) {
+            synchronized (timing) {
+                if (timing.getCostMillis() < 0) {
+                    timing.setTimedOut(true);
+                    timing.setCostMillis(waited);
+                    pending.add(timing.getName());
+                }
+            }
+        }
+        log.error("{} startup timeout after {}ms,{} still starting in background.", client, waited, pending);
+    }
+}
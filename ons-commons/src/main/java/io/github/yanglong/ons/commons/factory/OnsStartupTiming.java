@@ -0,0 +1,42 @@
+package io.github.yanglong.ons.commons.factory;
+
+import lombok.Data;
+
+/**
+ * Description: 单个配置的启动耗时和结果
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+public class OnsStartupTiming {
+    /**
+     * 配置名称
+     */
+    private final String name;
+    /**
+     * 启动耗时，单位毫秒，未开始时为-1，超时未完成时为等待的时间
+     */
+    private volatile long costMillis = -1;
+    /**
+     * 是否启动成功，超时的配置始终为false
+     */
+    private volatile boolean success;
+    /**
+     * 是否超过总超时时间才完成或仍未完成
+     */
+    private volatile boolean timedOut;
+    /**
+     * 启动失败的原因
+     */
+    private volatile String error;
+    /**
+     * 超时后在后台完成的实际耗时，单位毫秒，未超时或仍未完成时为-1
+     */
+    private volatile long lateCostMillis = -1;
+    /**
+     * 超时后在后台是否启动成功
+     */
+    private volatile boolean lateSuccess;
+}
@@ -0,0 +1,67 @@
+package io.github.yanglong.ons.commons.metrics;
+
+import lombok.Data;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Description: 线程池状态快照，用于观察组件线程池的饱和度
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+public class OnsPoolStats {
+    /**
+     * 线程池名称
+     */
+    private String name;
+    /**
+     * 当前线程数
+     */
+    private int poolSize;
+    /**
+     * 正在执行任务的线程数
+     */
+    private int activeCount;
+    /**
+     * 最大线程数
+     */
+    private int maxPoolSize;
+    /**
+     * 排队任务数
+     */
+    private int queueSize;
+    /**
+     * 已完成任务数
+     */
+    private long completedTaskCount;
+
+    /**
+     * 饱和度，正在执行任务的线程数/最大线程数
+     *
+     * @return 0~1
+     */
+    public double getSaturation() {
+        return maxPoolSize <= 0 ? 0 : (double) activeCount / maxPoolSize;
+    }
+
+    /**
+     * 生成线程池状态快照
+     *
+     * @param name     线程池名称
+     * @param executor 线程池
+     * @return OnsPoolStats
+     */
+    public static OnsPoolStats of(String name, ThreadPoolExecutor executor) {
+        OnsPoolStats stats = new OnsPoolStats();
+        stats.setName(name);
+        stats.setPoolSize(executor.getPoolSize());
+        stats.setActiveCount(executor.getActiveCount());
+        stats.setMaxPoolSize(executor.getMaximumPoolSize());
+        stats.setQueueSize(executor.getQueue().size());
+        stats.setCompletedTaskCount(executor.getCompletedTaskCount());
+        return stats;
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.yanglong.ons.commons.producer;
+
+import io.github.yanglong.ons.commons.properties.CompressionType;
+import io.github.yanglong.ons.commons.properties.OnsProducerProperties;
+import io.github.yanglong.ons.commons.utils.OnsCompression;
+import lombok.Getter;
+
+/**
+ * Description: 生产者消息体压缩配置，超过阈值且压缩后变小的消息体才压缩
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Getter
+public class OnsBodyCompressor {
+    /**
+     * 压缩算法
+     */
+    private final CompressionType type;
+    /**
+     * 超过该字节数时才压缩
+     */
+    private final int threshold;
+    /**
+     * 压缩级别
+     */
+    private final int level;
+
+    public OnsBodyCompressor(CompressionType type, int threshold, int level) {
+        this.type = type;
+        this.threshold = Math.max(0, threshold);
+        this.level = level < 0 ? -1 : Math.min(level, 9);
+    }
+
+    /**
+     * 根据生产者配置创建
+     *
+     * @param properties 生产者配置
+     * @return 不压缩时返回NULL
+     */
+    public static OnsBodyCompressor of(OnsProducerProperties properties) {
+        CompressionType type = properties.getCompression();
+        if (null == type || CompressionType.NONE.equals(type)) {
+            return null;
+        }
+        return new OnsBodyCompressor(type, properties.getCompressThreshold(), properties.getCompressLevel());
+    }
+
+    /**
+     * 压缩消息体
+     *
+     * @param body   消息体
+     * @param base64 是否进行Base64编码
+     * @return 不超过阈值或压缩后没有变小时返回NULL
+     */
+    public byte[] compress(byte[] body, boolean base64) {
+        if (null == body || body.length <= threshold) {
+            return null;
+        }
+        byte[] compressed = base64 ? OnsCompression.compressToBase64(type, level, body) : OnsCompression.compress(type, level, body);
+        return compressed.length < body.length ? compressed : null;
+    }
+
+    /**
+     * 获取标记值
+     *
+     * @param base64 是否经过Base64编码
+     * @return 标记值
+     */
+    public String marker(boolean base64) {
+        return OnsCompression.marker(type, base64);
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.yanglong.ons.commons.producer;
+
+/**
+ * Description: 消息发送失败异常，异步发送失败时future以此异常完成
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class OnsSendException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public OnsSendException(String message) {
+        super(message);
+    }
+
+    public OnsSendException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.yanglong.ons.commons.producer;
+
+import lombok.Data;
+
+/**
+ * Description: 消息发送回执，异步发送成功时返回
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+public class OnsSendReceipt {
+    /**
+     * topic
+     */
+    private String topic;
+    /**
+     * 消息ID
+     */
+    private String messageId;
+    /**
+     * 业务唯一键值
+     */
+    private String key;
+    /**
+     * HTTP事务消息的receiptHandle，其他消息为空
+     */
+    private String receiptHandle;
+
+    /**
+     * 生成发送回执
+     *
+     * @param topic     topic
+     * @param messageId 消息ID
+     * @param key       业务唯一键值
+     * @return OnsSendReceipt
+     */
+    public static OnsSendReceipt of(String topic, String messageId, String key) {
+        OnsSendReceipt receipt = new OnsSendReceipt();
+        receipt.setTopic(topic);
+        receipt.setMessageId(messageId);
+        receipt.setKey(key);
+        return receipt;
+    }
+}
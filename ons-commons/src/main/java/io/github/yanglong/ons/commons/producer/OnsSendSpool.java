@@ -0,0 +1,643 @@
+package io.github.yanglong.ons.commons.producer;
+
+import io.github.yanglong.ons.commons.properties.FsyncPolicy;
+import io.github.yanglong.ons.commons.properties.OnsSpoolProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Description: 本地发送暂存，同步发送失败或生产者未就绪的消息追加写入本地磁盘，由后台线程按速率限制重新发送
+ *
+ * 每个生产者名称使用独立的子目录和重新发送位置，由固定大小的段文件组成，段文件使用内存映射追加写入，写满后切换到下一个段文件，重新发送完成的段文件被删除。
+ * 每条记录的格式为：长度(4字节) + CRC32(4字节) + 内容，长度最后写入，因此进程崩溃后重新打开时可以找到最后一条完整的记录。
+ * 重新发送的位置记录在checkpoint文件中，重新发送成功但位置未落盘时进程崩溃，重启后消息会再次发送，即至少发送一次。
+ * 每个生产者的消息按写入顺序重新发送，某条消息发送失败时该生产者本轮停止，等待下一轮再从该消息开始，因此生产者未恢复前不会空转，
+ * 也不会阻塞其他生产者的重新发送。每个生产者至少占用一个段文件，计入maxDiskBytes，生产者较多时可以减小segmentBytes。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class OnsSendSpool {
+    /**
+     * 段文件后缀
+     */
+    private static final String SEGMENT_SUFFIX = ".spool";
+    /**
+     * 重新发送位置文件
+     */
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    /**
+     * 生产者子目录前缀，后接生产者名称的URL安全Base64编码
+     */
+    private static final String LANE_PREFIX = "p-";
+    /**
+     * 记录头长度，长度 + CRC32
+     */
+    private static final int HEADER_BYTES = 8;
+    /**
+     * 暂存名称，用于日志和线程名
+     */
+    @Getter
+    private final String name;
+    /**
+     * 暂存文件目录
+     */
+    @Getter
+    private final Path dir;
+    /**
+     * 暂存配置
+     */
+    private final OnsSpoolProperties properties;
+    /**
+     * 各生产者的暂存，key为生产者名称
+     */
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>(8);
+    /**
+     * 升级前所有生产者共用的暂存，只重新发送，不再写入
+     */
+    private final Lane legacy;
+    /**
+     * 所有生产者的段文件数，用于检查磁盘上限
+     */
+    private final AtomicInteger segmentCount = new AtomicInteger();
+    /**
+     * 每轮重新发送开始的生产者，轮流开始
+     */
+    private final AtomicInteger replayCursor = new AtomicInteger();
+    private volatile boolean closed;
+    /**
+     * 暂存的消息数
+     */
+    private final AtomicLong spooledCount = new AtomicLong();
+    /**
+     * 重新发送成功的消息数
+     */
+    private final AtomicLong replayedCount = new AtomicLong();
+    /**
+     * 因超过大小或磁盘上限未能暂存的消息数
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+    private ScheduledThreadPoolExecutor scheduler;
+
+    public OnsSendSpool(String name, OnsSpoolProperties properties) {
+        this.name = name;
+        this.properties = properties;
+        String dir = StringUtils.isBlank(properties.getDir())
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "ons-spool", name).toString() : properties.getDir();
+        this.dir = Paths.get(dir);
+        try {
+            Files.createDirectories(this.dir);
+            legacy = hasSegments(this.dir) ? new Lane("*", this.dir) : null;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.dir, LANE_PREFIX + "*")) {
+                for (Path path : stream) {
+                    if (!Files.isDirectory(path)) {
+                        continue;
+                    }
+                    String producerName = decodeName(path.getFileName().toString().substring(LANE_PREFIX.length()));
+                    if (null == producerName) {
+                        log.warn("ONS send spool [{}] ignore unknown directory {}.", name, path);
+                    } else {
+                        lanes.put(producerName, new Lane(producerName, path));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("can't open ONS send spool in " + this.dir, e);
+        }
+        log.info("ONS send spool [{}] opened in {},{} producers,{} segments.", name, this.dir, lanes.size(), segmentCount.get());
+    }
+
+    /**
+     * 启动后台重新发送
+     *
+     * @param sender 重新发送一条消息，返回false或抛出异常表示发送失败，该生产者本轮停止
+     */
+    public synchronized void start(Predicate<OnsSpoolRecord> sender) {
+        if (null != scheduler) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ons-spool-" + name + "-");
+        threadFactory.setDaemon(true);
+        scheduler = new ScheduledThreadPoolExecutor(2, threadFactory);
+        long interval = Math.max(1, properties.getReplayIntervalMillis());
+        scheduler.scheduleWithFixedDelay(() -> replay(sender), interval, interval, TimeUnit.MILLISECONDS);
+        if (FsyncPolicy.INTERVAL.equals(properties.getFsync())) {
+            long fsyncInterval = Math.max(1, properties.getFsyncIntervalMillis());
+            scheduler.scheduleWithFixedDelay(this::flush, fsyncInterval, fsyncInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 追加一条消息到该消息生产者的暂存
+     *
+     * @param record 消息
+     * @return 是否暂存成功，超过段文件大小或磁盘上限时返回false
+     */
+    public boolean append(OnsSpoolRecord record) {
+        byte[] data = record.encode();
+        if (HEADER_BYTES + data.length > properties.getSegmentBytes()) {
+            droppedCount.incrementAndGet();
+            log.error("ONS send spool [{}] can't spool message,{} bytes is larger than segment.topic={},key={}", name, data.length, record.getTopic(), record.getKey());
+            return false;
+        }
+        Lane lane = closed ? null : lane(record);
+        if (null == lane || !lane.append(record, data)) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        spooledCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 刷盘
+     */
+    public void flush() {
+        if (null != legacy) {
+            legacy.flush();
+        }
+        lanes.values().forEach(Lane::flush);
+    }
+
+    /**
+     * 停止重新发送并关闭，未发送的消息在下次启动后继续发送
+     */
+    public void close() {
+        synchronized (this) {
+            if (null != scheduler) {
+                scheduler.shutdown();
+                try {
+                    scheduler.awaitTermination(properties.getReplayIntervalMillis() + 5000, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        closed = true;
+        flush();
+        if (null != legacy) {
+            legacy.close();
+        }
+        lanes.values().forEach(Lane::close);
+        log.info("ONS send spool [{}] closed,spooled {},replayed {},dropped {}.", name, spooledCount.get(), replayedCount.get(), droppedCount.get());
+    }
+
+    public long getSpooledCount() {
+        return spooledCount.get();
+    }
+
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 获取段文件数，包括各生产者当前写入的段文件
+     *
+     * @return 段文件数
+     */
+    public int getSegmentCount() {
+        return segmentCount.get();
+    }
+
+    /**
+     * 获取有暂存的生产者数
+     *
+     * @return 生产者数
+     */
+    public int getProducerCount() {
+        return lanes.size();
+    }
+
+    /**
+     * 获取消息生产者的暂存，第一次写入时创建
+     *
+     * @param record 消息
+     * @return 创建失败或超过磁盘上限时返回NULL
+     */
+    private Lane lane(OnsSpoolRecord record) {
+        String producerName = null == record.getProducerName() ? "" : record.getProducerName();
+        Lane lane = lanes.get(producerName);
+        if (null != lane) {
+            return lane;
+        }
+        synchronized (lanes) {
+            lane = lanes.get(producerName);
+            if (null != lane || closed) {
+                return lane;
+            }
+            if ((long) (segmentCount.get() + 1) * properties.getSegmentBytes() > properties.getMaxDiskBytes()) {
+                log.error("ONS send spool [{}] is full,max disk bytes is {}.producer={},topic={},key={}", name, properties.getMaxDiskBytes(), producerName, record.getTopic(), record.getKey());
+                return null;
+            }
+            Path path = dir.resolve(LANE_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(producerName.getBytes(StandardCharsets.UTF_8)));
+            try {
+                Files.createDirectories(path);
+                lane = new Lane(producerName, path);
+            } catch (IOException e) {
+                log.error("ONS send spool [{}] can't create directory for producer {}.", name, producerName, e);
+                return null;
+            }
+            lanes.put(producerName, lane);
+            return lane;
+        }
+    }
+
+    /**
+     * 各生产者轮流重新发送，每轮最多共发送replayPerSecond * replayIntervalMillis / 1000条，按生产者平分，
+     * 某个生产者的消息发送失败时只停止该生产者本轮的发送
+     *
+     * @param sender 发送方法
+     */
+    private void replay(Predicate<OnsSpoolRecord> sender) {
+        List<Lane> all = new ArrayList<>(lanes.size() + 1);
+        if (null != legacy) {
+            all.add(legacy);
+        }
+        all.addAll(lanes.values());
+        if (all.isEmpty()) {
+            return;
+        }
+        long budget = Math.max(1, (long) properties.getReplayPerSecond() * properties.getReplayIntervalMillis() / 1000);
+        long share = Math.max(1, budget / all.size());
+        int start = replayCursor.getAndIncrement() & Integer.MAX_VALUE;
+        for (int k = 0; k < all.size() && budget > 0; k++) {
+            budget -= all.get((start + k) % all.size()).replay(sender, Math.min(share, budget));
+        }
+    }
+
+    private static boolean hasSegments(Path dir) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            return stream.iterator().hasNext();
+        }
+    }
+
+    private static String decodeName(String encoded) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, 0, data.length);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * 一个生产者的暂存，由该目录下的段文件和checkpoint文件组成
+     */
+    private final class Lane {
+        /**
+         * 生产者名称，升级前共用的暂存为*
+         */
+        private final String producerName;
+        private final Path dir;
+        private final Object lock = new Object();
+        /**
+         * 存在的段文件编号，最后一个为当前写入的段文件
+         */
+        private final TreeSet<Long> segments = new TreeSet<>();
+        private final FileChannel checkpointChannel;
+        /**
+         * 当前写入的段文件
+         */
+        private long writeSegment;
+        private MappedByteBuffer writeBuffer;
+        private int writePosition;
+        /**
+         * 是否有未刷盘的写入
+         */
+        private boolean dirty;
+        /**
+         * 当前重新发送的段文件
+         */
+        private long readSegment;
+        private ByteBuffer readBuffer;
+        private int readPosition;
+        /**
+         * 已读取但未确认发送的记录的结束位置
+         */
+        private int pendingPosition;
+        private boolean closed;
+
+        Lane(String producerName, Path dir) throws IOException {
+            this.producerName = producerName;
+            this.dir = dir;
+            checkpointChannel = FileChannel.open(dir.resolve(CHECKPOINT_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                recover();
+            } catch (IOException e) {
+                checkpointChannel.close();
+                throw e;
+            }
+            segmentCount.addAndGet(segments.size());
+        }
+
+        boolean append(OnsSpoolRecord record, byte[] data) {
+            synchronized (lock) {
+                if (closed) {
+                    return false;
+                }
+                if (writePosition + HEADER_BYTES + data.length > properties.getSegmentBytes()) {
+                    if ((long) (segmentCount.get() + 1) * properties.getSegmentBytes() > properties.getMaxDiskBytes()) {
+                        log.error("ONS send spool [{}] is full,max disk bytes is {}.producer={},topic={},key={}", name, properties.getMaxDiskBytes(), producerName, record.getTopic(), record.getKey());
+                        return false;
+                    }
+                    try {
+                        rotate();
+                    } catch (IOException e) {
+                        log.error("ONS send spool [{}] can't create segment.producer={},topic={},key={}", name, producerName, record.getTopic(), record.getKey(), e);
+                        return false;
+                    }
+                }
+                ByteBuffer buffer = writeBuffer.duplicate();
+                buffer.position(writePosition + HEADER_BYTES);
+                buffer.put(data);
+                writeBuffer.putInt(writePosition + 4, crc(data));
+                //长度最后写入，长度为0表示后面没有记录
+                writeBuffer.putInt(writePosition, data.length);
+                writePosition += HEADER_BYTES + data.length;
+                if (FsyncPolicy.ALWAYS.equals(properties.getFsync())) {
+                    writeBuffer.force();
+                } else {
+                    dirty = true;
+                }
+                return true;
+            }
+        }
+
+        void flush() {
+            synchronized (lock) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    if (dirty) {
+                        writeBuffer.force();
+                        dirty = false;
+                    }
+                    checkpointChannel.force(false);
+                } catch (Exception e) {
+                    log.error("ONS send spool [{}] flush producer {} error!", name, producerName, e);
+                }
+            }
+        }
+
+        void close() {
+            synchronized (lock) {
+                closed = true;
+                try {
+                    checkpointChannel.close();
+                } catch (IOException e) {
+                    log.error("ONS send spool [{}] close producer {} error!", name, producerName, e);
+                }
+            }
+        }
+
+        /**
+         * 按写入顺序重新发送，发送失败时停止
+         *
+         * @param sender 发送方法
+         * @param budget 最多发送的消息数
+         * @return 尝试发送的消息数
+         */
+        long replay(Predicate<OnsSpoolRecord> sender, long budget) {
+            long attempted = 0;
+            try {
+                while (attempted < budget) {
+                    OnsSpoolRecord record = next();
+                    if (null == record) {
+                        break;
+                    }
+                    attempted++;
+                    boolean sent;
+                    try {
+                        sent = sender.test(record);
+                    } catch (Exception e) {
+                        log.error("ONS send spool [{}] replay error.producer={},topic={},key={}", name, producerName, record.getTopic(), record.getKey(), e);
+                        sent = false;
+                    }
+                    if (!sent) {
+                        break;
+                    }
+                    commit();
+                }
+            } catch (Exception e) {
+                log.error("ONS send spool [{}] replay producer {} error!", name, producerName, e);
+            }
+            return attempted;
+        }
+
+        /**
+         * 读取下一条待发送的消息，读完的段文件被删除
+         *
+         * @return 没有待发送的消息时为空
+         * @throws IOException 读取段文件失败
+         */
+        private OnsSpoolRecord next() throws IOException {
+            synchronized (lock) {
+                while (!closed) {
+                    boolean writing = readSegment == writeSegment;
+                    ByteBuffer buffer = writing ? writeBuffer : readBuffer();
+                    int limit = writing ? writePosition : buffer.capacity();
+                    if (readPosition + HEADER_BYTES <= limit) {
+                        int length = buffer.getInt(readPosition);
+                        if (length > 0 && readPosition + HEADER_BYTES + length <= limit) {
+                            byte[] data = new byte[length];
+                            ByteBuffer duplicate = buffer.duplicate();
+                            duplicate.position(readPosition + HEADER_BYTES);
+                            duplicate.get(data);
+                            pendingPosition = readPosition + HEADER_BYTES + length;
+                            if (crc(data) == buffer.getInt(readPosition + 4)) {
+                                try {
+                                    return OnsSpoolRecord.decode(data);
+                                } catch (Exception e) {
+                                    log.error("ONS send spool [{}] skip undecodable record of producer {} in segment {} at {}.", name, producerName, readSegment, readPosition, e);
+                                    readPosition = pendingPosition;
+                                    continue;
+                                }
+                            }
+                            log.error("ONS send spool [{}] producer {} segment {} corrupted at {},skip the rest.", name, producerName, readSegment, readPosition);
+                        }
+                    }
+                    if (writing) {
+                        return null;
+                    }
+                    finishSegment();
+                }
+                return null;
+            }
+        }
+
+        /**
+         * 确认上一条读取的消息已发送
+         *
+         * @throws IOException 写入checkpoint失败
+         */
+        private void commit() throws IOException {
+            synchronized (lock) {
+                if (closed) {
+                    return;
+                }
+                readPosition = pendingPosition;
+                saveCheckpoint();
+            }
+            replayedCount.incrementAndGet();
+        }
+
+        /**
+         * 当前重新发送的段文件已读完，删除并移动到下一个段文件
+         *
+         * @throws IOException 写入checkpoint失败
+         */
+        private void finishSegment() throws IOException {
+            readBuffer = null;
+            if (segments.remove(readSegment)) {
+                segmentCount.decrementAndGet();
+            }
+            Files.deleteIfExists(segmentPath(readSegment));
+            Long next = segments.ceiling(readSegment);
+            readSegment = null == next ? writeSegment : next;
+            readPosition = 0;
+            saveCheckpoint();
+        }
+
+        /**
+         * 切换到下一个段文件写入
+         *
+         * @throws IOException 创建段文件失败
+         */
+        private void rotate() throws IOException {
+            if (!FsyncPolicy.NONE.equals(properties.getFsync())) {
+                writeBuffer.force();
+            }
+            dirty = false;
+            MappedByteBuffer buffer = map(writeSegment + 1);
+            writeSegment++;
+            segments.add(writeSegment);
+            segmentCount.incrementAndGet();
+            writeBuffer = buffer;
+            writePosition = 0;
+        }
+
+        /**
+         * 打开已有的段文件，找到写入位置和重新发送位置
+         *
+         * @throws IOException 读取失败
+         */
+        private void recover() throws IOException {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+                for (Path path : stream) {
+                    String fileName = path.getFileName().toString();
+                    try {
+                        segments.add(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        log.warn("ONS send spool [{}] ignore unknown file {}.", name, path);
+                    }
+                }
+            }
+            if (segments.isEmpty()) {
+                segments.add(0L);
+            }
+            writeSegment = segments.last();
+            writeBuffer = map(writeSegment);
+            writePosition = scan(writeBuffer);
+            ByteBuffer checkpoint = ByteBuffer.allocate(12);
+            if (checkpointChannel.read(checkpoint, 0) == 12) {
+                checkpoint.flip();
+                readSegment = checkpoint.getLong();
+                readPosition = checkpoint.getInt();
+            }
+            if (!segments.contains(readSegment)) {
+                readSegment = segments.first();
+                readPosition = 0;
+            }
+        }
+
+        /**
+         * 找到段文件中最后一条完整记录的结束位置
+         *
+         * @param buffer 段文件
+         * @return 写入位置
+         */
+        private int scan(ByteBuffer buffer) {
+            int position = 0;
+            while (position + HEADER_BYTES <= properties.getSegmentBytes()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + length > properties.getSegmentBytes()) {
+                    break;
+                }
+                byte[] data = new byte[length];
+                ByteBuffer duplicate = buffer.duplicate();
+                duplicate.position(position + HEADER_BYTES);
+                duplicate.get(data);
+                if (crc(data) != buffer.getInt(position + 4)) {
+                    break;
+                }
+                position += HEADER_BYTES + length;
+            }
+            return position;
+        }
+
+        private ByteBuffer readBuffer() throws IOException {
+            if (null == readBuffer) {
+                try (FileChannel channel = FileChannel.open(segmentPath(readSegment), StandardOpenOption.READ)) {
+                    readBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), properties.getSegmentBytes()));
+                }
+            }
+            return readBuffer;
+        }
+
+        private MappedByteBuffer map(long segment) throws IOException {
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, properties.getSegmentBytes());
+            }
+        }
+
+        private void saveCheckpoint() throws IOException {
+            ByteBuffer checkpoint = ByteBuffer.allocate(12);
+            checkpoint.putLong(readSegment).putInt(readPosition).flip();
+            checkpointChannel.write(checkpoint, 0);
+            if (FsyncPolicy.ALWAYS.equals(properties.getFsync())) {
+                checkpointChannel.force(false);
+            }
+        }
+
+        private Path segmentPath(long segment) {
+            return dir.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+        }
+    }
+}
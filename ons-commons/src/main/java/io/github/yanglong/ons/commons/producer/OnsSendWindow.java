@@ -0,0 +1,216 @@
+package io.github.yanglong.ons.commons.producer;
+
+import io.github.yanglong.ons.commons.properties.BackpressurePolicy;
+import io.github.yanglong.ons.commons.properties.OnsProducerProperties;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Description: 异步发送窗口，限制一个生产者配置处理中的消息数和消息体字节数
+ *
+ * 发送前获取，发送结果返回后释放。达到上限时按策略阻塞等待、立即失败或由调用线程同步发送。
+ * 窗口为空时单条消息体超过字节上限也允许发送，避免永远无法发送。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class OnsSendWindow {
+    /**
+     * 获取结果
+     */
+    public enum Admission {
+        /**
+         * 已获取，发送完成后需要释放
+         */
+        ACQUIRED,
+        /**
+         * 拒绝发送
+         */
+        REJECTED,
+        /**
+         * 由调用线程同步发送，不需要释放
+         */
+        CALLER_RUNS
+    }
+
+    /**
+     * 生产者名称
+     */
+    @Getter
+    private final String name;
+    /**
+     * 最大消息数，小于等于0时不限制
+     */
+    @Getter
+    private final int maxInFlight;
+    /**
+     * 最大消息体字节数，小于等于0时不限制
+     */
+    @Getter
+    private final long maxInFlightBytes;
+    /**
+     * 达到上限时的处理策略
+     */
+    @Getter
+    private final BackpressurePolicy policy;
+    /**
+     * BLOCK策略下最长等待时间，单位毫秒
+     */
+    @Getter
+    private final long blockMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    /**
+     * 处理中的消息数
+     */
+    private int inFlight;
+    /**
+     * 处理中的消息体字节数
+     */
+    private long inFlightBytes;
+    /**
+     * 被拒绝的次数
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+    /**
+     * 由调用线程同步发送的次数
+     */
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    public OnsSendWindow(String name, int maxInFlight, long maxInFlightBytes, BackpressurePolicy policy, long blockMillis) {
+        this.name = name;
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.policy = null == policy ? BackpressurePolicy.BLOCK : policy;
+        this.blockMillis = blockMillis;
+    }
+
+    /**
+     * 按生产者配置创建发送窗口
+     *
+     * @param name       生产者名称
+     * @param properties 生产者配置
+     * @return 没有配置上限时返回NULL
+     */
+    public static OnsSendWindow of(String name, OnsProducerProperties properties) {
+        if (properties.getAsyncMaxInFlight() <= 0 && properties.getAsyncMaxInFlightBytes() <= 0) {
+            return null;
+        }
+        return new OnsSendWindow(name, properties.getAsyncMaxInFlight(), properties.getAsyncMaxInFlightBytes(), properties.getAsyncBackpressure(), properties.getAsyncBlockMillis());
+    }
+
+    /**
+     * 发送前获取窗口
+     *
+     * @param bytes 消息体字节数
+     * @return 获取结果
+     */
+    public Admission acquire(int bytes) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(Math.max(0, blockMillis));
+        lock.lock();
+        try {
+            while (isFull(bytes)) {
+                if (BackpressurePolicy.CALLER_RUNS.equals(policy)) {
+                    callerRunsCount.incrementAndGet();
+                    return Admission.CALLER_RUNS;
+                }
+                if (BackpressurePolicy.FAIL.equals(policy) || remaining <= 0) {
+                    rejectedCount.incrementAndGet();
+                    return Admission.REJECTED;
+                }
+                try {
+                    remaining = released.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejectedCount.incrementAndGet();
+                    return Admission.REJECTED;
+                }
+            }
+            inFlight++;
+            inFlightBytes += bytes;
+            return Admission.ACQUIRED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 发送结果返回后释放窗口
+     *
+     * @param bytes 消息体字节数，与获取时一致
+     */
+    public void release(int bytes) {
+        lock.lock();
+        try {
+            inFlight--;
+            inFlightBytes -= bytes;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取处理中的消息数
+     *
+     * @return 消息数
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取处理中的消息体字节数
+     *
+     * @return 字节数
+     */
+    public long getInFlightBytes() {
+        lock.lock();
+        try {
+            return inFlightBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取被拒绝的次数
+     *
+     * @return 次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 获取由调用线程同步发送的次数
+     *
+     * @return 次数
+     */
+    public long getCallerRunsCount() {
+        return callerRunsCount.get();
+    }
+
+    /**
+     * 是否已达到上限，需在锁内调用
+     *
+     * @param bytes 本次的消息体字节数
+     * @return true-已满
+     */
+    private boolean isFull(int bytes) {
+        if (maxInFlight > 0 && inFlight >= maxInFlight) {
+            return true;
+        }
+        return maxInFlightBytes > 0 && inFlight > 0 && inFlightBytes + bytes > maxInFlightBytes;
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.yanglong.ons.commons.producer;
+
+import io.github.yanglong.ons.commons.properties.MessageType;
+import lombok.Data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Description: 暂存到本地磁盘的一条待发送消息
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+public class OnsSpoolRecord {
+    /**
+     * 编码格式版本
+     */
+    private static final byte VERSION = 1;
+    /**
+     * 生产者名称，重新发送时按名称获取生产者
+     */
+    private String producerName;
+    /**
+     * 消息类型，仅支持普通消息（包含延时和定时消息）和顺序消息
+     */
+    private MessageType messageType;
+    private String topic;
+    private String tag;
+    private String key;
+    /**
+     * 顺序消息分区键
+     */
+    private String shardingKey;
+    /**
+     * 定时投递时间，小于等于0时立即投递
+     */
+    private long startDeliverTime;
+    /**
+     * 写入暂存的时间
+     */
+    private long spoolTime;
+    private byte[] body;
+
+    public static OnsSpoolRecord of(String producerName, MessageType messageType, String topic, String tag, String key, byte[] body) {
+        OnsSpoolRecord record = new OnsSpoolRecord();
+        record.setProducerName(producerName);
+        record.setMessageType(messageType);
+        record.setTopic(topic);
+        record.setTag(tag);
+        record.setKey(key);
+        record.setBody(body);
+        record.setSpoolTime(System.currentTimeMillis());
+        return record;
+    }
+
+    /**
+     * 编码为字节数组
+     *
+     * @return 编码结果
+     */
+    public byte[] encode() {
+        byte[][] strings = {bytes(producerName), bytes(messageType.name()), bytes(topic), bytes(tag), bytes(key), bytes(shardingKey)};
+        int size = 1 + 8 + 8 + 4 + (null == body ? 0 : body.length);
+        for (byte[] string : strings) {
+            size += 4 + (null == string ? 0 : string.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION);
+        for (byte[] string : strings) {
+            putBytes(buffer, string);
+        }
+        buffer.putLong(startDeliverTime);
+        buffer.putLong(spoolTime);
+        putBytes(buffer, body);
+        return buffer.array();
+    }
+
+    /**
+     * 从字节数组解码
+     *
+     * @param data 编码结果
+     * @return 消息
+     */
+    public static OnsSpoolRecord decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte version = buffer.get();
+        if (VERSION != version) {
+            throw new IllegalStateException("unsupported spool record version " + version);
+        }
+        OnsSpoolRecord record = new OnsSpoolRecord();
+        record.setProducerName(getString(buffer));
+        record.setMessageType(MessageType.valueOf(getString(buffer)));
+        record.setTopic(getString(buffer));
+        record.setTag(getString(buffer));
+        record.setKey(getString(buffer));
+        record.setShardingKey(getString(buffer));
+        record.setStartDeliverTime(buffer.getLong());
+        record.setSpoolTime(buffer.getLong());
+        record.setBody(getBytes(buffer));
+        return record;
+    }
+
+    private static byte[] bytes(String value) {
+        return null == value ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        if (null == value) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return value;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = getBytes(buffer);
+        return null == value ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,332 @@
+package io.github.yanglong.ons.commons.producer;
+
+import io.github.yanglong.ons.commons.properties.OnsJournalProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Description: 本地事务结果日志，记录事务消息的本地事务结果，事务回查时优先从日志中回答，未命中时再调用业务的检查接口
+ *
+ * 日志由固定大小的段文件组成，使用内存映射追加写入，内存中按消息ID建立索引。每条记录的格式与本地发送暂存相同：
+ * 长度(4字节) + CRC32(4字节) + 内容，内容为写入时间(8字节) + 结果(1字节) + 消息ID，启动时扫描段文件重建索引。
+ * 写入不主动刷盘，进程崩溃时已写入的记录仍在操作系统页缓存中；操作系统崩溃丢失的记录回查时由业务检查接口回答。
+ * 占用空间超过maxDiskBytes或段文件中最新的记录超过保留时间时删除最早的段文件，同时从索引中移除其中的记录。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class OnsTransactionJournal {
+    /**
+     * 段文件后缀
+     */
+    private static final String SEGMENT_SUFFIX = ".journal";
+    /**
+     * 记录头长度，长度 + CRC32
+     */
+    private static final int HEADER_BYTES = 8;
+    /**
+     * 记录内容中消息ID之前的长度，写入时间 + 结果
+     */
+    private static final int FIXED_BYTES = 9;
+    /**
+     * 日志名称，用于日志输出
+     */
+    @Getter
+    private final String name;
+    /**
+     * 日志文件目录
+     */
+    @Getter
+    private final Path dir;
+    private final OnsJournalProperties properties;
+    private final Object lock = new Object();
+    /**
+     * 消息ID索引
+     */
+    private final Map<String, Entry> index = new ConcurrentHashMap<>(1024);
+    /**
+     * 存在的段文件编号及其中最新记录的写入时间，最后一个为当前写入的段文件
+     */
+    private final TreeMap<Long, Long> segments = new TreeMap<>();
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writePosition;
+    private boolean closed;
+    /**
+     * 写入的记录数
+     */
+    private final AtomicLong recordCount = new AtomicLong();
+    /**
+     * 回查命中数
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+    /**
+     * 回查未命中数
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    public OnsTransactionJournal(String name, OnsJournalProperties properties) {
+        this.name = name;
+        this.properties = properties;
+        String dir = StringUtils.isBlank(properties.getDir())
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "ons-journal", name).toString() : properties.getDir();
+        this.dir = Paths.get(dir);
+        try {
+            Files.createDirectories(this.dir);
+            recover();
+        } catch (IOException e) {
+            throw new IllegalStateException("can't open ONS transaction journal in " + this.dir, e);
+        }
+        log.info("ONS transaction journal [{}] opened in {},{} segments,{} entries.", name, this.dir, segments.size(), index.size());
+    }
+
+    /**
+     * 记录本地事务结果
+     *
+     * @param msgId 消息ID
+     * @param state 本地事务结果
+     */
+    public void record(String msgId, OnsTransactionState state) {
+        if (StringUtils.isEmpty(msgId) || null == state) {
+            return;
+        }
+        byte[] id = msgId.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_BYTES + id.length;
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            if (writePosition + HEADER_BYTES + length > properties.getSegmentBytes()) {
+                try {
+                    rotate(now);
+                } catch (IOException e) {
+                    log.error("ONS transaction journal [{}] can't create segment,msgId {} is not recorded.", name, msgId, e);
+                    return;
+                }
+            }
+            ByteBuffer data = ByteBuffer.allocate(length);
+            data.putLong(now).put((byte) state.ordinal()).put(id);
+            byte[] array = data.array();
+            ByteBuffer buffer = writeBuffer.duplicate();
+            buffer.position(writePosition + HEADER_BYTES);
+            buffer.put(array);
+            writeBuffer.putInt(writePosition + 4, crc(array));
+            //长度最后写入，长度为0表示后面没有记录
+            writeBuffer.putInt(writePosition, length);
+            writePosition += HEADER_BYTES + length;
+            segments.put(writeSegment, now);
+            index.put(msgId, new Entry(state, writeSegment, now));
+        }
+        recordCount.incrementAndGet();
+    }
+
+    /**
+     * 查询本地事务结果
+     *
+     * @param msgId 消息ID
+     * @return 没有记录或已超过保留时间时为空
+     */
+    public OnsTransactionState lookup(String msgId) {
+        Entry entry = null == msgId ? null : index.get(msgId);
+        if (null != entry && System.currentTimeMillis() - entry.timestamp <= properties.getRetentionMillis()) {
+            hitCount.incrementAndGet();
+            return entry.state;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 关闭，已写入的记录刷盘
+     */
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeBuffer.force();
+            } catch (Exception e) {
+                log.error("ONS transaction journal [{}] flush error!", name, e);
+            }
+        }
+        log.info("ONS transaction journal [{}] closed,recorded {},hit {},miss {}.", name, recordCount.get(), hitCount.get(), missCount.get());
+    }
+
+    public long getRecordCount() {
+        return recordCount.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * 获取结果保留时间
+     *
+     * @return 单位毫秒
+     */
+    public long getRetentionMillis() {
+        return properties.getRetentionMillis();
+    }
+
+    /**
+     * 获取索引中的记录数
+     *
+     * @return 记录数
+     */
+    public int getSize() {
+        return index.size();
+    }
+
+    /**
+     * 切换到下一个段文件写入，并删除超过磁盘上限或保留时间的段文件
+     *
+     * @param now 当前时间
+     * @throws IOException 创建段文件失败
+     */
+    private void rotate(long now) throws IOException {
+        writeBuffer.force();
+        MappedByteBuffer buffer = map(writeSegment + 1);
+        writeSegment++;
+        segments.put(writeSegment, now);
+        writeBuffer = buffer;
+        writePosition = 0;
+        while (segments.size() > 1) {
+            Map.Entry<Long, Long> oldest = segments.firstEntry();
+            boolean full = (long) segments.size() * properties.getSegmentBytes() > properties.getMaxDiskBytes();
+            if (!full && now - oldest.getValue() <= properties.getRetentionMillis()) {
+                break;
+            }
+            segments.remove(oldest.getKey());
+            Files.deleteIfExists(segmentPath(oldest.getKey()));
+            final long segment = oldest.getKey();
+            index.values().removeIf(entry -> entry.segment == segment);
+            log.info("ONS transaction journal [{}] delete segment {}.", name, segment);
+        }
+    }
+
+    /**
+     * 打开已有的段文件，重建索引并找到写入位置
+     *
+     * @throws IOException 读取失败
+     */
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String fileName = path.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())), 0L);
+                } catch (NumberFormatException e) {
+                    log.warn("ONS transaction journal [{}] ignore unknown file {}.", name, path);
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, System.currentTimeMillis());
+        }
+        writeSegment = segments.lastKey();
+        for (Long segment : segments.keySet().toArray(new Long[0])) {
+            if (segment == writeSegment) {
+                writeBuffer = map(segment);
+                writePosition = load(segment, writeBuffer);
+            } else {
+                try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                    load(segment, channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), properties.getSegmentBytes())));
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取段文件中的完整记录放入索引
+     *
+     * @param segment 段文件编号
+     * @param buffer  段文件
+     * @return 最后一条完整记录的结束位置
+     */
+    private int load(long segment, ByteBuffer buffer) {
+        int position = 0;
+        int limit = buffer.capacity();
+        while (position + HEADER_BYTES <= limit) {
+            int length = buffer.getInt(position);
+            if (length <= FIXED_BYTES || position + HEADER_BYTES + length > limit) {
+                break;
+            }
+            byte[] data = new byte[length];
+            ByteBuffer duplicate = buffer.duplicate();
+            duplicate.position(position + HEADER_BYTES);
+            duplicate.get(data);
+            if (crc(data) != buffer.getInt(position + 4)) {
+                log.warn("ONS transaction journal [{}] segment {} corrupted at {},skip the rest.", name, segment, position);
+                break;
+            }
+            ByteBuffer record = ByteBuffer.wrap(data);
+            long timestamp = record.getLong();
+            int state = record.get();
+            if (state >= 0 && state < OnsTransactionState.values().length) {
+                String msgId = new String(data, FIXED_BYTES, length - FIXED_BYTES, StandardCharsets.UTF_8);
+                index.put(msgId, new Entry(OnsTransactionState.values()[state], segment, timestamp));
+                segments.put(segment, Math.max(segments.get(segment), timestamp));
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, properties.getSegmentBytes());
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, 0, data.length);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * 索引中的一条记录
+     */
+    private static class Entry {
+        private final OnsTransactionState state;
+        private final long segment;
+        private final long timestamp;
+
+        Entry(OnsTransactionState state, long segment, long timestamp) {
+            this.state = state;
+            this.segment = segment;
+            this.timestamp = timestamp;
+        }
+    }
+}
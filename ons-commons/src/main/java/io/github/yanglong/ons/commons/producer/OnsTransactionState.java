@@ -0,0 +1,19 @@
+package io.github.yanglong.ons.commons.producer;
+
+/**
+ * Description: 本地事务结果，TCP和HTTP事务消息共用
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public enum OnsTransactionState {
+    /**
+     * 本地事务已提交
+     */
+    COMMIT,
+    /**
+     * 本地事务已回滚
+     */
+    ROLLBACK
+}
@@ -0,0 +1,27 @@
+package io.github.yanglong.ons.commons.properties;
+
+/**
+ * Description: 消息审计日志级别
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public enum AuditLevel {
+    /**
+     * 不记录
+     */
+    OFF,
+    /**
+     * 只记录topic、tag、key、msgId和消息体长度，不记录消息体
+     */
+    METADATA,
+    /**
+     * 记录元数据，按采样率记录截断后的消息体
+     */
+    SAMPLED,
+    /**
+     * 记录元数据和截断后的消息体
+     */
+    FULL
+}
@@ -0,0 +1,23 @@
+package io.github.yanglong.ons.commons.properties;
+
+/**
+ * Description: 异步发送达到处理中上限时的处理策略
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public enum BackpressurePolicy {
+    /**
+     * 阻塞等待，超过等待时间仍没有空位时发送失败
+     */
+    BLOCK,
+    /**
+     * 立即失败
+     */
+    FAIL,
+    /**
+     * 在调用线程中同步发送，发送完成后再返回
+     */
+    CALLER_RUNS
+}
@@ -0,0 +1,23 @@
+package io.github.yanglong.ons.commons.properties;
+
+/**
+ * Description: 消息体压缩算法
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public enum CompressionType {
+    /**
+     * 不压缩
+     */
+    NONE,
+    /**
+     * gzip格式，其他语言的客户端也容易解压
+     */
+    GZIP,
+    /**
+     * zlib格式，比gzip少10字节头和8字节尾
+     */
+    DEFLATE
+}
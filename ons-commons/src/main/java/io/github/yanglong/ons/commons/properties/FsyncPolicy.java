@@ -0,0 +1,23 @@
+package io.github.yanglong.ons.commons.properties;
+
+/**
+ * Description: 本地发送暂存文件的刷盘策略
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public enum FsyncPolicy {
+    /**
+     * 每次写入后刷盘，最可靠，写入最慢
+     */
+    ALWAYS,
+    /**
+     * 按固定间隔刷盘，进程崩溃不丢数据，机器掉电可能丢失最近一个间隔内的数据
+     */
+    INTERVAL,
+    /**
+     * 不主动刷盘，由操作系统决定
+     */
+    NONE
+}
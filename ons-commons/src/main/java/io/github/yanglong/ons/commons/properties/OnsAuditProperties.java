@@ -0,0 +1,43 @@
+package io.github.yanglong.ons.commons.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Description: 消息审计日志配置，发送、事务回查和消费失败的消息通过独立的日志记录器异步输出
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "ali-ons.audit")
+public class OnsAuditProperties {
+    /**
+     * 日志级别，默认只记录元数据
+     */
+    private AuditLevel level = AuditLevel.METADATA;
+    /**
+     * 消息体最多记录的字符数（byte[]消息体为字节数），小于等于0时不截断，默认256
+     */
+    private int maxBodyLength = 256;
+    /**
+     * SAMPLED级别下记录消息体的比例，0-1，默认0.01
+     */
+    private double sampleRate = 0.01;
+    /**
+     * 按topic设置的采样比例，未配置的topic使用sampleRate
+     */
+    private Map<String, Double> topicSampleRates = new HashMap<>();
+    /**
+     * 待输出队列长度，队列满时丢弃，默认8192
+     */
+    private int queueCapacity = 8192;
+    /**
+     * 日志记录器名称，可以在日志配置中单独设置级别和输出位置
+     */
+    private String loggerName = "io.github.yanglong.ons.audit";
+}
@@ -0,0 +1,34 @@
+package io.github.yanglong.ons.commons.properties;
+
+import lombok.Data;
+
+/**
+ * Description: 本地事务结果日志配置，事务消息的本地事务结果写入本地日志，事务回查时优先从日志中获取结果
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+public class OnsJournalProperties {
+    /**
+     * 是否启用，默认不启用
+     */
+    private boolean enable = false;
+    /**
+     * 日志文件目录，默认为系统临时目录下的ons-journal
+     */
+    private String dir;
+    /**
+     * 单个段文件大小，单位字节，默认8MB
+     */
+    private int segmentBytes = 8 * 1024 * 1024;
+    /**
+     * 最大占用磁盘空间，单位字节，默认64MB，超过时删除最早的段文件
+     */
+    private long maxDiskBytes = 64L * 1024 * 1024;
+    /**
+     * 结果保留时间，超过后不再用于回答回查，单位毫秒，默认24小时
+     */
+    private long retentionMillis = 24L * 60 * 60 * 1000;
+}
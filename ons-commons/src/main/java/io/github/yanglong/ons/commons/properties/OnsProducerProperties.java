@@ -2,6 +2,7 @@ package io.github.yanglong.ons.commons.properties;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 /**
  * Description: ons生产者配置属性
@@ -12,6 +13,7 @@ import lombok.EqualsAndHashCode;
  */
 @Data
 @EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
 public class OnsProducerProperties extends OnsCommonProperties {
     /**
      * 发送超时时间，单位毫秒
@@ -21,4 +23,32 @@ public class OnsProducerProperties extends OnsCommonProperties {
      * group-id，事务和顺序消息需要使用，且不同类型的消息，group不能混用
      */
     private String group;
+    /**
+     * 异步发送处理中的最大消息数，默认0，即不限制
+     */
+    private int asyncMaxInFlight = 0;
+    /**
+     * 异步发送处理中的最大消息体字节数，默认0，即不限制
+     */
+    private long asyncMaxInFlightBytes = 0;
+    /**
+     * 异步发送达到上限时的处理策略，默认BLOCK
+     */
+    private BackpressurePolicy asyncBackpressure = BackpressurePolicy.BLOCK;
+    /**
+     * BLOCK策略下最长等待时间，单位毫秒，默认3000
+     */
+    private long asyncBlockMillis = 3000;
+    /**
+     * 消息体压缩算法，默认NONE，即不压缩
+     */
+    private CompressionType compression = CompressionType.NONE;
+    /**
+     * 消息体超过该字节数时才压缩，默认4096
+     */
+    private int compressThreshold = 4096;
+    /**
+     * 压缩级别，0-9，默认-1，即算法默认级别
+     */
+    private int compressLevel = -1;
 }
@@ -0,0 +1,46 @@
+package io.github.yanglong.ons.commons.properties;
+
+import lombok.Data;
+
+/**
+ * Description: 本地发送暂存配置，同步发送失败或生产者未就绪时消息写入本地磁盘，生产者恢复后由后台线程重新发送
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+public class OnsSpoolProperties {
+    /**
+     * 是否启用，默认不启用
+     */
+    private boolean enable = false;
+    /**
+     * 暂存文件目录，默认为系统临时目录下的ons-spool
+     */
+    private String dir;
+    /**
+     * 单个段文件大小，单位字节，默认64MB
+     */
+    private int segmentBytes = 64 * 1024 * 1024;
+    /**
+     * 最大占用磁盘空间，单位字节，默认1GB，达到上限后新的失败消息不再暂存
+     */
+    private long maxDiskBytes = 1024L * 1024 * 1024;
+    /**
+     * 刷盘策略，默认INTERVAL
+     */
+    private FsyncPolicy fsync = FsyncPolicy.INTERVAL;
+    /**
+     * INTERVAL策略的刷盘间隔，单位毫秒，默认1000
+     */
+    private long fsyncIntervalMillis = 1000;
+    /**
+     * 重新发送的检查间隔，单位毫秒，默认1000
+     */
+    private long replayIntervalMillis = 1000;
+    /**
+     * 每秒最多重新发送的消息数，默认100
+     */
+    private int replayPerSecond = 100;
+}
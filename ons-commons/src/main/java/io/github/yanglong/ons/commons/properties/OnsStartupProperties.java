@@ -0,0 +1,22 @@
+package io.github.yanglong.ons.commons.properties;
+
+import lombok.Data;
+
+/**
+ * Description: 客户端启动配置，同一工厂的多个配置并行创建和启动
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+public class OnsStartupProperties {
+    /**
+     * 同时启动的配置数，默认8，小于等于1时按配置顺序逐个启动
+     */
+    private int parallelism = 8;
+    /**
+     * 所有配置启动的总超时时间，单位毫秒，默认60000。超时后不再等待，未完成的配置继续在后台启动，完成后可用
+     */
+    private long timeoutMillis = 60000;
+}
@@ -0,0 +1,19 @@
+package io.github.yanglong.ons.commons.properties;
+
+/**
+ * Description: 生产者池选择实例的策略
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public enum PoolStrategy {
+    /**
+     * 轮询
+     */
+    ROUND_ROBIN,
+    /**
+     * 选择处理中消息数最少的实例
+     */
+    LEAST_IN_FLIGHT
+}
@@ -0,0 +1,19 @@
+package io.github.yanglong.ons.commons.properties;
+
+/**
+ * Description: 按生产者名称发送普通消息时的默认发送方式
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public enum SendMode {
+    /**
+     * 同步发送，等待Broker确认
+     */
+    SYNC,
+    /**
+     * 单向发送，不等待Broker确认，适用于日志、监控等允许少量丢失的消息
+     */
+    ONEWAY
+}
@@ -0,0 +1,44 @@
+package io.github.yanglong.ons.commons.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Description: 消息体字节工具类
+ *
+ * 两种SDK的消息体都只接受byte[]，ByteBuffer正好包装了整个数组时直接使用该数组，不再复制。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class OnsBytes {
+
+    /**
+     * 获取ByteBuffer中position到limit之间的字节，不改变ByteBuffer的position。
+     * 堆内ByteBuffer正好包装整个数组时直接返回该数组，此时在发送完成前不能修改或归还ByteBuffer。
+     *
+     * @param buffer ByteBuffer
+     * @return 字节数组，buffer为空时返回NULL
+     */
+    public static byte[] toBytes(final ByteBuffer buffer) {
+        if (null == buffer) {
+            return null;
+        }
+        if (buffer.hasArray() && 0 == buffer.arrayOffset() && 0 == buffer.position() && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 以只读ByteBuffer包装消息体，不复制
+     *
+     * @param body 消息体
+     * @return 只读ByteBuffer，body为空时返回NULL
+     */
+    public static ByteBuffer wrap(final byte[] body) {
+        return null == body ? null : ByteBuffer.wrap(body).asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,244 @@
+package io.github.yanglong.ons.commons.utils;
+
+import io.github.yanglong.ons.commons.properties.CompressionType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Description: 消息体压缩工具类
+ *
+ * 压缩后的消息通过用户属性{@link #PROPERTY}标记压缩算法，消费端按标记解压。HTTP接入点的消息体以文本传输，
+ * 压缩结果需要再进行Base64编码，此时标记值带有{@link #BASE64_SUFFIX}后缀，TCP和HTTP消费者都可以解压对方发送的消息。
+ * Deflater、Inflater和输出缓冲区按线程复用，不为每条消息重新创建。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class OnsCompression {
+    /**
+     * 标记压缩算法的用户属性
+     */
+    public static final String PROPERTY = "ONS_COMPRESSION";
+    /**
+     * 压缩结果经过Base64编码时标记值的后缀
+     */
+    public static final String BASE64_SUFFIX = "/BASE64";
+    /**
+     * 线程复用的输出缓冲区超过该大小时不再保留，避免偶发的大消息长期占用内存
+     */
+    private static final int MAX_RETAINED_BYTES = 4 * 1024 * 1024;
+    /**
+     * deflate的最大压缩比
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+    private static final int GZIP_HEADER_BYTES = 10;
+    private static final int GZIP_TRAILER_BYTES = 8;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final ThreadLocal<Deflater> GZIP_DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final ThreadLocal<Deflater> ZLIB_DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, false));
+    private static final ThreadLocal<Inflater> GZIP_INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+    private static final ThreadLocal<Inflater> ZLIB_INFLATER = ThreadLocal.withInitial(() -> new Inflater(false));
+    private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[32 * 1024]);
+    private static final ThreadLocal<ReusableOutput> OUTPUT = ThreadLocal.withInitial(ReusableOutput::new);
+
+    /**
+     * 压缩消息体
+     *
+     * @param type  压缩算法，不能为NONE
+     * @param level 压缩级别，-1为算法默认级别
+     * @param body  消息体
+     * @return 压缩结果
+     */
+    public static byte[] compress(final CompressionType type, final int level, final byte[] body) {
+        boolean gzip = CompressionType.GZIP.equals(type);
+        Deflater deflater = gzip ? GZIP_DEFLATER.get() : ZLIB_DEFLATER.get();
+        ReusableOutput output = OUTPUT.get();
+        byte[] chunk = CHUNK.get();
+        try {
+            deflater.reset();
+            deflater.setLevel(level);
+            deflater.setInput(body);
+            deflater.finish();
+            if (gzip) {
+                output.write(GZIP_HEADER, 0, GZIP_HEADER_BYTES);
+            }
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                output.write(chunk, 0, length);
+            }
+            if (gzip) {
+                CRC32 crc32 = new CRC32();
+                crc32.update(body, 0, body.length);
+                writeIntLe(output, (int) crc32.getValue());
+                writeIntLe(output, body.length);
+            }
+            return output.toByteArray();
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * 压缩消息体并进行Base64编码，用于HTTP接入点
+     *
+     * @param type  压缩算法，不能为NONE
+     * @param level 压缩级别，-1为算法默认级别
+     * @param body  消息体
+     * @return Base64编码的压缩结果
+     */
+    public static byte[] compressToBase64(final CompressionType type, final int level, final byte[] body) {
+        return Base64.getEncoder().encode(compress(type, level, body));
+    }
+
+    /**
+     * 生成标记值
+     *
+     * @param type   压缩算法
+     * @param base64 是否经过Base64编码
+     * @return 标记值
+     */
+    public static String marker(final CompressionType type, final boolean base64) {
+        return base64 ? type.name() + BASE64_SUFFIX : type.name();
+    }
+
+    /**
+     * 按标记值解压消息体
+     *
+     * @param marker 标记值
+     * @param body   消息体
+     * @return 解压结果
+     * @throws IllegalArgumentException 未知的压缩算法
+     * @throws UncheckedIOException     消息体不是对应算法的压缩结果
+     */
+    public static byte[] decompress(final String marker, final byte[] body) {
+        String typeName = marker;
+        byte[] data = body;
+        if (marker.endsWith(BASE64_SUFFIX)) {
+            typeName = marker.substring(0, marker.length() - BASE64_SUFFIX.length());
+            data = Base64.getDecoder().decode(body);
+        }
+        CompressionType type = CompressionType.valueOf(typeName);
+        try {
+            switch (type) {
+                case GZIP:
+                    return gunzip(data);
+                case DEFLATE:
+                    return inflate(ZLIB_INFLATER.get(), data, 0, data.length);
+                default:
+                    return data;
+            }
+        } catch (DataFormatException | IOException e) {
+            throw new UncheckedIOException(new IOException("can't decompress " + marker + " message body", e));
+        }
+    }
+
+    /**
+     * 解压gzip，本组件生成的gzip没有可选头字段，且尾部记录了原始长度，直接解压到目标数组；其他来源的gzip使用GZIPInputStream解压
+     *
+     * @param data gzip数据
+     * @return 解压结果
+     */
+    private static byte[] gunzip(final byte[] data) throws DataFormatException, IOException {
+        if (data.length < GZIP_HEADER_BYTES + GZIP_TRAILER_BYTES || data[0] != GZIP_HEADER[0] || data[1] != GZIP_HEADER[1]) {
+            throw new IOException("not in gzip format");
+        }
+        int size = readIntLe(data, data.length - 4);
+        //有可选头字段，或原始长度超过deflate的最大压缩比时不信任尾部记录的长度
+        if (0 != data[3] || size < 0 || size > (long) data.length * MAX_DEFLATE_RATIO) {
+            return gunzipStream(data);
+        }
+        int crc = readIntLe(data, data.length - GZIP_TRAILER_BYTES);
+        Inflater inflater = GZIP_INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data, GZIP_HEADER_BYTES, data.length - GZIP_HEADER_BYTES);
+        byte[] result = new byte[size];
+        int offset = 0;
+        while (offset < size && !inflater.finished()) {
+            int length = inflater.inflate(result, offset, size - offset);
+            if (0 == length && (inflater.needsInput() || inflater.needsDictionary())) {
+                break;
+            }
+            offset += length;
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(result, 0, offset);
+        if (offset != size || crc != (int) crc32.getValue()) {
+            throw new IOException("corrupt gzip data");
+        }
+        return result;
+    }
+
+    private static byte[] gunzipStream(final byte[] data) throws IOException {
+        ReusableOutput output = OUTPUT.get();
+        byte[] chunk = CHUNK.get();
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            int length;
+            while ((length = input.read(chunk)) > 0) {
+                output.write(chunk, 0, length);
+            }
+            return output.toByteArray();
+        } finally {
+            output.release();
+        }
+    }
+
+    private static byte[] inflate(final Inflater inflater, final byte[] data, final int offset, final int length) throws DataFormatException, IOException {
+        ReusableOutput output = OUTPUT.get();
+        byte[] chunk = CHUNK.get();
+        try {
+            inflater.reset();
+            inflater.setInput(data, offset, length);
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(chunk);
+                if (0 == inflated && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("truncated deflate data");
+                }
+                output.write(chunk, 0, inflated);
+            }
+            return output.toByteArray();
+        } finally {
+            output.release();
+        }
+    }
+
+    private static void writeIntLe(final ByteArrayOutputStream output, final int value) {
+        output.write(value);
+        output.write(value >>> 8);
+        output.write(value >>> 16);
+        output.write(value >>> 24);
+    }
+
+    private static int readIntLe(final byte[] data, final int offset) {
+        return (data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8 | (data[offset + 2] & 0xff) << 16 | (data[offset + 3] & 0xff) << 24;
+    }
+
+    /**
+     * 按线程复用的输出缓冲区
+     */
+    private static class ReusableOutput extends ByteArrayOutputStream {
+        ReusableOutput() {
+            super(8 * 1024);
+        }
+
+        /**
+         * 使用完成后清空，过大时释放
+         */
+        void release() {
+            reset();
+            if (buf.length > MAX_RETAINED_BYTES) {
+                buf = new byte[8 * 1024];
+            }
+        }
+    }
+}
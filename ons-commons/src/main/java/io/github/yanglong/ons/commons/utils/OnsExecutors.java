@@ -0,0 +1,75 @@
+package io.github.yanglong.ons.commons.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: 组件内部线程池工具类
+ *
+ * 组件的常驻循环线程（拉取，事务回查等）使用独立的线程池执行，不与业务共用线程池，避免互相挤占。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class OnsExecutors {
+
+    /**
+     * 创建固定大小、不排队的线程池，线程数用完后再提交任务将直接拒绝，而不是排队等待永远不会执行
+     *
+     * @param threadNamePrefix 线程名前缀
+     * @param size             线程数
+     * @return ThreadPoolExecutor
+     */
+    public static ThreadPoolExecutor newBoundedPool(final String threadNamePrefix, final int size) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory,
+                (r, executor) -> {
+                    throw new RejectedExecutionException("thread pool [" + threadNamePrefix + "] is exhausted,max pool size is " + executor.getMaximumPoolSize() + ",please enlarge it.");
+                });
+    }
+
+    /**
+     * 创建固定大小、无界排队的线程池，用于提交方自行控制提交数量的场景
+     *
+     * @param threadNamePrefix 线程名前缀
+     * @param size             线程数
+     * @return ThreadPoolExecutor
+     */
+    public static ThreadPoolExecutor newFixedPool(final String threadNamePrefix, final int size) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的线程池，仅JDK21及以上版本支持。
+     * 组件以JDK8为编译基线，因此通过反射调用JDK21的API，低版本运行时返回NULL，由调用方回退到平台线程。
+     *
+     * @param threadNamePrefix 线程名前缀
+     * @return ExecutorService，不支持虚拟线程时返回NULL
+     */
+    public static ExecutorService newVirtualThreadExecutor(final String threadNamePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("virtual thread is not supported by current java runtime {}.", System.getProperty("java.version"));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.yanglong.ons.commons.utils;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Description: CompletableFuture工具类
+ *
+ * 组件以JDK8为编译基线，没有orTimeout，超时由一个共享的定时线程完成。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class OnsFutures {
+
+    /**
+     * 为future设置超时，超时后以TimeoutException完成，不会取消实际的发送
+     *
+     * @param future        future
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @param <T>           结果类型
+     * @return 传入的future
+     */
+    public static <T> CompletableFuture<T> withTimeout(final CompletableFuture<T> future, final long timeoutMillis) {
+        if (timeoutMillis <= 0 || future.isDone()) {
+            return future;
+        }
+        ScheduledFuture<?> timeout = TimeoutHolder.SCHEDULER.schedule(
+                () -> future.completeExceptionally(new TimeoutException("not completed in " + timeoutMillis + "ms")),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, e) -> timeout.cancel(false));
+        return future;
+    }
+
+    /**
+     * 生成以异常完成的future
+     *
+     * @param e   异常
+     * @param <T> 结果类型
+     * @return CompletableFuture
+     */
+    public static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * 超时定时线程，首次使用时创建
+     */
+    private static class TimeoutHolder {
+        private static final ScheduledThreadPoolExecutor SCHEDULER;
+
+        static {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ons-future-timeout-");
+            threadFactory.setDaemon(true);
+            SCHEDULER = new ScheduledThreadPoolExecutor(1, threadFactory);
+            //按时完成的future会取消超时任务，及时移出队列
+            SCHEDULER.setRemoveOnCancelPolicy(true);
+        }
+    }
+}
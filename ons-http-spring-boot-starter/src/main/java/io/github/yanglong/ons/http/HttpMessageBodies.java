@@ -0,0 +1,83 @@
+package io.github.yanglong.ons.http;
+
+import com.aliyun.mq.http.model.BaseMessage;
+import io.github.yanglong.ons.commons.producer.OnsBodyCompressor;
+import io.github.yanglong.ons.commons.properties.CompressionType;
+import io.github.yanglong.ons.commons.utils.OnsCompression;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Description: HTTP消息体压缩和解压
+ *
+ * HTTP接入点以文本传输消息体，SDK按UTF-8把消息体转为字符串写入XML，非UTF-8文本的字节会被破坏。
+ * 压缩结果和byte[]发送的二进制消息体经过Base64编码后发送，并通过{@link OnsCompression#PROPERTY}标记，消费端在listener之前还原原始字节。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class HttpMessageBodies {
+
+    /**
+     * 按生产者的压缩配置压缩消息体，并通过消息属性标记压缩算法
+     *
+     * @param message    待发送的消息
+     * @param compressor 压缩配置，为空时不压缩
+     */
+    public static void compress(BaseMessage message, OnsBodyCompressor compressor) {
+        if (null == compressor) {
+            return;
+        }
+        byte[] compressed = compressor.compress(message.getMessageBodyBytes(), true);
+        if (null != compressed) {
+            message.setMessageBody(compressed);
+            mark(message, compressor.marker(true));
+        }
+    }
+
+    /**
+     * 设置二进制消息体，按生产者的压缩配置压缩，不压缩时Base64编码，都通过消息属性标记，消费端解压时还原原始字节
+     *
+     * @param message    待发送的消息
+     * @param body       二进制消息体，编码时复制，发送前可以修改
+     * @param compressor 压缩配置，为空时不压缩
+     */
+    public static void encode(BaseMessage message, byte[] body, OnsBodyCompressor compressor) {
+        byte[] compressed = null == compressor ? null : compressor.compress(body, true);
+        if (null != compressed) {
+            message.setMessageBody(compressed);
+            mark(message, compressor.marker(true));
+        } else {
+            message.setMessageBody(Base64.getEncoder().encode(body));
+            mark(message, OnsCompression.marker(CompressionType.NONE, true));
+        }
+    }
+
+    private static void mark(BaseMessage message, String marker) {
+        Map<String, String> properties = message.getProperties();
+        if (null == properties) {
+            properties = new HashMap<>(4);
+            message.setProperties(properties);
+        }
+        properties.put(OnsCompression.PROPERTY, marker);
+    }
+
+    /**
+     * 解压或Base64解码带有标记的消息体，还原后移除标记，重复调用不会再次还原
+     *
+     * @param message 接收到的消息
+     * @return 传入的消息
+     */
+    public static <T extends BaseMessage> T decompress(T message) {
+        Map<String, String> properties = message.getProperties();
+        String marker = null == properties ? null : properties.get(OnsCompression.PROPERTY);
+        if (null != marker) {
+            message.setMessageBody(OnsCompression.decompress(marker, message.getMessageBodyBytes()));
+            properties.remove(OnsCompression.PROPERTY);
+        }
+        return message;
+    }
+}
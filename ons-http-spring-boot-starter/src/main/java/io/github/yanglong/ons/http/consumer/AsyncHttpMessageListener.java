@@ -0,0 +1,38 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.model.Message;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Description: HTTP模式消费者异步消息消费接口
+ *
+ * 适用于非阻塞IO的业务处理，消费线程调用后立即返回，future完成时确认消息，少量线程即可同时处理大量消息。
+ * 同时处理中的消息数受asyncMaxInFlight限制，达到上限时消费线程等待。顺序消息仍然同步等待future完成，保证顺序。
+ * 消费消息注意幂等，因为如果不在消费时限内完成，会导致重复消费。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public interface AsyncHttpMessageListener extends HttpMessageListener {
+    /**
+     * 异步消费消息，future结果为true时向MQ确认消费成功，结果为false或异常完成时等待重新投递
+     *
+     * @param message 接收到的消息对象
+     * @return 消费结果
+     */
+    CompletableFuture<Boolean> consumeMessageAsync(Message message);
+
+    /**
+     * 同步消费消息，等待异步消费完成，用于顺序消息
+     *
+     * @param message 接收到的消息对象
+     * @return true-消费成功，false-失败
+     */
+    @Override
+    default boolean consumeMessage(Message message) {
+        CompletableFuture<Boolean> future = consumeMessageAsync(message);
+        return null != future && Boolean.TRUE.equals(future.join());
+    }
+}
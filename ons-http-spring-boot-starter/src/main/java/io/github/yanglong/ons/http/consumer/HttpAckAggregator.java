@@ -0,0 +1,156 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.MQConsumer;
+import com.aliyun.mq.http.common.AckMessageException;
+import com.aliyun.mq.http.model.ErrorMessageResult;
+import com.aliyun.mq.http.model.Message;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: HTTP消息批量确认聚合器
+ *
+ * 同一个MQConsumer的所有消费线程共用一个聚合器，消费成功的消息句柄先放入聚合器，
+ * 当句柄数量达到batchSize，或距离上次确认超过flushMillis，或某个句柄即将到达不可见截止时间时，使用一次ackMessage批量确认。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class HttpAckAggregator {
+    /**
+     * HTTP接口单次确认句柄数上限
+     */
+    public static final int MAX_BATCH_SIZE = 16;
+    /**
+     * handler的名称
+     */
+    private final String name;
+    /**
+     * 消费者实例
+     */
+    private final MQConsumer mqConsumer;
+    /**
+     * 单次确认的最大句柄数
+     */
+    private final int batchSize;
+    /**
+     * 句柄最长等待确认时间，单位毫秒
+     */
+    private final long flushMillis;
+    /**
+     * 待确认句柄
+     */
+    private List<String> pending;
+    /**
+     * 待确认句柄中最早的不可见截止时间
+     */
+    private long earliestDeadline = Long.MAX_VALUE;
+    /**
+     * 定时确认任务
+     */
+    private ScheduledFuture<?> flushTask;
+
+    public HttpAckAggregator(String name, MQConsumer mqConsumer, int batchSize, long flushMillis) {
+        this.name = name;
+        this.mqConsumer = mqConsumer;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.flushMillis = Math.max(1, flushMillis);
+        this.pending = new ArrayList<>(this.batchSize);
+    }
+
+    /**
+     * 使用定时线程池启动定时确认
+     *
+     * @param scheduler 定时线程池
+     */
+    public void start(ScheduledExecutorService scheduler) {
+        flushTask = scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时确认，并确认剩余句柄
+     */
+    public void shutdown() {
+        if (null != flushTask) {
+            flushTask.cancel(false);
+        }
+        flush();
+    }
+
+    /**
+     * 将消费成功的消息放入聚合器，满足条件时立即确认
+     *
+     * @param message 消费成功的消息
+     */
+    public void ack(Message message) {
+        List<String> ready = null;
+        synchronized (this) {
+            pending.add(message.getReceiptHandle());
+            long deadline = message.getNextConsumeTime();
+            if (deadline > 0 && deadline < earliestDeadline) {
+                earliestDeadline = deadline;
+            }
+            //数量达到上限或最早的句柄在下个确认周期前就会过期，立即确认
+            if (pending.size() >= batchSize || earliestDeadline - System.currentTimeMillis() <= flushMillis) {
+                ready = drain();
+            }
+        }
+        if (null != ready) {
+            doAck(ready);
+        }
+    }
+
+    /**
+     * 立即确认所有待确认句柄
+     */
+    public void flush() {
+        List<String> ready;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ready = drain();
+        }
+        doAck(ready);
+    }
+
+    /**
+     * 取出待确认句柄，需在同步块内调用
+     *
+     * @return 待确认句柄
+     */
+    private List<String> drain() {
+        List<String> ready = pending;
+        pending = new ArrayList<>(batchSize);
+        earliestDeadline = Long.MAX_VALUE;
+        return ready;
+    }
+
+    /**
+     * 批量确认句柄，失败时只记录确认失败的句柄
+     *
+     * @param handles 句柄列表
+     */
+    private void doAck(List<String> handles) {
+        try {
+            mqConsumer.ackMessage(handles);
+        } catch (AckMessageException e) {
+            // 某些消息的句柄可能超时了会导致确认不成功
+            log.error("handler [{}],Ack message fail, requestId is:{}", name, e.getRequestId());
+            Map<String, ErrorMessageResult> errors = e.getErrorMessages();
+            if (errors != null) {
+                errors.forEach((errorHandle, error) -> log.error("handler [{}],Ack message fail, fail Handle:{}, ErrorCode:{}, ErrorMsg:{}", name, errorHandle, error.getErrorCode(), error.getErrorMessage()));
+            }
+        } catch (Throwable e) {
+            log.error("handler [{}],Ack {} messages fail!handles:{}", name, handles.size(), handles, e);
+        }
+    }
+}
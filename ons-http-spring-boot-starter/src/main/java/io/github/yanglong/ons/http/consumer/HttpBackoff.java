@@ -0,0 +1,66 @@
+package io.github.yanglong.ons.http.consumer;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Description: 拉取失败后的指数退避策略
+ *
+ * 第一次失败等待initialMillis，之后每次乘以multiplier，最长maxMillis，每次等待时间在±jitter比例内随机浮动，
+ * 避免多个线程同时重试。拉取成功后重置。每个拉取线程持有一个，非线程安全。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class HttpBackoff {
+    /**
+     * 首次退避时间，单位毫秒
+     */
+    private final long initialMillis;
+    /**
+     * 最长退避时间，单位毫秒
+     */
+    private final long maxMillis;
+    /**
+     * 退避倍数
+     */
+    private final double multiplier;
+    /**
+     * 随机浮动比例，取值范围[0,1]
+     */
+    private final double jitter;
+    /**
+     * 下一次退避的基准时间
+     */
+    private long current;
+
+    public HttpBackoff(long initialMillis, long maxMillis, double multiplier, double jitter) {
+        this.initialMillis = Math.max(1, initialMillis);
+        this.maxMillis = Math.max(this.initialMillis, maxMillis);
+        this.multiplier = Math.max(1, multiplier);
+        this.jitter = Math.max(0, Math.min(jitter, 1));
+        this.current = this.initialMillis;
+    }
+
+    /**
+     * 获取本次退避时间，并增长下一次的退避时间
+     *
+     * @return 退避时间，单位毫秒
+     */
+    public long nextDelay() {
+        long base = current;
+        current = (long) Math.min(current * multiplier, maxMillis);
+        if (jitter <= 0) {
+            return base;
+        }
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return Math.max(1, (long) (base * factor));
+    }
+
+    /**
+     * 成功后重置退避时间
+     */
+    public void reset() {
+        current = initialMillis;
+    }
+}
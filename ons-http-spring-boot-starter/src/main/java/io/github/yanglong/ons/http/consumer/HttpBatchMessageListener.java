@@ -0,0 +1,40 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.model.Message;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Description: HTTP模式消费者批量消息消费接口
+ *
+ * 一次拉取到的消息整批交给listener处理，例如在一个数据库事务中写入，消费成功的消息使用一次请求批量确认。
+ * 流水线模式下处理线程从预取队列中一次获取多条消息。顺序消息仍逐条调用，保证同一分区键的顺序。
+ * 消费消息注意幂等，因为如果不在消费时限内消费完，会导致重复消费。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public interface HttpBatchMessageListener extends HttpMessageListener {
+    /**
+     * 批量消费消息，返回每条消息的消费状态，与传入消息的顺序一一对应。返回true的消息将会向MQ确认消费成功，异常请在方法内捕获掉。
+     * 返回结果为空或数量与传入消息不一致时，视为全部失败。
+     *
+     * @param messages 接收到的消息列表
+     * @return 每条消息的消费状态，true-消费成功，false-失败
+     */
+    List<Boolean> consumeMessages(List<Message> messages);
+
+    /**
+     * 消费单条消息，用于顺序消息
+     *
+     * @param message 接收到的消息对象
+     * @return true-消费成功，false-失败
+     */
+    @Override
+    default boolean consumeMessage(Message message) {
+        List<Boolean> result = consumeMessages(Collections.singletonList(message));
+        return null != result && result.size() == 1 && Boolean.TRUE.equals(result.get(0));
+    }
+}
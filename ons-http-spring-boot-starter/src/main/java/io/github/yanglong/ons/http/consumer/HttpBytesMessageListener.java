@@ -0,0 +1,36 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.model.Message;
+
+/**
+ * Description: HTTP模式消费者字节消息消费接口
+ *
+ * 直接获取消息体字节，不经过String转换，与HttpSender的byte[]发送方法对应。HttpSender发送byte[]时经过Base64编码并标记，
+ * 交给listener前已还原为原始字节，因此适用于protobuf等二进制消息；其他客户端发送的未标记消息，消息体是UTF-8文本的字节。
+ * 消费消息注意幂等，因为如果不在消费时限内消费完此条消息，会导致重复消费。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public interface HttpBytesMessageListener extends HttpMessageListener {
+    /**
+     * 消费消息，并返回消费状态。如果返回true，将会向MQ确认消费成功，异常请在方法内捕获掉。
+     *
+     * @param message 接收到的消息对象，用于获取key、tag、属性等
+     * @param body    消息体，即还原后的message.getMessageBodyBytes()，未复制，请勿修改
+     * @return true-消费成功，false-失败
+     */
+    boolean consumeBytes(Message message, byte[] body);
+
+    /**
+     * 消费消息，转为字节消费
+     *
+     * @param message 接收到的消息对象
+     * @return true-消费成功，false-失败
+     */
+    @Override
+    default boolean consumeMessage(Message message) {
+        return consumeBytes(message, message.getMessageBodyBytes());
+    }
+}
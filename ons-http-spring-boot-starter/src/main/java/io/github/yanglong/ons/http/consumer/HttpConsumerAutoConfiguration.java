@@ -1,5 +1,6 @@
 package io.github.yanglong.ons.http.consumer;
 
+import io.github.yanglong.ons.commons.codec.OnsMessageCodecs;
 import io.github.yanglong.ons.commons.properties.OnsBaseConfig;
 import io.github.yanglong.ons.commons.utils.OnsContextAware;
 import io.github.yanglong.ons.http.OnsHttpClientCache;
@@ -11,7 +12,6 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.TaskExecutor;
 
 /**
  * Description: ONS HTTP自动配置消费者
@@ -24,7 +24,7 @@ import org.springframework.core.task.TaskExecutor;
 @Data
 @Configuration
 @ConditionalOnProperty(prefix = "ali-ons", name = {"enable", "http.consumer.enable"}, havingValue = "true")
-@ConditionalOnBean(name = {"taskExecutor", "onsContextAware"})
+@ConditionalOnBean(name = {"onsContextAware"})
 @EnableConfigurationProperties({HttpConsumerConfig.class, OnsBaseConfig.class})
 public class HttpConsumerAutoConfiguration {
     @Autowired
@@ -33,8 +33,6 @@ public class HttpConsumerAutoConfiguration {
     private HttpConsumerConfig httpConsumerConfig;
     @Autowired
     private OnsContextAware onsContextAware;
-    @Autowired
-    private TaskExecutor taskExecutor;
 
     /**
      * 生成ONS HTTP消费者工厂
@@ -42,9 +40,14 @@ public class HttpConsumerAutoConfiguration {
      * @return HttpConsumerFactory
      */
     @Bean(initMethod = "init", destroyMethod = "shutdown")
-    public HttpConsumerFactory onsHttpConsumerFactory() {
+    public HttpConsumerFactory onsHttpConsumerFactory(OnsMessageCodecs codecs) {
         log.debug("config HttpConsumerFactory.");
-        HttpConsumerFactory consumerFactory = new HttpConsumerFactory(OnsHttpClientCache.getCache(), onsBaseConfig.getDefaultAccess(), httpConsumerConfig.getConsumers(), onsContextAware, taskExecutor);
+        HttpPullScheduler pullScheduler = null;
+        if (httpConsumerConfig.getSharedPullThreadNums() > 0) {
+            pullScheduler = new HttpPullScheduler(httpConsumerConfig.getSharedPullThreadNums(), httpConsumerConfig.getSharedPullWaitSeconds(),
+                    httpConsumerConfig.getSharedPullMinIdleMillis(), httpConsumerConfig.getSharedPullMaxIdleMillis());
+        }
+        HttpConsumerFactory consumerFactory = new HttpConsumerFactory(OnsHttpClientCache.getCache(), onsBaseConfig.getDefaultAccess(), httpConsumerConfig.getConsumers(), onsContextAware, pullScheduler, codecs);
         log.debug("config HttpConsumerFactory finished.");
         return consumerFactory;
     }
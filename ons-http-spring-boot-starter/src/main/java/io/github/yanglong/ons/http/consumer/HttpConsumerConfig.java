@@ -25,4 +25,20 @@ public class HttpConsumerConfig {
      */
     @NestedConfigurationProperty
     private Map<String, HttpConsumerProperties> consumers;
+    /**
+     * 共享拉取线程数，大于0时开启sharedPull的消费者的订阅关系由这些线程轮流拉取，默认0，即不启用
+     */
+    private int sharedPullThreadNums = 0;
+    /**
+     * 共享拉取的长轮询时间，单位秒，默认1。共享线程同一时刻只服务一个订阅关系，不宜过长
+     */
+    private int sharedPullWaitSeconds = 1;
+    /**
+     * 共享拉取时订阅关系拉空后的最短等待时间，单位毫秒，默认100，连续拉空时翻倍
+     */
+    private long sharedPullMinIdleMillis = 100;
+    /**
+     * 共享拉取时订阅关系连续拉空后的最长等待时间，单位毫秒，默认10000
+     */
+    private long sharedPullMaxIdleMillis = 10000;
 }
@@ -2,31 +2,53 @@ package io.github.yanglong.ons.http.consumer;
 
 import com.aliyun.mq.http.MQClient;
 import com.aliyun.mq.http.MQConsumer;
+import com.aliyun.mq.http.model.Message;
+import io.github.yanglong.ons.commons.codec.OnsCodecException;
+import io.github.yanglong.ons.commons.codec.OnsMessageCodecs;
 import io.github.yanglong.ons.commons.listener.OnsMessageListener;
+import io.github.yanglong.ons.commons.metrics.OnsPoolStats;
 import io.github.yanglong.ons.commons.properties.MessageType;
 import io.github.yanglong.ons.commons.properties.OnsAccessProperties;
 import io.github.yanglong.ons.commons.properties.OnsSubscriptionProperties;
 import io.github.yanglong.ons.commons.utils.OnsContextAware;
+import io.github.yanglong.ons.commons.utils.OnsExecutors;
 import io.github.yanglong.ons.commons.utils.OnsStringUtils;
 import io.github.yanglong.ons.http.AbstractHttpClientFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.CollectionUtils;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Description: ONS HTTP消费者工厂实现
  *
  * ons消费者，订阅topic，使用listener进行处理，注意同时订阅多个topic时需要在listener中分开处理
  * 完成配置生成客户端与从配置文件生成消费者并配置，未完成消费者刷新配置，重新生成。
+ * 每个消费者配置使用独立的线程池运行拉取和处理线程，线程池大小不足以容纳所需线程数时启动失败。
+ * 拉取失败时按指数退避重试，不再退出；线程意外退出时由定时检查重新提交。
+ * 订阅的listener可以是HttpMessageListener，也可以是直接接收解码后消息对象的HttpTypedMessageListener。
+ * 开启sharedPull的消费者不创建拉取线程，订阅关系注册到共享拉取调度器，由少量线程轮流拉取。
  *
  * @author YangLong [410357434@163.com]
  * @version V1.0
@@ -34,14 +56,18 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Slf4j
 public class HttpConsumerFactory extends AbstractHttpClientFactory {
+    /**
+     * 共享拉取线程存活检查间隔，单位秒
+     */
+    private static final long SHARED_SUPERVISOR_INTERVAL_SECONDS = 10;
     /**
      * 容器工具类，用于获取容器中listener，构造传入
      */
     private final OnsContextAware contextAware;
     /**
-     * 线程池-用于提交消费线程，构造传入
+     * 消费者配置对应的线程池，key为消费者名称
      */
-    private final TaskExecutor taskExecutor;
+    private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>(16);
     /**
      * MQConsumer容器，用于复用
      */
@@ -50,11 +76,56 @@ public class HttpConsumerFactory extends AbstractHttpClientFactory {
      * 消费者实例对应的消息处理器，由于可以设置多个线程同时消费消息，因此存在一对多
      */
     private final Map<String, List<HttpConsumerRunnable>> handlers = new ConcurrentHashMap<>(32);
+    /**
+     * 流水线模式下消费者实例对应的消息处理线程
+     */
+    private final Map<String, List<HttpDispatchRunnable>> dispatchers = new ConcurrentHashMap<>(32);
+    /**
+     * 订阅关系对应的消息处理器，key为handler名称
+     */
+    private final Map<String, HttpMessageProcessor> processors = new ConcurrentHashMap<>(32);
+    /**
+     * 关闭时等待异步消费完成的最长时间，key为handler名称
+     */
+    private final Map<String, Long> asyncAwaitMillis = new ConcurrentHashMap<>(32);
+    /**
+     * 顺序消息的分道处理，每个拉取线程一个
+     */
+    private final List<HttpOrderlyLanes> orderlyLanes = new CopyOnWriteArrayList<>();
+    /**
+     * 订阅关系对应的消息批量确认聚合器，key为handler名称
+     */
+    private final Map<String, HttpAckAggregator> ackAggregators = new ConcurrentHashMap<>(32);
+    /**
+     * 定时线程，批量确认和线程存活检查共用
+     */
+    private ScheduledExecutorService scheduler;
+    /**
+     * 意外退出后被重新提交的线程数
+     */
+    private final AtomicLong restartCount = new AtomicLong();
+    /**
+     * 共享拉取调度器，未启用时为空
+     */
+    private final HttpPullScheduler pullScheduler;
+    /**
+     * 消息对象编解码器
+     */
+    private final OnsMessageCodecs codecs;
+
+    public HttpConsumerFactory(Map<String, MQClient> clients, OnsAccessProperties defaultAccessProperties, Map<String, HttpConsumerProperties> consumerProperties, OnsContextAware contextAware) {
+        this(clients, defaultAccessProperties, consumerProperties, contextAware, null);
+    }
+
+    public HttpConsumerFactory(Map<String, MQClient> clients, OnsAccessProperties defaultAccessProperties, Map<String, HttpConsumerProperties> consumerProperties, OnsContextAware contextAware, HttpPullScheduler pullScheduler) {
+        this(clients, defaultAccessProperties, consumerProperties, contextAware, pullScheduler, OnsMessageCodecs.withDefaults(Collections.emptyList(), null));
+    }
 
-    public HttpConsumerFactory(Map<String, MQClient> clients, OnsAccessProperties defaultAccessProperties, Map<String, HttpConsumerProperties> consumerProperties, OnsContextAware contextAware, TaskExecutor taskExecutor) {
+    public HttpConsumerFactory(Map<String, MQClient> clients, OnsAccessProperties defaultAccessProperties, Map<String, HttpConsumerProperties> consumerProperties, OnsContextAware contextAware, HttpPullScheduler pullScheduler, OnsMessageCodecs codecs) {
         super(clients, defaultAccessProperties, consumerProperties);
         this.contextAware = contextAware;
-        this.taskExecutor = taskExecutor;
+        this.pullScheduler = pullScheduler;
+        this.codecs = codecs;
     }
 
     @Override
@@ -65,6 +136,11 @@ public class HttpConsumerFactory extends AbstractHttpClientFactory {
             log.error("ons HTTP consumer property is empty,can't init HTTP consumers.");
             return;
         }
+        //先检查所有配置的线程数，有任何一个不满足都不启动消费
+        commonProperties.forEach((name, properties) -> checkThreadBudget(name, (HttpConsumerProperties) properties));
+        CustomizableThreadFactory schedulerThreadFactory = new CustomizableThreadFactory("ons-http-scheduler-");
+        schedulerThreadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreadFactory);
         //生成consumer
         commonProperties.forEach((name, properties) -> {
             HttpConsumerProperties consumerProperties = (HttpConsumerProperties) properties;
@@ -73,8 +149,6 @@ public class HttpConsumerFactory extends AbstractHttpClientFactory {
                 String host = consumerProperties.getNameServer();
                 String group = consumerProperties.getGroup();
                 String instanceId = consumerProperties.getInstanceId();
-                MessageType messageType = consumerProperties.getMsgType();
-                String threadNum = consumerProperties.getThreadNums();
                 String ak;
                 String sk;
                 if (!OnsStringUtils.checkAccess(accessProperties)) {
@@ -84,20 +158,28 @@ public class HttpConsumerFactory extends AbstractHttpClientFactory {
                     ak = accessProperties.getAccessKey();
                     sk = accessProperties.getSecretKey();
                 }
+                if (consumerProperties.isSharedPull() && null == pullScheduler) {
+                    log.warn("HTTP consumer {} enabled sharedPull,but shared-pull-thread-nums is not configured,use dedicated threads.", name);
+                }
+                //共享拉取的消费者不需要独立线程池
+                ExecutorService executor = isSharedPull(consumerProperties) ? null : executors.computeIfAbsent(name, k -> createExecutor(k, consumerProperties));
                 //由于HTTP模式不能同时消费多个Topic，所以需要对每个订阅关系分开处理
                 List<OnsSubscriptionProperties> subscriptionProperties = consumerProperties.getSubscriptions();
                 for (OnsSubscriptionProperties subscribe : subscriptionProperties) {
                     Class<OnsMessageListener> listenerClass = subscribe.getListener();
                     String topic = subscribe.getTopic();
                     String tags = subscribe.getTags();
-                    if (null != listenerClass && HttpMessageListener.class.isAssignableFrom(listenerClass)) {
+                    if (null != listenerClass && (HttpMessageListener.class.isAssignableFrom(listenerClass) || HttpTypedMessageListener.class.isAssignableFrom(listenerClass))) {
                         MQConsumer consumer = createConsumer(ak, sk, host, instanceId, topic, group, tags);
                         if (null != consumer) {
                             //设置消费线程
-                            OnsMessageListener messageListener = contextAware.getBean(listenerClass);
+                            HttpMessageListener messageListener = getListener(listenerClass);
                             if (null != messageListener) {
                                 String handlerName = getHandlerName(name, topic, group, tags);
-                                applyListener(handlerName, name, messageType, threadNum, (HttpMessageListener) messageListener, consumer, taskExecutor);
+                                HttpAckAggregator ackAggregator = new HttpAckAggregator(handlerName, consumer, consumerProperties.getAckBatchSize(), consumerProperties.getAckFlushMillis());
+                                ackAggregator.start(scheduler);
+                                ackAggregators.put(handlerName, ackAggregator);
+                                applyListener(handlerName, name, consumerProperties, messageListener, consumer, ackAggregator, executor);
                             } else {
                                 log.error("can't find HttpMessageListener for consumer {}，topic is {},group is {}!", name, topic, group);
                             }
@@ -106,10 +188,19 @@ public class HttpConsumerFactory extends AbstractHttpClientFactory {
                         log.error("can't init HTTP consumer {},HttpMessageListener can't find.", name);
                     }
                 }
+                long interval = consumerProperties.getSupervisorIntervalSeconds();
+                if (interval > 0) {
+                    scheduler.scheduleWithFixedDelay(() -> supervise(name), interval, interval, TimeUnit.SECONDS);
+                }
             } else {
                 log.error("can't get access properties for HTTP consumer {},can't init.", name);
             }
         });
+        if (null != pullScheduler && !pullScheduler.getTasks().isEmpty()) {
+            pullScheduler.start();
+            scheduler.scheduleWithFixedDelay(() -> restart(pullScheduler.getWorkers(), pullScheduler.getExecutor()),
+                    SHARED_SUPERVISOR_INTERVAL_SECONDS, SHARED_SUPERVISOR_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
     }
 
     @Override
@@ -117,9 +208,208 @@ public class HttpConsumerFactory extends AbstractHttpClientFactory {
         if (!CollectionUtils.isEmpty(handlers)) {
             handlers.values().stream().flatMap(Collection::stream).forEach(handler -> handler.setShutdown(true));
         }
+        if (!CollectionUtils.isEmpty(dispatchers)) {
+            dispatchers.values().stream().flatMap(Collection::stream).forEach(dispatcher -> dispatcher.setShutdown(true));
+        }
+        if (null != pullScheduler) {
+            pullScheduler.shutdown();
+        }
+        orderlyLanes.forEach(HttpOrderlyLanes::shutdown);
+        processors.forEach((handlerName, processor) -> processor.awaitInFlight(asyncAwaitMillis.getOrDefault(handlerName, 0L)));
+        //确认剩余的消息句柄后再关闭客户端
+        ackAggregators.values().forEach(HttpAckAggregator::shutdown);
+        if (null != scheduler) {
+            scheduler.shutdown();
+        }
+        //循环线程已经设置了关闭标识，不中断正在处理的消息
+        executors.values().forEach(ExecutorService::shutdown);
         super.shutdown();
     }
 
+    /**
+     * 获取各消费者线程池的状态快照
+     *
+     * @return key为消费者名称
+     */
+    public Map<String, OnsPoolStats> getPoolStats() {
+        Map<String, OnsPoolStats> stats = new HashMap<>(executors.size());
+        executors.forEach((name, executor) -> {
+            if (executor instanceof ThreadPoolExecutor) {
+                stats.put(name, OnsPoolStats.of(name, (ThreadPoolExecutor) executor));
+            }
+        });
+        if (null != pullScheduler && null != pullScheduler.getPoolStats()) {
+            OnsPoolStats sharedStats = pullScheduler.getPoolStats();
+            stats.put(sharedStats.getName(), sharedStats);
+        }
+        return stats;
+    }
+
+    /**
+     * 获取各订阅关系异步消费处理中的消息数
+     *
+     * @return key为handler名称
+     */
+    public Map<String, Integer> getInFlightCounts() {
+        Map<String, Integer> counts = new HashMap<>(processors.size());
+        processors.forEach((handlerName, processor) -> counts.put(handlerName, processor.getInFlightCount()));
+        return counts;
+    }
+
+    /**
+     * 获取各订阅关系的句柄截止时间跟踪器，用于观察处理前已失效跳过和处理完成时已失效的消息数
+     *
+     * @return key为handler名称
+     */
+    public Map<String, HttpDeadlineTracker> getDeadlineTrackers() {
+        Map<String, HttpDeadlineTracker> trackers = new HashMap<>(processors.size());
+        processors.forEach((handlerName, processor) -> trackers.put(handlerName, processor.getDeadlineTracker()));
+        return trackers;
+    }
+
+    /**
+     * 获取意外退出后被重新提交的线程数
+     *
+     * @return 重启次数
+     */
+    public long getRestartCount() {
+        return restartCount.get();
+    }
+
+    /**
+     * 检查消费者的拉取和处理线程，未关闭但已退出的线程重新提交到线程池
+     *
+     * @param name 消费者名称
+     */
+    private void supervise(String name) {
+        List<HttpConsumerRunnable> handlerRunnables = handlers.getOrDefault(name, new ArrayList<>());
+        List<HttpDispatchRunnable> dispatchRunnables = dispatchers.getOrDefault(name, new ArrayList<>());
+        List<HttpLoopRunnable> runnables = new ArrayList<>(handlerRunnables);
+        runnables.addAll(dispatchRunnables);
+        restart(runnables, executors.get(name));
+    }
+
+    /**
+     * 将未关闭但已退出的循环线程重新提交到线程池
+     *
+     * @param runnables 循环线程
+     * @param executor  线程池
+     */
+    private void restart(List<? extends HttpLoopRunnable> runnables, ExecutorService executor) {
+        if (null == executor || executor.isShutdown()) {
+            return;
+        }
+        runnables.stream()
+                .filter(runnable -> !runnable.isShutdown() && !runnable.isAlive())
+                .forEach(runnable -> {
+                    log.warn("HTTP consumer: handler [{}] thread exited unexpectedly,restart it.", runnable.getName());
+                    if (submit(runnable, executor)) {
+                        restartCount.incrementAndGet();
+                    }
+                });
+    }
+
+    /**
+     * 提交常驻循环线程到线程池，提交前标记为存活，被拒绝时恢复，等待下次检查
+     *
+     * @param runnable 循环线程
+     * @param executor 线程池
+     * @return 是否提交成功
+     */
+    private boolean submit(HttpLoopRunnable runnable, ExecutorService executor) {
+        runnable.setAlive(true);
+        try {
+            executor.execute(runnable);
+            return true;
+        } catch (RejectedExecutionException e) {
+            runnable.setAlive(false);
+            log.error("HTTP consumer: handler [{}] thread submit rejected!", runnable.getName(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 计算消费者配置运行所需的线程数：每个订阅关系threadNums个线程，流水线模式额外加上pullThreadNums个拉取线程
+     *
+     * @param properties 消费者配置
+     * @return 线程数
+     */
+    private int getThreadBudget(HttpConsumerProperties properties) {
+        List<OnsSubscriptionProperties> subscriptions = properties.getSubscriptions();
+        if (CollectionUtils.isEmpty(subscriptions) || isSharedPull(properties)) {
+            return 0;
+        }
+        int perSubscription = parseThreadNum(properties.getThreadNums());
+        if (properties.isPipelineEnable() && !MessageType.ORDER.equals(properties.getMsgType())) {
+            perSubscription += Math.max(1, properties.getPullThreadNums());
+        }
+        return perSubscription * subscriptions.size();
+    }
+
+    /**
+     * 消费者是否使用共享拉取线程
+     *
+     * @param properties 消费者配置
+     * @return true-开启了sharedPull且配置了共享拉取调度器
+     */
+    private boolean isSharedPull(HttpConsumerProperties properties) {
+        return properties.isSharedPull() && null != pullScheduler;
+    }
+
+    /**
+     * 检查配置的线程池大小是否能容纳所需线程数，不能则直接失败，避免线程被拒绝或永远不启动
+     *
+     * @param name       消费者名称
+     * @param properties 消费者配置
+     */
+    private void checkThreadBudget(String name, HttpConsumerProperties properties) {
+        int budget = getThreadBudget(properties);
+        int maxPoolSize = properties.getMaxPoolSize();
+        if (!properties.isVirtualThreads() && maxPoolSize > 0 && budget > maxPoolSize) {
+            throw new IllegalStateException(String.format("HTTP consumer %s needs %d threads for %d subscriptions,but maxPoolSize is %d!please enlarge maxPoolSize or reduce threadNums.",
+                    name, budget, properties.getSubscriptions().size(), maxPoolSize));
+        }
+    }
+
+    /**
+     * 为消费者配置创建独立的线程池，未配置大小时按所需线程数创建；启用虚拟线程且运行时支持时，每个线程为一个虚拟线程
+     *
+     * @param name       消费者名称
+     * @param properties 消费者配置
+     * @return 线程池
+     */
+    private ExecutorService createExecutor(String name, HttpConsumerProperties properties) {
+        if (properties.isVirtualThreads()) {
+            ExecutorService executor = OnsExecutors.newVirtualThreadExecutor("ons-http-" + name + "-");
+            if (null != executor) {
+                log.info("create virtual thread executor for HTTP consumer {}.", name);
+                return executor;
+            }
+            log.warn("HTTP consumer {} can't use virtual threads,fall back to platform threads.", name);
+        }
+        int size = properties.getMaxPoolSize() > 0 ? properties.getMaxPoolSize() : Math.max(1, getThreadBudget(properties));
+        log.info("create thread pool for HTTP consumer {},size is {}.", name, size);
+        return OnsExecutors.newBoundedPool("ons-http-" + name + "-", size);
+    }
+
+    /**
+     * 解析线程数配置，非数字时使用1
+     *
+     * @param threadNum 线程数配置
+     * @return 线程数
+     */
+    private static int parseThreadNum(String threadNum) {
+        int num = 1;
+        if (StringUtils.isNumeric(threadNum)) {
+            try {
+                num = Integer.parseInt(threadNum);
+            } catch (NumberFormatException e) {
+                log.error("parameter threadNum can't cast to number.", e);
+            }
+        }
+        return num;
+    }
+
     /**
      * 获取HTTP模式消费者实例
      *
@@ -165,36 +455,139 @@ public class HttpConsumerFactory extends AbstractHttpClientFactory {
     }
 
     /**
-     * 为consumer设置消息消费器
+     * 从容器中获取listener，消息对象listener在此解析消息对象类型并创建解码器，消费时不再反射
      *
-     * @param handlerName handler名称
-     * @param name        消费者名称
-     * @param messageType 消息类型
-     * @param threadNum   线程数
-     * @param listener    消息处理实现
-     * @param executor    线程池
+     * @param listenerClass listener实现类
+     * @return HttpMessageListener，无法获取或无法解析消息对象类型时返回NULL
      */
-    private void applyListener(@NotNull final String handlerName, @NotNull final String name, @NotNull MessageType messageType, final String threadNum, @NotNull final HttpMessageListener listener, @NotNull MQConsumer consumer, @NotNull TaskExecutor executor) {
-        int num = 1;
-        if (StringUtils.isNumeric(threadNum)) {
-            try {
-                num = Integer.parseInt(threadNum);
-            } catch (NumberFormatException e) {
-                log.error("parameter threadNum can't cast to number.", e);
-            }
+    @SuppressWarnings("unchecked")
+    private HttpMessageListener getListener(Class<OnsMessageListener> listenerClass) {
+        OnsMessageListener listener = contextAware.getBean(listenerClass);
+        if (!(listener instanceof HttpTypedMessageListener)) {
+            return (HttpMessageListener) listener;
         }
+        Type payloadType = OnsMessageCodecs.resolvePayloadType(listenerClass, HttpTypedMessageListener.class);
+        if (null == payloadType || null == codecs) {
+            log.error("can't resolve payload type of HTTP listener {}.", listenerClass.getName());
+            return null;
+        }
+        try {
+            return new HttpTypedListenerAdapter<>((HttpTypedMessageListener<Object>) listener, codecs.decoder(payloadType));
+        } catch (OnsCodecException e) {
+            log.error("can't create decoder for HTTP listener {}.", listenerClass.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 为consumer设置消息消费器
+     *
+     * @param handlerName   handler名称
+     * @param name          消费者名称
+     * @param properties    消费者配置
+     * @param listener      消息处理实现
+     * @param ackAggregator 消息批量确认聚合器
+     * @param executor      线程池，共享拉取时为空
+     */
+    private void applyListener(@NotNull final String handlerName, @NotNull final String name, @NotNull final HttpConsumerProperties properties, @NotNull final HttpMessageListener listener, @NotNull MQConsumer consumer, @NotNull HttpAckAggregator ackAggregator, ExecutorService executor) {
+        MessageType messageType = properties.getMsgType();
+        int num = parseThreadNum(properties.getThreadNums());
         List<HttpConsumerRunnable> runnables = handlers.get(name);
         if (CollectionUtils.isEmpty(runnables)) {
             runnables = new ArrayList<>();
         }
-        for (int i = 0; i < num; i++) {
-            HttpConsumerRunnable handler = new HttpConsumerRunnable(handlerName, listener, consumer, messageType);
-            executor.execute(handler);
-            runnables.add(handler);
+        //顺序消息需要同步等待消费结果，不使用异步模式
+        boolean async = listener instanceof AsyncHttpMessageListener && !MessageType.ORDER.equals(messageType);
+        HttpDeadlineTracker deadlineTracker = new HttpDeadlineTracker(handlerName, properties.getInvisibleTimeMillis(), properties.getDeadlineGuardMillis());
+        HttpMessageProcessor processor = new HttpMessageProcessor(handlerName, listener, ackAggregator, deadlineTracker, async, properties.getAsyncMaxInFlight());
+        processors.put(handlerName, processor);
+        asyncAwaitMillis.put(handlerName, properties.getAsyncAwaitMillis());
+        if (isSharedPull(properties)) {
+            //共享拉取时每个订阅关系只有一个拉取任务，同一时刻只有一个线程拉取
+            HttpOrderlyLanes lanes = null;
+            if (MessageType.ORDER.equals(messageType)) {
+                lanes = createOrderlyLanes(handlerName, properties, processor, 0);
+                orderlyLanes.add(lanes);
+            }
+            HttpPullWindow pullWindow = new HttpPullWindow(properties.getPullBatchSize(), pullScheduler.getWaitSeconds(), false);
+            pullScheduler.register(new HttpPullTask(handlerName, consumer, messageType, processor, pullWindow, createBackoff(properties), lanes,
+                    pullScheduler.getMinIdleMillis(), pullScheduler.getMaxIdleMillis(), properties.getSharedPullWeight()));
+            return;
+        }
+        boolean pipeline = properties.isPipelineEnable();
+        if (pipeline && MessageType.ORDER.equals(messageType)) {
+            log.warn("HTTP consumer {} is ORDER type,pipeline mode ignored.", name);
+            pipeline = false;
+        }
+        if (pipeline) {
+            //拉取线程和处理线程通过有界预取队列连接，队列满时拉取线程阻塞
+            BlockingQueue<Message> prefetchQueue = new ArrayBlockingQueue<>(Math.max(1, properties.getPrefetchSize()));
+            int pullNum = Math.max(1, properties.getPullThreadNums());
+            for (int i = 0; i < pullNum; i++) {
+                HttpPullWindow pullWindow = new HttpPullWindow(properties.getPullBatchSize(), properties.getPullWaitSeconds(), properties.isPullAdaptive());
+                HttpConsumerRunnable handler = new HttpConsumerRunnable(handlerName, consumer, messageType, pullWindow, createBackoff(properties), processor, prefetchQueue);
+                submit(handler, executor);
+                runnables.add(handler);
+            }
+            List<HttpDispatchRunnable> dispatchRunnables = dispatchers.computeIfAbsent(name, k -> new ArrayList<>());
+            for (int i = 0; i < num; i++) {
+                HttpDispatchRunnable dispatcher = new HttpDispatchRunnable(handlerName, prefetchQueue, processor);
+                submit(dispatcher, executor);
+                dispatchRunnables.add(dispatcher);
+            }
+        } else {
+            for (int i = 0; i < num; i++) {
+                HttpPullWindow pullWindow = new HttpPullWindow(properties.getPullBatchSize(), properties.getPullWaitSeconds(), properties.isPullAdaptive());
+                HttpConsumerRunnable handler;
+                if (MessageType.ORDER.equals(messageType)) {
+                    HttpOrderlyLanes lanes = createOrderlyLanes(handlerName, properties, processor, i);
+                    orderlyLanes.add(lanes);
+                    handler = new HttpConsumerRunnable(handlerName, consumer, messageType, pullWindow, createBackoff(properties), processor, lanes);
+                } else {
+                    handler = new HttpConsumerRunnable(handlerName, consumer, messageType, pullWindow, createBackoff(properties), processor);
+                }
+                submit(handler, executor);
+                runnables.add(handler);
+            }
         }
         handlers.put(name, runnables);
     }
 
+    /**
+     * 创建顺序消息分道处理，分道数大于1时为拉取线程创建独立的通道线程池
+     *
+     * @param handlerName handler名称
+     * @param properties  消费者配置
+     * @param processor   消息处理器
+     * @param index       拉取线程序号
+     * @return HttpOrderlyLanes
+     */
+    private HttpOrderlyLanes createOrderlyLanes(String handlerName, HttpConsumerProperties properties, HttpMessageProcessor processor, int index) {
+        int lanes = properties.getOrderLanes();
+        if (lanes <= 1) {
+            return new HttpOrderlyLanes(handlerName, processor, 1, null);
+        }
+        String prefix = "ons-http-" + handlerName + "-" + index + "-lane-";
+        ExecutorService laneExecutor = null;
+        if (properties.isVirtualThreads()) {
+            laneExecutor = OnsExecutors.newVirtualThreadExecutor(prefix);
+        }
+        if (null == laneExecutor) {
+            laneExecutor = OnsExecutors.newFixedPool(prefix, lanes);
+        }
+        return new HttpOrderlyLanes(handlerName, processor, lanes, laneExecutor);
+    }
+
+    /**
+     * 按消费者配置创建拉取失败退避策略，每个拉取线程一个
+     *
+     * @param properties 消费者配置
+     * @return HttpBackoff
+     */
+    private HttpBackoff createBackoff(HttpConsumerProperties properties) {
+        return new HttpBackoff(properties.getBackoffInitialMillis(), properties.getBackoffMaxMillis(), properties.getBackoffMultiplier(), properties.getBackoffJitter());
+    }
+
     /**
      * 使用"_"连接订阅配置的名称，topic，group，tags，生成唯一订阅关系处理的handler的名称
      *
@@ -19,4 +19,92 @@ public class HttpConsumerProperties extends OnsConsumerProperties {
      * 固定为HTTP
      */
     private final ClientType type = ClientType.HTTP;
+    /**
+     * 每次拉取的最大消息条数，取值范围[1,16]，默认3。自适应模式下为最小条数
+     */
+    private int pullBatchSize = 3;
+    /**
+     * 长轮询时间，没有消息时在服务端挂住的时间，取值范围[1,30]，单位秒，默认5。自适应模式下为最短时间
+     */
+    private int pullWaitSeconds = 5;
+    /**
+     * 是否自适应调整拉取条数和长轮询时间，拉满时条数增长到16，拉空时条数回落并延长长轮询
+     */
+    private boolean pullAdaptive = false;
+    /**
+     * 批量确认时单次确认的最大消息句柄数，达到即立即确认，取值范围[1,16]，默认16
+     */
+    private int ackBatchSize = 16;
+    /**
+     * 批量确认时句柄最长等待确认的时间，单位毫秒，默认50。需远小于消息的不可见时间
+     */
+    private long ackFlushMillis = 50;
+    /**
+     * 是否启用流水线模式，启用后拉取和处理使用不同线程，threadNums为处理线程数。顺序消息不支持
+     */
+    private boolean pipelineEnable = false;
+    /**
+     * 流水线模式下的拉取线程数，默认1
+     */
+    private int pullThreadNums = 1;
+    /**
+     * 流水线模式下预取队列可容纳的消息条数，队列满时暂停拉取，默认64
+     */
+    private int prefetchSize = 64;
+    /**
+     * 消费者独立线程池的大小，默认0，即按所需线程数创建。配置后所需线程数超过此值时启动失败
+     */
+    private int maxPoolSize = 0;
+    /**
+     * 是否使用虚拟线程运行拉取和处理线程，仅JDK21及以上生效，低版本自动使用平台线程。启用后maxPoolSize不生效
+     */
+    private boolean virtualThreads = false;
+    /**
+     * 拉取失败后首次等待的时间，单位毫秒，默认100
+     */
+    private long backoffInitialMillis = 100;
+    /**
+     * 拉取连续失败后最长等待的时间，单位毫秒，默认15000
+     */
+    private long backoffMaxMillis = 15000;
+    /**
+     * 拉取连续失败时等待时间的增长倍数，默认2
+     */
+    private double backoffMultiplier = 2;
+    /**
+     * 等待时间的随机浮动比例，取值范围[0,1]，默认0.2，避免多个线程同时重试
+     */
+    private double backoffJitter = 0.2;
+    /**
+     * 检查拉取和处理线程是否存活的间隔，意外退出的线程会被重新提交，单位秒，默认10，小于等于0时不检查
+     */
+    private long supervisorIntervalSeconds = 10;
+    /**
+     * 顺序消息分道数，按shardingKey哈希分配，同一分区键串行，不同通道并行。默认1，即在拉取线程上串行处理
+     */
+    private int orderLanes = 1;
+    /**
+     * listener实现AsyncHttpMessageListener时，同一个订阅关系同时处理中的最大消息数，达到上限时消费线程等待，默认1024
+     */
+    private int asyncMaxInFlight = 1024;
+    /**
+     * 关闭时等待异步消费处理中的消息完成的最长时间，单位毫秒，默认5000
+     */
+    private long asyncAwaitMillis = 5000;
+    /**
+     * 消息不可见时间，服务端未返回消息的NextConsumeTime时，以拉取时间加此值作为句柄截止时间，单位毫秒，默认300000，小于等于0时不估算
+     */
+    private long invisibleTimeMillis = 300000;
+    /**
+     * 句柄剩余有效时间小于此值时不再处理消息，等待重新投递，单位毫秒，默认100
+     */
+    private long deadlineGuardMillis = 100;
+    /**
+     * 是否使用共享拉取线程，需配置ali-ons.http.consumer.shared-pull-thread-nums大于0，开启后不再为订阅关系创建拉取线程，流水线模式不生效
+     */
+    private boolean sharedPull = false;
+    /**
+     * 共享拉取权重，拉取到消息后最多连续拉取此次数再让出拉取线程，连续拉空的等待时间除以此值，默认1
+     */
+    private int sharedPullWeight = 1;
 }
@@ -1,25 +1,29 @@
 package io.github.yanglong.ons.http.consumer;
 
 import com.aliyun.mq.http.MQConsumer;
-import com.aliyun.mq.http.common.AckMessageException;
 import com.aliyun.mq.http.model.Message;
 import io.github.yanglong.ons.commons.properties.MessageType;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Description: HTTP消息消费者线程
  *
+ * 默认拉取消息后在当前线程逐条处理；流水线模式下只负责拉取，将消息放入预取队列，由处理线程消费，
+ * 队列满时等待到有剩余容量后再拉取，每次拉取不超过剩余容量。
+ * 顺序消息交给分道处理，整批处理完成并确认后再拉取下一批。
+ *
  * @author YangLong [410357434@163.com]
  * @version V1.0
  * @date 2021/3/11
  */
 @Data
 @Slf4j
-public class HttpConsumerRunnable implements Runnable {
+public class HttpConsumerRunnable implements HttpLoopRunnable {
     /**
      * handler的名称
      */
@@ -33,86 +37,184 @@ public class HttpConsumerRunnable implements Runnable {
      */
     private final MessageType messageType;
     /**
-     * 消费消息的处理器
+     * 消息处理器，同一个订阅关系的线程共用
+     */
+    private final HttpMessageProcessor processor;
+    /**
+     * 拉取窗口，每个线程独立调整
+     */
+    private final HttpPullWindow pullWindow;
+    /**
+     * 预取队列，流水线模式下不为空
+     */
+    private final BlockingQueue<Message> prefetchQueue;
+    /**
+     * 顺序消息分道处理，顺序消息不为空
+     */
+    private final HttpOrderlyLanes orderlyLanes;
+    /**
+     * 拉取失败后的退避策略
      */
-    private HttpMessageListener messageListener;
+    private final HttpBackoff backoff;
+    /**
+     * 预取队列满时检查剩余容量的间隔
+     */
+    private static final long CAPACITY_CHECK_MILLIS = 50;
     /**
      * 用于控住消费是否停止
      */
     private volatile boolean shutdown = false;
     /**
-     * 连续消费失败计数器
+     * 循环是否存活，由工厂提交时置为true，循环退出时置为false
+     */
+    private volatile boolean alive = false;
+    /**
+     * 连续拉取失败计数器
      */
     private int retry = 0;
 
-    public HttpConsumerRunnable(String name, HttpMessageListener messageListener, MQConsumer mqConsumer, MessageType messageType) {
+    public HttpConsumerRunnable(String name, MQConsumer mqConsumer, MessageType messageType, HttpPullWindow pullWindow, HttpBackoff backoff, HttpMessageProcessor processor) {
+        this(name, mqConsumer, messageType, pullWindow, backoff, processor, null, null);
+    }
+
+    public HttpConsumerRunnable(String name, MQConsumer mqConsumer, MessageType messageType, HttpPullWindow pullWindow, HttpBackoff backoff, HttpMessageProcessor processor, BlockingQueue<Message> prefetchQueue) {
+        this(name, mqConsumer, messageType, pullWindow, backoff, processor, prefetchQueue, null);
+    }
+
+    public HttpConsumerRunnable(String name, MQConsumer mqConsumer, MessageType messageType, HttpPullWindow pullWindow, HttpBackoff backoff, HttpMessageProcessor processor, HttpOrderlyLanes orderlyLanes) {
+        this(name, mqConsumer, messageType, pullWindow, backoff, processor, null, orderlyLanes);
+    }
+
+    private HttpConsumerRunnable(String name, MQConsumer mqConsumer, MessageType messageType, HttpPullWindow pullWindow, HttpBackoff backoff, HttpMessageProcessor processor, BlockingQueue<Message> prefetchQueue, HttpOrderlyLanes orderlyLanes) {
         this.name = name;
-        this.messageListener = messageListener;
         this.mqConsumer = mqConsumer;
         this.messageType = messageType;
+        this.pullWindow = pullWindow;
+        this.backoff = backoff;
+        this.processor = processor;
+        this.prefetchQueue = prefetchQueue;
+        this.orderlyLanes = orderlyLanes;
     }
 
     @Override
     public void run() {
-        //不关闭的状态下永远进行消费
+        try {
+            loop();
+        } finally {
+            alive = false;
+        }
+    }
+
+    /**
+     * 不关闭的状态下永远进行消费，拉取失败时按退避策略等待后重试
+     */
+    private void loop() {
         while (!shutdown) {
-            if (retry > 9) {
-                log.error("HTTP consumer: handler [{}] can't connect to server!begin quit.", name);
-                shutdown = true;
+            if (null != prefetchQueue && !awaitCapacity()) {
                 break;
             }
             List<Message> messages = null;
             try {
+                // 一次最多消费16条，长轮询时间最多30秒,没有消息在服务端挂住
+                long pullTime = System.currentTimeMillis();
+                int batchSize = pullWindow.getBatchSize();
+                int waitSeconds = pullWindow.getWaitSeconds();
+                if (null != prefetchQueue) {
+                    //不拉取超过预取队列剩余容量的消息，容量被其他拉取线程占满时重新等待
+                    int capacity = prefetchQueue.remainingCapacity();
+                    if (capacity <= 0) {
+                        continue;
+                    }
+                    batchSize = Math.min(batchSize, capacity);
+                }
                 if (MessageType.ORDER.equals(messageType)) {
-                    // 一次最多消费3条(最多可设置为16条)
-                    // 长轮询时间5秒（最多可设置为30秒）,没有消息在服务端挂住5秒
-                    messages = mqConsumer.consumeMessageOrderly(3, 5);
+                    messages = mqConsumer.consumeMessageOrderly(batchSize, waitSeconds);
                 } else {
-                    messages = mqConsumer.consumeMessage(3, 5);
+                    messages = mqConsumer.consumeMessage(batchSize, waitSeconds);
+                }
+                pullWindow.feedback(null == messages ? 0 : messages.size());
+                if (null != messages) {
+                    processor.getDeadlineTracker().stamp(messages, pullTime);
                 }
-                //执行成功后重置计数器
+                //执行成功后重置计数器和退避时间
                 if (retry > 0) {
                     retry = 0;
+                    backoff.reset();
                 }
             } catch (Throwable e) {
-                log.error("HTTP consumer: handler [{}] pull ONS message error!", name, e);
                 if (shutdown) {
                     log.debug("HTTP MQConsumer shutdown!");
                     break;
                 }
+                retry++;
+                long delay = backoff.nextDelay();
+                log.error("HTTP consumer: handler [{}] pull ONS message error!failed {} times continuously,retry after {}ms.", name, retry, delay, e);
                 try {
-                    retry++;
-                    //15秒后重试
-                    Thread.sleep(15000);
+                    Thread.sleep(delay);
                 } catch (InterruptedException interruptedException) {
-                    log.error("HTTP consumer: handler [{}] consume thread interrupted!", name, e);
+                    log.error("HTTP consumer: handler [{}] consume thread interrupted!", name, interruptedException);
+                    Thread.currentThread().interrupt();
+                    break;
                 }
+                continue;
             }
             if (messages == null || messages.isEmpty()) {
                 log.debug("thread {}: handler [{}] no new message, continue!", Thread.currentThread().getName(), name);
                 continue;
             }
-            for (Message message : messages) {
-                boolean status = messageListener.consumeMessage(message);
-                if (status) {
-                    try {
-                        mqConsumer.ackMessage(Collections.singletonList(message.getReceiptHandle()));
-                    } catch (Throwable e) {
-                        log.error("handler [{}],Ack message fail!", name, e);
-                        // 某些消息的句柄可能超时了会导致确认不成功
-                        if (e instanceof AckMessageException) {
-                            AckMessageException errors = (AckMessageException) e;
-                            log.error("Ack message fail, requestId is:{}", errors.getRequestId());
-                            if (errors.getErrorMessages() != null) {
-                                for (String errorHandle : errors.getErrorMessages().keySet()) {
-                                    log.error("Ack message fail, fail Handle:{}, ErrorCode:{}, ErrorMsg:{}", errorHandle, errors.getErrorMessages().get(errorHandle).getErrorCode(), errors.getErrorMessages().get(errorHandle).getErrorMessage());
-                                }
-                            }
-                        }
+            if (null != prefetchQueue) {
+                enqueue(messages);
+                continue;
+            }
+            if (null != orderlyLanes) {
+                orderlyLanes.process(messages);
+                //顺序消息需要在下一次拉取前完成确认，否则同一分区的后续消息无法拉取
+                processor.flush();
+                continue;
+            }
+            processor.processAll(messages);
+        }
+    }
+
+    /**
+     * 等待预取队列有剩余容量，队列满时不拉取，避免拉取后的消息在队列外等待直到可见时间过期
+     *
+     * @return 是否有剩余容量，关闭或中断时返回false
+     */
+    private boolean awaitCapacity() {
+        while (prefetchQueue.remainingCapacity() <= 0) {
+            if (shutdown) {
+                return false;
+            }
+            try {
+                Thread.sleep(CAPACITY_CHECK_MILLIS);
+            } catch (InterruptedException e) {
+                log.error("HTTP consumer: handler [{}] pull thread interrupted!", name, e);
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return !shutdown;
+    }
+
+    /**
+     * 将拉取到的消息放入预取队列，队列满时阻塞，从而暂停拉取
+     *
+     * @param messages 拉取到的消息
+     */
+    private void enqueue(List<Message> messages) {
+        for (Message message : messages) {
+            try {
+                //定时醒来检查关闭状态，关闭后未入队的消息等待重新投递
+                while (!prefetchQueue.offer(message, 1, TimeUnit.SECONDS)) {
+                    if (shutdown) {
+                        return;
                     }
-                } else {
-                    log.info("handler [{}] consume message failed!message:{}", name, message.toString());
                 }
+            } catch (InterruptedException e) {
+                log.error("HTTP consumer: handler [{}] pull thread interrupted!", name, e);
+                Thread.currentThread().interrupt();
+                return;
             }
         }
     }
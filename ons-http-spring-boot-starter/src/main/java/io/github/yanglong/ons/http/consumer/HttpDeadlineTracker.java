@@ -0,0 +1,113 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.model.Message;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Description: HTTP消息句柄截止时间跟踪
+ *
+ * 消息句柄在不可见时间（NextConsumeTime）后失效，失效后确认会失败且消息会被重新投递。
+ * 处理前句柄已失效或即将失效的消息直接跳过，等待重新投递，避免重复处理；处理完成时句柄已失效的消息不再确认，并计数。
+ * 同一个订阅关系共用一个，线程安全。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class HttpDeadlineTracker {
+    /**
+     * handler的名称
+     */
+    @Getter
+    private final String name;
+    /**
+     * 消息没有返回NextConsumeTime时使用的不可见时间，单位毫秒
+     */
+    private final long invisibleTimeMillis;
+    /**
+     * 剩余时间小于此值时视为已失效，单位毫秒
+     */
+    private final long guardMillis;
+    /**
+     * 处理前已失效被跳过的消息数
+     */
+    private final AtomicLong expiredCount = new AtomicLong();
+    /**
+     * 处理完成时已失效的消息数
+     */
+    private final AtomicLong lateCount = new AtomicLong();
+
+    public HttpDeadlineTracker(String name, long invisibleTimeMillis, long guardMillis) {
+        this.name = name;
+        this.invisibleTimeMillis = invisibleTimeMillis;
+        this.guardMillis = Math.max(0, guardMillis);
+    }
+
+    /**
+     * 记录拉取到的消息的截止时间，服务端未返回时使用拉取时间加不可见时间
+     *
+     * @param messages 拉取到的消息
+     * @param pullTime 发起拉取的时间
+     */
+    public void stamp(List<Message> messages, long pullTime) {
+        if (invisibleTimeMillis <= 0) {
+            return;
+        }
+        for (Message message : messages) {
+            if (message.getNextConsumeTime() <= 0) {
+                message.setNextConsumeTime(pullTime + invisibleTimeMillis);
+            }
+        }
+    }
+
+    /**
+     * 检查消息处理前句柄是否已失效，失效时计数
+     *
+     * @param message 消息
+     * @return true-已失效，不需要处理
+     */
+    public boolean expired(Message message) {
+        long deadline = message.getNextConsumeTime();
+        if (deadline > 0 && System.currentTimeMillis() >= deadline - guardMillis) {
+            expiredCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 检查消息处理完成时句柄是否已失效，失效时计数
+     *
+     * @param message 消息
+     * @return true-已失效，不需要确认
+     */
+    public boolean late(Message message) {
+        long deadline = message.getNextConsumeTime();
+        if (deadline > 0 && System.currentTimeMillis() >= deadline) {
+            lateCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取处理前已失效被跳过的消息数
+     *
+     * @return 消息数
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * 获取处理完成时已失效的消息数
+     *
+     * @return 消息数
+     */
+    public long getLateCount() {
+        return lateCount.get();
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.model.Message;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: HTTP消息处理线程，流水线模式下从预取队列中获取消息并交给处理器消费
+ *
+ * 批量listener模式下一次从队列中获取最多16条消息整批处理。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+@Slf4j
+public class HttpDispatchRunnable implements HttpLoopRunnable {
+    /**
+     * handler的名称
+     */
+    private final String name;
+    /**
+     * 预取队列，与拉取线程共用
+     */
+    private final BlockingQueue<Message> prefetchQueue;
+    /**
+     * 消息处理器
+     */
+    private final HttpMessageProcessor processor;
+    /**
+     * 用于控住处理是否停止
+     */
+    private volatile boolean shutdown = false;
+    /**
+     * 循环是否存活，由工厂提交时置为true，循环退出时置为false
+     */
+    private volatile boolean alive = false;
+
+    public HttpDispatchRunnable(String name, BlockingQueue<Message> prefetchQueue, HttpMessageProcessor processor) {
+        this.name = name;
+        this.prefetchQueue = prefetchQueue;
+        this.processor = processor;
+    }
+
+    @Override
+    public void run() {
+        try {
+            loop();
+        } finally {
+            alive = false;
+        }
+    }
+
+    /**
+     * 不关闭的状态下永远从预取队列获取消息处理
+     */
+    private void loop() {
+        while (!shutdown) {
+            Message message;
+            try {
+                //定时醒来检查关闭状态
+                message = prefetchQueue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                log.error("HTTP consumer: handler [{}] dispatch thread interrupted!", name, e);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (null == message) {
+                continue;
+            }
+            if (processor.isBatch()) {
+                List<Message> messages = new ArrayList<>(HttpPullWindow.MAX_BATCH_SIZE);
+                messages.add(message);
+                prefetchQueue.drainTo(messages, HttpPullWindow.MAX_BATCH_SIZE - 1);
+                processor.processBatch(messages);
+            } else {
+                processor.process(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.yanglong.ons.http.consumer;
+
+/**
+ * Description: HTTP消费者常驻循环线程，由HttpConsumerFactory提交和监控
+ *
+ * alive在提交到线程池前置为true，循环退出后置为false；未关闭但不再存活的线程会被重新提交。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public interface HttpLoopRunnable extends Runnable {
+    /**
+     * handler的名称
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 是否已关闭
+     *
+     * @return true-已关闭
+     */
+    boolean isShutdown();
+
+    /**
+     * 设置关闭状态，关闭后循环将退出
+     *
+     * @param shutdown true-关闭
+     */
+    void setShutdown(boolean shutdown);
+
+    /**
+     * 循环是否存活
+     *
+     * @return true-存活
+     */
+    boolean isAlive();
+
+    /**
+     * 设置存活状态
+     *
+     * @param alive true-存活
+     */
+    void setAlive(boolean alive);
+}
@@ -0,0 +1,302 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.model.Message;
+import io.github.yanglong.ons.commons.audit.OnsAuditEvent;
+import io.github.yanglong.ons.commons.audit.OnsMessageAudit;
+import io.github.yanglong.ons.http.HttpMessageBodies;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: HTTP消息处理器，调用业务listener消费消息，消费成功后交给确认聚合器确认
+ *
+ * 同一个订阅关系的拉取线程和处理线程共用一个。
+ * 处理前句柄已失效的消息直接跳过，生产者压缩的消息体在交给listener前解压，处理完成时句柄已失效的消息不再确认，由截止时间跟踪器计数。
+ * 批量listener模式下整批调用listener，消费成功的消息一次确认。
+ * 异步listener模式下调用后不等待结果，future完成时确认，同时处理中的消息数由信号量限制，达到上限时调用线程等待。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+@Getter
+public class HttpMessageProcessor {
+    /**
+     * handler的名称
+     */
+    private final String name;
+    /**
+     * 消费消息的处理器
+     */
+    private final HttpMessageListener messageListener;
+    /**
+     * 消息批量确认聚合器
+     */
+    private final HttpAckAggregator ackAggregator;
+    /**
+     * 消息句柄截止时间跟踪器
+     */
+    private final HttpDeadlineTracker deadlineTracker;
+    /**
+     * 批量消费的listener，非批量模式为空
+     */
+    private final HttpBatchMessageListener batchListener;
+    /**
+     * 异步消费的listener，非异步模式为空
+     */
+    private final AsyncHttpMessageListener asyncListener;
+    /**
+     * 同时处理中的最大消息数
+     */
+    private final int maxInFlight;
+    /**
+     * 异步消费处理中的消息许可
+     */
+    private final Semaphore inFlight;
+
+    public HttpMessageProcessor(String name, HttpMessageListener messageListener, HttpAckAggregator ackAggregator, HttpDeadlineTracker deadlineTracker) {
+        this(name, messageListener, ackAggregator, deadlineTracker, false, 0);
+    }
+
+    public HttpMessageProcessor(String name, HttpMessageListener messageListener, HttpAckAggregator ackAggregator, HttpDeadlineTracker deadlineTracker, boolean async, int maxInFlight) {
+        this.name = name;
+        this.messageListener = messageListener;
+        this.ackAggregator = ackAggregator;
+        this.deadlineTracker = deadlineTracker;
+        this.batchListener = messageListener instanceof HttpBatchMessageListener ? (HttpBatchMessageListener) messageListener : null;
+        if (async && messageListener instanceof AsyncHttpMessageListener) {
+            this.asyncListener = (AsyncHttpMessageListener) messageListener;
+            this.maxInFlight = Math.max(1, maxInFlight);
+            this.inFlight = new Semaphore(this.maxInFlight);
+        } else {
+            this.asyncListener = null;
+            this.maxInFlight = 0;
+            this.inFlight = null;
+        }
+    }
+
+    /**
+     * 消费单条消息，成功时放入确认聚合器，失败时等待重新投递
+     *
+     * @param message 消息
+     * @return 是否消费成功，异步模式下为是否提交成功
+     */
+    public boolean process(Message message) {
+        if (deadlineTracker.expired(message)) {
+            log.warn("handler [{}] skip message {},receipt handle expired before consume.", name, message.getMessageId());
+            return false;
+        }
+        if (!decompress(message)) {
+            return false;
+        }
+        if (null != asyncListener) {
+            return processAsync(message);
+        }
+        boolean status;
+        try {
+            status = messageListener.consumeMessage(message);
+        } catch (Throwable e) {
+            log.error("handler [{}] consume message error!message id is {}.", name, message.getMessageId(), e);
+            status = false;
+        }
+        if (status) {
+            ack(message);
+        } else {
+            auditFailed(message);
+        }
+        return status;
+    }
+
+    /**
+     * 消费拉取到的一批消息，批量模式下整批调用listener，否则逐条调用
+     *
+     * @param messages 消息
+     */
+    public void processAll(List<Message> messages) {
+        if (null != batchListener) {
+            processBatch(messages);
+            return;
+        }
+        for (Message message : messages) {
+            process(message);
+        }
+    }
+
+    /**
+     * 是否为批量消费模式
+     *
+     * @return true-listener实现了HttpBatchMessageListener
+     */
+    public boolean isBatch() {
+        return null != batchListener;
+    }
+
+    /**
+     * 批量消费消息，跳过句柄已失效的消息，消费成功的消息一次确认，失败的等待重新投递
+     *
+     * @param messages 消息
+     * @return 消费成功的消息数
+     */
+    public int processBatch(List<Message> messages) {
+        List<Message> valid = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            if (deadlineTracker.expired(message)) {
+                log.warn("handler [{}] skip message {},receipt handle expired before consume.", name, message.getMessageId());
+            } else if (decompress(message)) {
+                valid.add(message);
+            }
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+        List<Boolean> result;
+        try {
+            result = batchListener.consumeMessages(valid);
+        } catch (Throwable e) {
+            log.error("handler [{}] consume {} messages error!", name, valid.size(), e);
+            return 0;
+        }
+        if (null == result || result.size() != valid.size()) {
+            log.error("handler [{}] consume {} messages,but got {} results,treat all as failed.", name, valid.size(), null == result ? 0 : result.size());
+            return 0;
+        }
+        int success = 0;
+        for (int i = 0; i < valid.size(); i++) {
+            Message message = valid.get(i);
+            if (Boolean.TRUE.equals(result.get(i))) {
+                ack(message);
+                success++;
+            } else {
+                auditFailed(message);
+            }
+        }
+        //整批消费成功的句柄一次确认
+        ackAggregator.flush();
+        return success;
+    }
+
+    /**
+     * 记录消费失败的消息，消息体是否输出由审计日志配置决定
+     *
+     * @param message 消息
+     */
+    private void auditFailed(Message message) {
+        OnsMessageAudit.get().record("HTTP", OnsAuditEvent.CONSUME_FAILED, null, message.getMessageTag(), message.getMessageKey(), message.getMessageId(), message.getMessageBodyBytes(), "handler", name);
+    }
+
+    /**
+     * 解压生产者压缩的消息体，解压失败的消息不交给listener，等待重新投递
+     *
+     * @param message 消息
+     * @return 是否可以消费
+     */
+    private boolean decompress(Message message) {
+        try {
+            HttpMessageBodies.decompress(message);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("handler [{}] decompress message body error!message id is {}.", name, message.getMessageId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 异步消费单条消息，获取许可后调用listener，future完成时释放许可并确认
+     *
+     * @param message 消息
+     * @return 是否提交成功
+     */
+    private boolean processAsync(Message message) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            log.error("handler [{}] interrupted while waiting in-flight permit!message id is {}.", name, message.getMessageId(), e);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        CompletableFuture<Boolean> future;
+        try {
+            future = asyncListener.consumeMessageAsync(message);
+        } catch (Throwable e) {
+            inFlight.release();
+            log.error("handler [{}] consume message error!message id is {}.", name, message.getMessageId(), e);
+            auditFailed(message);
+            return false;
+        }
+        if (null == future) {
+            inFlight.release();
+            auditFailed(message);
+            return false;
+        }
+        future.whenComplete((status, e) -> {
+            inFlight.release();
+            if (null != e) {
+                log.error("handler [{}] consume message error!message id is {}.", name, message.getMessageId(), e);
+                auditFailed(message);
+            } else if (Boolean.TRUE.equals(status)) {
+                ack(message);
+            } else {
+                auditFailed(message);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 确认消费成功的消息，句柄已失效时不再确认，消息会被重新投递
+     *
+     * @param message 消费成功的消息
+     */
+    private void ack(Message message) {
+        if (deadlineTracker.late(message)) {
+            log.warn("handler [{}] message {} consumed after receipt handle expired,it will be redelivered.", name, message.getMessageId());
+            return;
+        }
+        ackAggregator.ack(message);
+    }
+
+    /**
+     * 获取异步消费处理中的消息数
+     *
+     * @return 处理中的消息数，非异步模式为0
+     */
+    public int getInFlightCount() {
+        return null == inFlight ? 0 : maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * 等待异步消费处理中的消息完成，用于关闭前确认
+     *
+     * @param timeoutMillis 最长等待时间，单位毫秒
+     * @return 是否全部完成
+     */
+    public boolean awaitInFlight(long timeoutMillis) {
+        if (null == inFlight) {
+            return true;
+        }
+        try {
+            if (inFlight.tryAcquire(maxInFlight, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                inFlight.release(maxInFlight);
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("handler [{}] still has {} messages in flight after {}ms,they will be redelivered.", name, getInFlightCount(), timeoutMillis);
+        return false;
+    }
+
+    /**
+     * 立即确认所有已消费成功的消息
+     */
+    public void flush() {
+        ackAggregator.flush();
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.model.Message;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Description: 顺序消息按分区键分道处理
+ *
+ * 一批顺序消息按shardingKey的哈希值分配到固定数量的通道，同一通道内串行处理，不同通道并行处理，
+ * 因此同一分区键的消息严格有序，不同分区键之间可以并行。所有通道处理完成后才返回，由拉取线程确认后再拉取下一批。
+ * 同一批中某个分区键的消息消费失败后，该分区键后续的消息不再处理，等待重新投递，避免乱序。
+ * 每个拉取线程持有一个。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+@Getter
+public class HttpOrderlyLanes {
+    /**
+     * handler的名称
+     */
+    private final String name;
+    /**
+     * 消息处理器
+     */
+    private final HttpMessageProcessor processor;
+    /**
+     * 通道数，小于等于1时在拉取线程上串行处理
+     */
+    private final int lanes;
+    /**
+     * 通道线程池，通道数大于1时不为空
+     */
+    private final ExecutorService executor;
+
+    public HttpOrderlyLanes(String name, HttpMessageProcessor processor, int lanes, ExecutorService executor) {
+        this.name = name;
+        this.processor = processor;
+        this.lanes = null == executor ? 1 : Math.max(1, lanes);
+        this.executor = executor;
+    }
+
+    /**
+     * 处理一批顺序消息，所有消息处理完成后返回
+     *
+     * @param messages 拉取到的消息
+     */
+    public void process(List<Message> messages) {
+        if (lanes <= 1 || messages.size() <= 1) {
+            processLane(messages);
+            return;
+        }
+        List<List<Message>> laneMessages = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            laneMessages.add(new ArrayList<>());
+        }
+        for (Message message : messages) {
+            laneMessages.get(laneOf(message.getShardingKey())).add(message);
+        }
+        List<Future<?>> futures = new ArrayList<>(lanes);
+        for (List<Message> lane : laneMessages) {
+            if (lane.isEmpty()) {
+                continue;
+            }
+            try {
+                futures.add(executor.submit(() -> processLane(lane)));
+            } catch (RejectedExecutionException e) {
+                //通道线程池已关闭，剩余的消息不再处理，等待重新投递
+                log.error("HTTP consumer: handler [{}] orderly lane rejected!", name, e);
+            }
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                log.error("HTTP consumer: handler [{}] interrupted while waiting orderly lanes!", name, e);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("HTTP consumer: handler [{}] orderly lane error!", name, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * 关闭通道线程池，正在处理的消息处理完成
+     */
+    public void shutdown() {
+        if (null != executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 串行处理一个通道的消息，分区键失败后跳过同一分区键的后续消息
+     *
+     * @param messages 通道内的消息，保持拉取顺序
+     */
+    private void processLane(List<Message> messages) {
+        Set<String> failedKeys = null;
+        for (Message message : messages) {
+            String shardingKey = StringUtils.defaultString(message.getShardingKey());
+            if (null != failedKeys && failedKeys.contains(shardingKey)) {
+                log.info("handler [{}] skip message {},previous message of sharding key [{}] failed.", name, message.getMessageId(), shardingKey);
+                continue;
+            }
+            if (!processor.process(message)) {
+                if (null == failedKeys) {
+                    failedKeys = new HashSet<>();
+                }
+                failedKeys.add(shardingKey);
+            }
+        }
+    }
+
+    /**
+     * 计算分区键所属的通道，没有分区键的消息（全局顺序）都在同一通道
+     *
+     * @param shardingKey 分区键
+     * @return 通道下标
+     */
+    private int laneOf(String shardingKey) {
+        if (StringUtils.isEmpty(shardingKey)) {
+            return 0;
+        }
+        return (shardingKey.hashCode() & Integer.MAX_VALUE) % lanes;
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.yanglong.ons.http.consumer;
+
+import io.github.yanglong.ons.commons.metrics.OnsPoolStats;
+import io.github.yanglong.ons.commons.utils.OnsExecutors;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: HTTP消费者共享拉取调度器
+ *
+ * 开启sharedPull的消费者不再为每个订阅关系创建拉取线程，而是将订阅关系注册到此调度器，由固定数量的拉取线程轮流拉取。
+ * 订阅关系按下一次拉取时间排队，拉取到消息的立即重新排队，连续拉空的逐渐延后，因此少量线程即可服务大量订阅关系。
+ * 每个订阅关系的拉取权重由消费者的sharedPullWeight配置，权重越大每次获得拉取线程后连续拉取的次数越多、空闲时重新拉取越早。
+ * 由于一个拉取线程同一时刻只服务一个订阅关系，共享拉取时长轮询时间应尽量短。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class HttpPullScheduler {
+    /**
+     * 拉取线程数
+     */
+    @Getter
+    private final int threadNums;
+    /**
+     * 长轮询时间，单位秒
+     */
+    @Getter
+    private final int waitSeconds;
+    /**
+     * 连续拉空后的最短等待时间，单位毫秒
+     */
+    @Getter
+    private final long minIdleMillis;
+    /**
+     * 连续拉空后的最长等待时间，单位毫秒
+     */
+    @Getter
+    private final long maxIdleMillis;
+    /**
+     * 按下一次拉取时间排队的订阅关系
+     */
+    private final DelayQueue<HttpPullTask> queue = new DelayQueue<>();
+    /**
+     * 注册的订阅关系
+     */
+    private final List<HttpPullTask> tasks = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * 拉取线程
+     */
+    private final List<Worker> workers = new ArrayList<>();
+    /**
+     * 拉取线程池
+     */
+    @Getter
+    private ThreadPoolExecutor executor;
+
+    public HttpPullScheduler(int threadNums, int waitSeconds, long minIdleMillis, long maxIdleMillis) {
+        this.threadNums = Math.max(1, threadNums);
+        this.waitSeconds = Math.max(1, Math.min(waitSeconds, HttpPullWindow.MAX_WAIT_SECONDS));
+        this.minIdleMillis = minIdleMillis;
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    /**
+     * 注册订阅关系，立即参与调度
+     *
+     * @param task 订阅关系
+     */
+    public void register(HttpPullTask task) {
+        tasks.add(task);
+        queue.offer(task);
+    }
+
+    /**
+     * 获取注册的订阅关系，用于观察各订阅关系的拉取次数和消息数
+     *
+     * @return 订阅关系
+     */
+    public List<HttpPullTask> getTasks() {
+        synchronized (tasks) {
+            return new ArrayList<>(tasks);
+        }
+    }
+
+    /**
+     * 获取拉取线程，用于存活检查
+     *
+     * @return 拉取线程
+     */
+    public List<? extends HttpLoopRunnable> getWorkers() {
+        return workers;
+    }
+
+    /**
+     * 创建拉取线程池并启动拉取线程，只能调用一次
+     */
+    public synchronized void start() {
+        if (null != executor) {
+            return;
+        }
+        executor = OnsExecutors.newBoundedPool("ons-http-shared-pull-", threadNums);
+        for (int i = 0; i < threadNums; i++) {
+            Worker worker = new Worker("shared-pull-" + i);
+            workers.add(worker);
+            worker.setAlive(true);
+            executor.execute(worker);
+        }
+        log.info("HTTP shared pull scheduler started with {} threads.", threadNums);
+    }
+
+    /**
+     * 停止拉取线程，正在处理的消息处理完成
+     */
+    public synchronized void shutdown() {
+        workers.forEach(worker -> worker.setShutdown(true));
+        if (null != executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 获取拉取线程池状态快照
+     *
+     * @return 未启动时为空
+     */
+    public OnsPoolStats getPoolStats() {
+        return null == executor ? null : OnsPoolStats.of("shared-pull", executor);
+    }
+
+    /**
+     * 共享拉取线程，从队列中取出到达拉取时间的订阅关系执行一次拉取，完成后重新排队
+     */
+    @Data
+    private class Worker implements HttpLoopRunnable {
+        /**
+         * 线程名称
+         */
+        private final String name;
+        /**
+         * 用于控住拉取是否停止
+         */
+        private volatile boolean shutdown = false;
+        /**
+         * 循环是否存活
+         */
+        private volatile boolean alive = false;
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    HttpPullTask task;
+                    try {
+                        //定时醒来检查关闭状态
+                        task = queue.poll(1, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        log.error("HTTP consumer: shared pull thread [{}] interrupted!", name, e);
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    if (null == task) {
+                        continue;
+                    }
+                    try {
+                        task.pollOnce();
+                    } finally {
+                        queue.offer(task);
+                    }
+                }
+            } finally {
+                alive = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.MQConsumer;
+import com.aliyun.mq.http.model.Message;
+import io.github.yanglong.ons.commons.properties.MessageType;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Description: 共享拉取调度中的一个订阅关系
+ *
+ * 同一时刻只会被一个共享拉取线程执行，执行完成后按结果计算下一次拉取时间：拉取到消息立即再次拉取，
+ * 连续拉空时等待时间从minIdleMillis开始翻倍直到maxIdleMillis，拉取失败按退避策略等待。
+ * 因此活跃的订阅关系被更频繁地拉取，空闲的订阅关系很少占用拉取线程。
+ * 权重weight大于1时，拉取到消息后最多连续拉取weight次再重新排队，连续拉空的等待时间除以weight，
+ * 因此多个订阅关系都有消息时，拉取线程的时间大致按权重分配。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+@Getter
+public class HttpPullTask implements Delayed {
+    /**
+     * handler的名称
+     */
+    private final String name;
+    /**
+     * 消费者实例
+     */
+    private final MQConsumer mqConsumer;
+    /**
+     * 消息类型，仅区分顺序消息和其他消息
+     */
+    private final MessageType messageType;
+    /**
+     * 消息处理器
+     */
+    private final HttpMessageProcessor processor;
+    /**
+     * 拉取窗口
+     */
+    private final HttpPullWindow pullWindow;
+    /**
+     * 拉取失败后的退避策略
+     */
+    private final HttpBackoff backoff;
+    /**
+     * 顺序消息分道处理，顺序消息不为空
+     */
+    private final HttpOrderlyLanes orderlyLanes;
+    /**
+     * 连续拉空后的最短等待时间，单位毫秒
+     */
+    private final long minIdleMillis;
+    /**
+     * 连续拉空后的最长等待时间，单位毫秒
+     */
+    private final long maxIdleMillis;
+    /**
+     * 拉取权重，最小为1
+     */
+    private final int weight;
+    /**
+     * 拉取次数
+     */
+    private final AtomicLong pollCount = new AtomicLong();
+    /**
+     * 拉取到的消息数
+     */
+    private final AtomicLong messageCount = new AtomicLong();
+    /**
+     * 当前的空闲等待时间，单位毫秒
+     */
+    private long idleMillis;
+    /**
+     * 下一次可以拉取的时间
+     */
+    private volatile long nextPollTime;
+
+    public HttpPullTask(String name, MQConsumer mqConsumer, MessageType messageType, HttpMessageProcessor processor, HttpPullWindow pullWindow,
+                        HttpBackoff backoff, HttpOrderlyLanes orderlyLanes, long minIdleMillis, long maxIdleMillis, int weight) {
+        this.name = name;
+        this.mqConsumer = mqConsumer;
+        this.messageType = messageType;
+        this.processor = processor;
+        this.pullWindow = pullWindow;
+        this.backoff = backoff;
+        this.orderlyLanes = orderlyLanes;
+        this.minIdleMillis = Math.max(0, minIdleMillis);
+        this.maxIdleMillis = Math.max(this.minIdleMillis, maxIdleMillis);
+        this.weight = Math.max(1, weight);
+        this.idleMillis = this.minIdleMillis;
+        this.nextPollTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 拉取并处理消息，拉取到消息时最多连续拉取weight次，完成后更新下一次拉取时间。由共享拉取线程调用，同一时刻只有一个线程执行
+     */
+    public void pollOnce() {
+        for (int i = 0; i < weight; i++) {
+            if (!pollOne()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 拉取并处理一批消息，完成后更新下一次拉取时间
+     *
+     * @return 是否拉取到消息
+     */
+    private boolean pollOne() {
+        List<Message> messages;
+        try {
+            long pullTime = System.currentTimeMillis();
+            if (MessageType.ORDER.equals(messageType)) {
+                messages = mqConsumer.consumeMessageOrderly(pullWindow.getBatchSize(), pullWindow.getWaitSeconds());
+            } else {
+                messages = mqConsumer.consumeMessage(pullWindow.getBatchSize(), pullWindow.getWaitSeconds());
+            }
+            pollCount.incrementAndGet();
+            pullWindow.feedback(null == messages ? 0 : messages.size());
+            backoff.reset();
+            if (null == messages || messages.isEmpty()) {
+                nextPollTime = System.currentTimeMillis() + idleMillis / weight;
+                idleMillis = Math.min(Math.max(1, idleMillis << 1), maxIdleMillis);
+                return false;
+            }
+            processor.getDeadlineTracker().stamp(messages, pullTime);
+        } catch (Throwable e) {
+            long delay = backoff.nextDelay();
+            log.error("HTTP consumer: handler [{}] pull ONS message error!retry after {}ms.", name, delay, e);
+            nextPollTime = System.currentTimeMillis() + delay;
+            return false;
+        }
+        messageCount.addAndGet(messages.size());
+        idleMillis = minIdleMillis;
+        if (null != orderlyLanes) {
+            orderlyLanes.process(messages);
+            //顺序消息需要在下一次拉取前完成确认
+            processor.flush();
+        } else {
+            processor.processAll(messages);
+        }
+        //有消息时立即再次拉取
+        nextPollTime = System.currentTimeMillis();
+        return true;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(nextPollTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.yanglong.ons.http.consumer;
+
+import lombok.Getter;
+
+/**
+ * Description: HTTP拉取窗口，决定每次拉取的消息条数和长轮询时间
+ *
+ * 非自适应模式下始终使用配置的值；自适应模式下，拉满时条数翻倍增长直到16条，同时长轮询时间恢复为配置值，
+ * 拉空时条数减半直到配置值，同时长轮询时间翻倍直到30秒。每个拉取线程持有一个，非线程安全。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Getter
+public class HttpPullWindow {
+    /**
+     * 单次拉取最大条数
+     */
+    public static final int MAX_BATCH_SIZE = 16;
+    /**
+     * 最大长轮询时间，单位秒
+     */
+    public static final int MAX_WAIT_SECONDS = 30;
+    /**
+     * 配置的拉取条数，也是自适应模式下的最小条数
+     */
+    private final int baseBatchSize;
+    /**
+     * 配置的长轮询时间，也是自适应模式下的最短时间
+     */
+    private final int baseWaitSeconds;
+    /**
+     * 是否自适应
+     */
+    private final boolean adaptive;
+    /**
+     * 当前拉取条数
+     */
+    private int batchSize;
+    /**
+     * 当前长轮询时间
+     */
+    private int waitSeconds;
+
+    public HttpPullWindow(int batchSize, int waitSeconds, boolean adaptive) {
+        this.baseBatchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.baseWaitSeconds = Math.max(1, Math.min(waitSeconds, MAX_WAIT_SECONDS));
+        this.adaptive = adaptive;
+        this.batchSize = this.baseBatchSize;
+        this.waitSeconds = this.baseWaitSeconds;
+    }
+
+    /**
+     * 根据本次拉取到的消息条数调整下一次拉取窗口
+     *
+     * @param received 本次拉取到的消息条数
+     */
+    public void feedback(int received) {
+        if (!adaptive) {
+            return;
+        }
+        if (received >= batchSize) {
+            //拉满说明有积压，扩大批次
+            batchSize = Math.min(batchSize << 1, MAX_BATCH_SIZE);
+            waitSeconds = baseWaitSeconds;
+        } else if (received <= 0) {
+            //拉空说明空闲，缩小批次，延长长轮询减少空请求
+            batchSize = Math.max(batchSize >> 1, baseBatchSize);
+            waitSeconds = Math.min(waitSeconds << 1, MAX_WAIT_SECONDS);
+        }
+    }
+}
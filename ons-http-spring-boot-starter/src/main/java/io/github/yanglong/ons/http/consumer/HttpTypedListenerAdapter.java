@@ -0,0 +1,36 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.model.Message;
+import io.github.yanglong.ons.commons.codec.MessageDecoder;
+import io.github.yanglong.ons.commons.codec.OnsCodecException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Description: 将HttpTypedMessageListener适配为HttpMessageListener，解码器在创建时传入
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+class HttpTypedListenerAdapter<T> implements HttpMessageListener {
+    private final HttpTypedMessageListener<T> listener;
+    private final MessageDecoder<T> decoder;
+
+    HttpTypedListenerAdapter(HttpTypedMessageListener<T> listener, MessageDecoder<T> decoder) {
+        this.listener = listener;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public boolean consumeMessage(Message message) {
+        T payload;
+        try {
+            payload = decoder.decode(message.getMessageBodyBytes());
+        } catch (OnsCodecException e) {
+            log.error("can't decode HTTP message {},wait for redelivery.", message.getMessageId(), e);
+            return false;
+        }
+        return listener.consume(payload, message);
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.yanglong.ons.http.consumer;
+
+import com.aliyun.mq.http.model.Message;
+import io.github.yanglong.ons.commons.listener.OnsMessageListener;
+
+/**
+ * Description: HTTP模式消费者消息对象消费接口
+ *
+ * 消息对象类型在创建订阅时从实现类声明的泛型参数解析一次，消息体按该类型解码后交给listener，解码失败的消息不确认，等待重新投递。
+ * 消费消息注意幂等，因为如果不在消费时限内消费完此条消息，会导致重复消费。
+ *
+ * @param <T> 消息对象类型
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public interface HttpTypedMessageListener<T> extends OnsMessageListener {
+    /**
+     * 消费消息，并返回消费状态。如果返回true，将会向MQ确认消费成功，异常请在方法内捕获掉。
+     *
+     * @param payload 解码后的消息对象
+     * @param message 接收到的消息对象，用于获取key、tag、属性等
+     * @return true-消费成功，false-失败
+     */
+    boolean consume(T payload, Message message);
+}
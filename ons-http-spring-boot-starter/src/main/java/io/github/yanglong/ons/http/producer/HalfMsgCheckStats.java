@@ -0,0 +1,58 @@
+package io.github.yanglong.ons.http.producer;
+
+import lombok.Data;
+
+/**
+ * Description: HTTP事务半消息回查状态快照
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Data
+public class HalfMsgCheckStats {
+    /**
+     * 生产者名称
+     */
+    private String producerName;
+    /**
+     * topic
+     */
+    private String topic;
+    /**
+     * 拉取到的半消息数
+     */
+    private long receivedCount;
+    /**
+     * 提交的半消息数
+     */
+    private long commitCount;
+    /**
+     * 回滚的半消息数
+     */
+    private long rollbackCount;
+    /**
+     * 检查接口未给出结果的半消息数
+     */
+    private long unknownCount;
+    /**
+     * 检查或提交/回滚出错的半消息数
+     */
+    private long errorCount;
+    /**
+     * 检查前句柄已失效被跳过的半消息数
+     */
+    private long expiredCount;
+    /**
+     * 检查完成时句柄已失效，未提交/回滚的半消息数
+     */
+    private long lateCount;
+    /**
+     * 已拉取未处理完成的半消息数
+     */
+    private int pendingCount;
+    /**
+     * 提交和回滚的速率，按每轮拉取平滑计算，单位条/秒
+     */
+    private double drainRate;
+}
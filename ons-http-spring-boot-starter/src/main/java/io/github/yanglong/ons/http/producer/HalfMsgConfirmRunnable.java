@@ -2,12 +2,25 @@ package io.github.yanglong.ons.http.producer;
 
 import com.aliyun.mq.http.MQTransProducer;
 import com.aliyun.mq.http.model.Message;
+import io.github.yanglong.ons.commons.audit.OnsAuditEvent;
+import io.github.yanglong.ons.commons.audit.OnsMessageAudit;
+import io.github.yanglong.ons.commons.producer.OnsTransactionJournal;
+import io.github.yanglong.ons.commons.producer.OnsTransactionState;
+import io.github.yanglong.ons.http.consumer.HttpDeadlineTracker;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Description: 实现HTTP事务消费，用于确认事务消息事务状态
@@ -15,6 +28,9 @@ import java.util.Map;
  * 在事务消息发送客户端一侧进行事务提交，回滚。
  * 由于事务消息客户端是缓存在map中，因此，只要客户端不消除，则此线程存在，因此，需要对while(true)进行管理，
  * 在事务消息客户端关闭或刷新时，系统关闭时，中断循环，结束当前线程。
+ * 每次拉取halfBatchSize条半消息，配置了检查线程池时一批半消息并行调用检查接口，整批完成后再拉取下一批，因此同时检查的消息数不超过批量大小。
+ * 启用本地事务结果日志时，先按消息ID从日志中获取结果，未命中时再调用检查接口。
+ * 检查前和提交/回滚前分别检查句柄是否已失效，已失效的不再处理，等待服务端重新回查。
  *
  * @author YangLong [410357434@163.com]
  * @version V1.0
@@ -35,15 +51,68 @@ public class HalfMsgConfirmRunnable implements Runnable {
      * 半事务消息状态检查接口
      */
     private HalfMsgStatusChecker halfMsgStatusChecker;
+    /**
+     * 生产者实例的topic
+     */
+    private String topic;
+    /**
+     * 每次拉取的半消息数
+     */
+    private int batchSize;
+    /**
+     * 拉取半消息的长轮询等待时间，单位秒
+     */
+    private int waitSeconds;
+    /**
+     * 并行调用检查接口的线程池，为空时逐条检查
+     */
+    private ExecutorService checkExecutor;
+    /**
+     * 半消息句柄截止时间跟踪器
+     */
+    private HttpDeadlineTracker deadlineTracker;
+    /**
+     * 本地事务结果日志，没有启用时为空
+     */
+    private OnsTransactionJournal journal;
     /**
      * 关闭状态，true-关闭，false-开启，默认开启
      */
-    private boolean shutdown = false;
+    private volatile boolean shutdown = false;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong receivedCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong commitCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rollbackCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong unknownCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong errorCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    /**
+     * 提交和回滚的平滑速率，只由本线程更新
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile double drainRate;
 
     public HalfMsgConfirmRunnable(String producerName, MQTransProducer mqTransProducer, HalfMsgStatusChecker halfMsgStatusChecker) {
+        this(producerName, mqTransProducer, halfMsgStatusChecker, new HttpProducerProperties(), null, null);
+    }
+
+    public HalfMsgConfirmRunnable(String producerName, MQTransProducer mqTransProducer, HalfMsgStatusChecker halfMsgStatusChecker, HttpProducerProperties properties, ExecutorService checkExecutor, OnsTransactionJournal journal) {
         this.producerName = producerName;
         this.mqTransProducer = mqTransProducer;
         this.halfMsgStatusChecker = halfMsgStatusChecker;
+        this.topic = mqTransProducer.getTopicName();
+        //HTTP接口每次最多拉取16条
+        this.batchSize = Math.min(16, Math.max(1, properties.getHalfBatchSize()));
+        this.waitSeconds = Math.min(30, Math.max(1, properties.getHalfWaitSeconds()));
+        this.checkExecutor = checkExecutor;
+        this.deadlineTracker = new HttpDeadlineTracker(producerName, properties.getHalfHandleTimeout(), properties.getHalfHandleGuard());
+        this.journal = journal;
     }
 
     @Override
@@ -51,41 +120,141 @@ public class HalfMsgConfirmRunnable implements Runnable {
         //只要不关闭，就一直获取消息
         while (!shutdown) {
             try {
-                //每3秒获取一次半事务消息，且最多获取3条
-                List<Message> messages = mqTransProducer.consumeHalfMessage(3, 3);
+                long pullTime = System.currentTimeMillis();
+                List<Message> messages = mqTransProducer.consumeHalfMessage(batchSize, waitSeconds);
+                int resolved = 0;
                 if (CollectionUtils.isEmpty(messages)) {
                     log.debug("No Half message!");
-                    continue;
-                }
-                for (Message message : messages) {
-                    String key = message.getMessageKey();
-                    log.info("receive half message:[key:{},tag:{},msg:{},publishTime:{}]", key, message.getMessageTag(), message.getMessageBodyString(), message.getPublishTime());
-                    Map<String, String> custom = message.getProperties();
-                    try {
-                        //检查事务状态，1提交，0回滚，其他不做任何操作
-                        int status = halfMsgStatusChecker.checkTransactionStatus(key, custom);
-                        switch (status) {
-                            case 1: {
-                                mqTransProducer.commit(message.getReceiptHandle());
-                                log.info("producer {} commit message {}.", producerName, message.getMessageId());
-                            }
-                            break;
-                            case 0: {
-                                mqTransProducer.rollback(message.getReceiptHandle());
-                                log.info("producer {} rollback message {}.", producerName, message.getMessageId());
-                            }
-                            break;
-                            default:
-                                log.info("producer {} received half message {},but checker return status is {},so do nothing!", producerName, message.getMessageId(), status);
-                        }
-                    } catch (Throwable e) {
-                        // 如果Commit/Rollback时超过了TransCheckImmunityTime（针对发送事务消息的句柄）或者超过10s（针对consumeHalfMessage的句柄）则会失败
-                        log.error("commit or rollback half message error! message id is {},the key is {}.", message.getMessageId(), key, e);
-                    }
+                } else {
+                    deadlineTracker.stamp(messages, pullTime);
+                    receivedCount.addAndGet(messages.size());
+                    pendingCount.addAndGet(messages.size());
+                    resolved = checkAll(messages);
                 }
+                updateDrainRate(resolved, System.currentTimeMillis() - pullTime);
             } catch (Throwable e) {
                 log.error("pull half and check transaction status failed!", e);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取半消息回查状态快照
+     *
+     * @return HalfMsgCheckStats
+     */
+    public HalfMsgCheckStats getStats() {
+        HalfMsgCheckStats stats = new HalfMsgCheckStats();
+        stats.setProducerName(producerName);
+        stats.setTopic(topic);
+        stats.setReceivedCount(receivedCount.get());
+        stats.setCommitCount(commitCount.get());
+        stats.setRollbackCount(rollbackCount.get());
+        stats.setUnknownCount(unknownCount.get());
+        stats.setErrorCount(errorCount.get());
+        stats.setExpiredCount(deadlineTracker.getExpiredCount());
+        stats.setLateCount(deadlineTracker.getLateCount());
+        stats.setPendingCount(pendingCount.get());
+        stats.setDrainRate(drainRate);
+        return stats;
+    }
+
+    /**
+     * 检查一批半消息，有检查线程池时并行检查，等待整批完成
+     *
+     * @param messages 半消息
+     * @return 提交或回滚的消息数
+     */
+    private int checkAll(List<Message> messages) {
+        AtomicInteger resolved = new AtomicInteger();
+        if (null == checkExecutor || messages.size() == 1) {
+            for (Message message : messages) {
+                check(message, resolved);
+            }
+            return resolved.get();
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            try {
+                futures[i] = CompletableFuture.runAsync(() -> check(message, resolved), checkExecutor);
+            } catch (RejectedExecutionException e) {
+                //线程池已关闭时在当前线程检查
+                check(message, resolved);
+                futures[i] = CompletableFuture.completedFuture(null);
+            }
+        }
+        CompletableFuture.allOf(futures).join();
+        return resolved.get();
+    }
+
+    /**
+     * 检查一条半消息的事务状态并提交或回滚
+     *
+     * @param message  半消息
+     * @param resolved 提交或回滚的消息计数
+     */
+    private void check(Message message, AtomicInteger resolved) {
+        String key = message.getMessageKey();
+        try {
+            if (deadlineTracker.expired(message)) {
+                log.warn("producer {} skip half message {},receipt handle expired before check.", producerName, message.getMessageId());
+                return;
+            }
+            OnsMessageAudit.get().record("HTTP", OnsAuditEvent.HALF_MESSAGE, topic, message.getMessageTag(), key, message.getMessageId(), message.getMessageBodyBytes(), "publishTime", message.getPublishTime());
+            //检查事务状态，1提交，0回滚，其他不做任何操作
+            int status = checkStatus(message);
+            if (1 != status && 0 != status) {
+                unknownCount.incrementAndGet();
+                log.info("producer {} received half message {},but checker return status is {},so do nothing!", producerName, message.getMessageId(), status);
+                return;
+            }
+            if (deadlineTracker.late(message)) {
+                log.warn("producer {} can't {} half message {},receipt handle expired after check.", producerName, 1 == status ? "commit" : "rollback", message.getMessageId());
+                return;
+            }
+            if (1 == status) {
+                mqTransProducer.commit(message.getReceiptHandle());
+                commitCount.incrementAndGet();
+                OnsMessageAudit.get().record("HTTP", OnsAuditEvent.COMMIT, topic, message.getMessageTag(), key, message.getMessageId(), null, "producer", producerName);
+            } else {
+                mqTransProducer.rollback(message.getReceiptHandle());
+                rollbackCount.incrementAndGet();
+                OnsMessageAudit.get().record("HTTP", OnsAuditEvent.ROLLBACK, topic, message.getMessageTag(), key, message.getMessageId(), null, "producer", producerName);
+            }
+            resolved.incrementAndGet();
+        } catch (Throwable e) {
+            errorCount.incrementAndGet();
+            // 如果Commit/Rollback时超过了TransCheckImmunityTime（针对发送事务消息的句柄）或者超过10s（针对consumeHalfMessage的句柄）则会失败
+            log.error("commit or rollback half message error! message id is {},the key is {}.", message.getMessageId(), key, e);
+        } finally {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * 获取半消息的事务状态，先从本地事务结果日志中获取，未命中时调用检查接口
+     *
+     * @param message 半消息
+     * @return 1-commit,0-rollback,其他-什么也不做
+     */
+    private int checkStatus(Message message) {
+        OnsTransactionState state = null == journal ? null : journal.lookup(message.getMessageId());
+        if (null != state) {
+            return OnsTransactionState.COMMIT.equals(state) ? 1 : 0;
+        }
+        Map<String, String> custom = message.getProperties();
+        return halfMsgStatusChecker.checkTransactionStatus(message.getMessageKey(), custom);
+    }
+
+    /**
+     * 按本轮拉取和检查的耗时更新平滑速率
+     *
+     * @param resolved      本轮提交或回滚的消息数
+     * @param elapsedMillis 本轮耗时
+     */
+    private void updateDrainRate(int resolved, long elapsedMillis) {
+        double rate = resolved * 1000D / Math.max(1, elapsedMillis);
+        drainRate = 0 == drainRate ? rate : drainRate * 0.8 + rate * 0.2;
+    }
+}
@@ -1,6 +1,11 @@
 package io.github.yanglong.ons.http.producer;
 
+import io.github.yanglong.ons.commons.codec.OnsMessageCodecs;
+import io.github.yanglong.ons.commons.producer.OnsSendSpool;
+import io.github.yanglong.ons.commons.producer.OnsTransactionJournal;
 import io.github.yanglong.ons.commons.properties.OnsBaseConfig;
+import io.github.yanglong.ons.commons.properties.OnsJournalProperties;
+import io.github.yanglong.ons.commons.properties.OnsSpoolProperties;
 import io.github.yanglong.ons.commons.utils.OnsContextAware;
 import io.github.yanglong.ons.http.OnsHttpClientCache;
 import lombok.Data;
@@ -11,7 +16,6 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.TaskExecutor;
 
 /**
  * Description: ONS HTTP自动配置生产者
@@ -24,7 +28,7 @@ import org.springframework.core.task.TaskExecutor;
 @Data
 @Configuration
 @ConditionalOnProperty(prefix = "ali-ons", name = {"enable", "http.producer.enable"}, havingValue = "true")
-@ConditionalOnBean(name = {"taskExecutor", "onsContextAware"})
+@ConditionalOnBean(name = {"onsContextAware"})
 @EnableConfigurationProperties({HttpProducerConfig.class, OnsBaseConfig.class})
 public class HttpProducerAutoConfiguration {
     @Autowired
@@ -33,18 +37,26 @@ public class HttpProducerAutoConfiguration {
     private HttpProducerConfig httpProducerConfig;
     @Autowired
     private OnsContextAware onsContextAware;
-    @Autowired
-    private TaskExecutor taskExecutor;
 
-    @Bean
-    public HttpSender httpSender(HttpProducerFactory factory) {
-        return new HttpSender(factory);
+    @Bean(destroyMethod = "shutdown")
+    public HttpSender httpSender(HttpProducerFactory factory, OnsMessageCodecs codecs) {
+        OnsSpoolProperties spoolProperties = httpProducerConfig.getSpool();
+        OnsSendSpool spool = null;
+        if (null != spoolProperties && spoolProperties.isEnable()) {
+            spool = new OnsSendSpool("http", spoolProperties);
+        }
+        return new HttpSender(factory, spool, codecs);
     }
 
     @Bean(initMethod = "init", destroyMethod = "shutdown")
     public HttpProducerFactory onsHttpProducerFactory() {
         log.debug("config HttpProducerFactory.");
-        HttpProducerFactory factory = new HttpProducerFactory(OnsHttpClientCache.getCache(), onsBaseConfig.getDefaultAccess(), httpProducerConfig.getProducers(), onsContextAware, taskExecutor);
+        OnsJournalProperties journalProperties = httpProducerConfig.getJournal();
+        OnsTransactionJournal journal = null;
+        if (null != journalProperties && journalProperties.isEnable()) {
+            journal = new OnsTransactionJournal("http", journalProperties);
+        }
+        HttpProducerFactory factory = new HttpProducerFactory(OnsHttpClientCache.getCache(), onsBaseConfig.getDefaultAccess(), httpProducerConfig.getProducers(), onsContextAware, journal);
         log.debug("config HttpProducerFactory finished.");
         return factory;
     }
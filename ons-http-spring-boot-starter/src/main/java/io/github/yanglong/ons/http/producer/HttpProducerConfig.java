@@ -1,5 +1,7 @@
 package io.github.yanglong.ons.http.producer;
 
+import io.github.yanglong.ons.commons.properties.OnsJournalProperties;
+import io.github.yanglong.ons.commons.properties.OnsSpoolProperties;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
@@ -25,4 +27,14 @@ public class HttpProducerConfig {
      */
     @NestedConfigurationProperty
     private Map<String, HttpProducerProperties> producers;
+    /**
+     * 本地发送暂存配置，所有生产者共用
+     */
+    @NestedConfigurationProperty
+    private OnsSpoolProperties spool = new OnsSpoolProperties();
+    /**
+     * 本地事务结果日志配置，所有事务消息生产者共用
+     */
+    @NestedConfigurationProperty
+    private OnsJournalProperties journal = new OnsJournalProperties();
 }
@@ -3,23 +3,34 @@ package io.github.yanglong.ons.http.producer;
 import com.aliyun.mq.http.MQClient;
 import com.aliyun.mq.http.MQProducer;
 import com.aliyun.mq.http.MQTransProducer;
+import io.github.yanglong.ons.commons.metrics.OnsPoolStats;
+import io.github.yanglong.ons.commons.producer.OnsBodyCompressor;
+import io.github.yanglong.ons.commons.producer.OnsSendWindow;
+import io.github.yanglong.ons.commons.producer.OnsTransactionJournal;
 import io.github.yanglong.ons.commons.properties.MessageType;
 import io.github.yanglong.ons.commons.properties.OnsAccessProperties;
 import io.github.yanglong.ons.commons.utils.OnsContextAware;
+import io.github.yanglong.ons.commons.utils.OnsExecutors;
 import io.github.yanglong.ons.commons.utils.OnsStringUtils;
 import io.github.yanglong.ons.http.AbstractHttpClientFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.core.task.TaskExecutor;
 
 import javax.validation.constraints.NotEmpty;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Description: HTTP方式生产客户端生成
  *
  * 生成通用的MQClient和放入缓存，当发送消息时，用topic,group获取发送客户端，进行发送，同时缓存此客户端。
+ * 已创建的生产者直接从缓存中读取，不加锁；首次创建时按key原子创建，同一个key只会创建一次。
+ * 启用本地事务结果日志时，半消息回查先从日志中获取结果，未命中时再调用HalfMsgStatusChecker。
+ * 事务消息的半消息确认线程使用每个生产者配置独立的线程池运行，每个topic占用一个线程，topic数超过checkerPoolSize时线程池随之扩大；
+ * 确认线程无法启动时不缓存也不返回该生产者，避免发送的半消息无人确认。配置checkerParallelism时同名生产者的所有topic共用一个并行检查线程池。
  *
  * @author YangLong [410357434@163.com]
  * @version V1.0
@@ -32,23 +43,49 @@ public class HttpProducerFactory extends AbstractHttpClientFactory {
      */
     private final OnsContextAware onsContextAware;
     /**
-     * 线程池-用于提交消费线程，构造传入
+     * 事务消息生产者配置对应的半消息确认线程池，key为生产者名称
      */
-    private final TaskExecutor taskExecutor;
+    private final Map<String, ThreadPoolExecutor> checkerExecutors = new ConcurrentHashMap<>(8);
     /**
-     * 消息生产者缓存
+     * 事务消息生产者配置对应的并行检查线程池，checkerParallelism大于1时才有，key为生产者名称
      */
-    private final Map<String, MQProducer> producerContainer = new ConcurrentHashMap<>(16);
+    private final Map<String, ThreadPoolExecutor> checkExecutors = new ConcurrentHashMap<>(8);
+    /**
+     * 消息生产者缓存，key为生产者名称和topic
+     */
+    private final Map<HttpProducerKey, MQProducer> producerContainer = new ConcurrentHashMap<>(16);
 
     /**
-     * 管理事务状态确认线程
+     * 异步发送窗口，key为生产者名称，同名生产者的所有topic共用
+     */
+    private final Map<String, OnsSendWindow> sendWindows = new ConcurrentHashMap<>(8);
+    /**
+     * 生产者实例对应的异步发送窗口
+     */
+    private final Map<MQProducer, OnsSendWindow> producerWindows = new ConcurrentHashMap<>(16);
+    /**
+     * 生产者实例对应的消息体压缩配置，只有配置了压缩的生产者才有
+     */
+    private final Map<MQProducer, OnsBodyCompressor> producerCompressors = new ConcurrentHashMap<>(16);
+
+    /**
+     * 管理事务状态确认线程，key为生产者名称和topic
      */
     private final Map<String, HalfMsgConfirmRunnable> checkerContainer = new ConcurrentHashMap<>(16);
 
-    public HttpProducerFactory(Map<String, MQClient> clients, OnsAccessProperties accessProperties, Map<String, HttpProducerProperties> clientProperties, OnsContextAware onsContextAware, TaskExecutor taskExecutor) {
+    /**
+     * 本地事务结果日志，没有启用时为空
+     */
+    private final OnsTransactionJournal journal;
+
+    public HttpProducerFactory(Map<String, MQClient> clients, OnsAccessProperties accessProperties, Map<String, HttpProducerProperties> clientProperties, OnsContextAware onsContextAware) {
+        this(clients, accessProperties, clientProperties, onsContextAware, null);
+    }
+
+    public HttpProducerFactory(Map<String, MQClient> clients, OnsAccessProperties accessProperties, Map<String, HttpProducerProperties> clientProperties, OnsContextAware onsContextAware, OnsTransactionJournal journal) {
         super(clients, accessProperties, clientProperties);
         this.onsContextAware = onsContextAware;
-        this.taskExecutor = taskExecutor;
+        this.journal = journal;
     }
 
     @Override
@@ -58,7 +95,72 @@ public class HttpProducerFactory extends AbstractHttpClientFactory {
             log.info("stop transaction confirm thread for HTTP producer {}.", name);
             checker.setShutdown(true);
         });
+        checkerExecutors.values().forEach(ThreadPoolExecutor::shutdown);
+        checkExecutors.values().forEach(ThreadPoolExecutor::shutdown);
         super.shutdown();
+        if (null != journal) {
+            journal.close();
+        }
+    }
+
+    /**
+     * 获取各事务消息生产者半消息确认线程池的状态快照
+     *
+     * @return key为生产者名称
+     */
+    public Map<String, OnsPoolStats> getPoolStats() {
+        Map<String, OnsPoolStats> stats = new HashMap<>(checkerExecutors.size());
+        checkerExecutors.forEach((name, executor) -> stats.put(name, OnsPoolStats.of(name, executor)));
+        return stats;
+    }
+
+    /**
+     * 获取本地事务结果日志
+     *
+     * @return 没有启用时返回NULL
+     */
+    public OnsTransactionJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 获取各事务消息生产者的半消息回查状态，用于观察回查积压和处理速率
+     *
+     * @return key为生产者名称和topic
+     */
+    public Map<String, HalfMsgCheckStats> getHalfCheckStats() {
+        Map<String, HalfMsgCheckStats> stats = new HashMap<>(checkerContainer.size());
+        checkerContainer.forEach((key, checker) -> stats.put(key, checker.getStats()));
+        return stats;
+    }
+
+    /**
+     * 获取生产者实例的异步发送窗口
+     *
+     * @param producer 生产者实例
+     * @return 没有配置上限时返回NULL
+     */
+    public OnsSendWindow getSendWindow(MQProducer producer) {
+        return null == producer ? null : producerWindows.get(producer);
+    }
+
+    /**
+     * 获取生产者实例的消息体压缩配置
+     *
+     * @param producer 生产者实例
+     * @return 没有配置压缩时返回NULL
+     */
+    public OnsBodyCompressor getCompressor(MQProducer producer) {
+        return null == producer ? null : producerCompressors.get(producer);
+    }
+
+    /**
+     * 获取各生产者的异步发送窗口，用于观察处理中的消息数和字节数
+     *
+     * @return key为生产者名称
+     */
+    public Map<String, OnsSendWindow> getSendWindows() {
+        return new HashMap<>(sendWindows);
     }
 
     /**
@@ -67,46 +169,71 @@ public class HttpProducerFactory extends AbstractHttpClientFactory {
      * @param name  生产者名称
      * @param topic topic
      * @return MQProducer
+     * @throws IllegalStateException 事务消息生产者的半消息确认线程无法启动
      */
     public MQProducer getProducer(String name, @NotEmpty String topic) {
-        MQProducer producer = null;
         if (OnsStringUtils.isAllNotEmpty(name, topic)) {
-            synchronized (this) {
-                producer = producerContainer.computeIfAbsent(OnsStringUtils.generateKey(name, topic), key -> {
-                    MQProducer mqProducer = null;
-                    HttpProducerProperties properties = (HttpProducerProperties) commonProperties.get(name);
-                    if (null != properties) {
-                        String ak;
-                        String sk;
-                        OnsAccessProperties accessProperties = properties.getAccess();
-                        if (null == accessProperties) {
-                            ak = defaultAccessProperties.getAccessKey();
-                            sk = defaultAccessProperties.getSecretKey();
-                        } else {
-                            ak = accessProperties.getAccessKey();
-                            sk = accessProperties.getSecretKey();
-                        }
-                        MessageType messageType = properties.getMsgType();
-                        if (MessageType.TRANSACTION.equals(messageType)) {
-                            mqProducer = createTransactionProducer(ak, sk, properties.getNameServer(), properties.getInstanceId(), properties.getGroup(), topic);
-                            Class<HalfMsgStatusChecker> checkerClass = properties.getHttpTransChecker();
-                            if (null != checkerClass && HalfMsgStatusChecker.class.isAssignableFrom(checkerClass)) {
-                                HalfMsgStatusChecker checker = onsContextAware.getBean(checkerClass);
-                                this.applyChecker((MQTransProducer) mqProducer, name, checker, taskExecutor);
-                            } else {
-                                log.error("the HTTP transaction client {}，can't resolve HalfMsgStatusChecker,please confirm status in main thread by return receiptHandle.", name);
-                            }
-                        } else {
-                            mqProducer = createProducer(ak, sk, properties.getNameServer(), properties.getInstanceId(), topic);
-                        }
-                        log.info("create http MQProducer {}:{}", name, mqProducer.toString());
+            return getProducer(new HttpProducerKey(name, topic));
+        }
+        log.error("HTTP sender name and topic must not empty!");
+        return null;
+    }
+
+    /**
+     * 获取指定key的消息生产者，已创建时直接读取缓存，不加锁
+     *
+     * @param producerKey 生产者名称和topic
+     * @return MQProducer，没有对应配置时返回NULL
+     * @throws IllegalStateException 事务消息生产者的半消息确认线程无法启动，该生产者不缓存，下次获取时重试
+     */
+    public MQProducer getProducer(HttpProducerKey producerKey) {
+        MQProducer producer = producerContainer.get(producerKey);
+        if (null != producer) {
+            return producer;
+        }
+        final String name = producerKey.getName();
+        final String topic = producerKey.getTopic();
+        producer = producerContainer.computeIfAbsent(producerKey, key -> {
+            MQProducer mqProducer = null;
+            HttpProducerProperties properties = (HttpProducerProperties) commonProperties.get(name);
+            if (null != properties) {
+                String ak;
+                String sk;
+                OnsAccessProperties accessProperties = properties.getAccess();
+                if (null == accessProperties) {
+                    ak = defaultAccessProperties.getAccessKey();
+                    sk = defaultAccessProperties.getSecretKey();
+                } else {
+                    ak = accessProperties.getAccessKey();
+                    sk = accessProperties.getSecretKey();
+                }
+                MessageType messageType = properties.getMsgType();
+                if (MessageType.TRANSACTION.equals(messageType)) {
+                    mqProducer = createTransactionProducer(ak, sk, properties.getNameServer(), properties.getInstanceId(), properties.getGroup(), topic);
+                    Class<HalfMsgStatusChecker> checkerClass = properties.getHttpTransChecker();
+                    if (null != checkerClass && HalfMsgStatusChecker.class.isAssignableFrom(checkerClass)) {
+                        HalfMsgStatusChecker checker = onsContextAware.getBean(checkerClass);
+                        ThreadPoolExecutor executor = checkerExecutors.computeIfAbsent(name, k -> OnsExecutors.newBoundedPool("ons-http-half-" + k + "-", Math.max(1, properties.getCheckerPoolSize())));
+                        ThreadPoolExecutor checkExecutor = properties.getCheckerParallelism() > 1 ? checkExecutors.computeIfAbsent(name, k -> OnsExecutors.newFixedPool("ons-http-half-check-" + k + "-", properties.getCheckerParallelism())) : null;
+                        this.applyChecker((MQTransProducer) mqProducer, name, topic, checker, properties, executor, checkExecutor);
+                    } else {
+                        log.error("the HTTP transaction client {}，can't resolve HalfMsgStatusChecker,please confirm status in main thread by return receiptHandle.", name);
                     }
-                    return mqProducer;
-                });
+                } else {
+                    mqProducer = createProducer(ak, sk, properties.getNameServer(), properties.getInstanceId(), topic);
+                }
+                OnsSendWindow window = sendWindows.computeIfAbsent(name, k -> OnsSendWindow.of(k, properties));
+                if (null != window && null != mqProducer) {
+                    producerWindows.put(mqProducer, window);
+                }
+                OnsBodyCompressor compressor = OnsBodyCompressor.of(properties);
+                if (null != compressor && null != mqProducer) {
+                    producerCompressors.put(mqProducer, compressor);
+                }
+                log.info("create http MQProducer {}:{}", name, mqProducer.toString());
             }
-        } else {
-            log.error("HTTP sender name and topic must not empty!");
-        }
+            return mqProducer;
+        });
         return producer;
     }
 
@@ -178,18 +305,34 @@ public class HttpProducerFactory extends AbstractHttpClientFactory {
     }
 
     /**
-     * 事务消息发送者设置事务确认线程
+     * 事务消息发送者设置事务确认线程，确认线程常驻，线程池已满时扩大一个线程，无法启动时抛出异常
      *
      * @param transProducer 消息生产者
-     * @param checker       事务确认接口实现
      * @param name          名字
+     * @param topic         topic
+     * @param checker       事务确认接口实现
+     * @param properties    生产者配置
      * @param executor      线程池
+     * @param checkExecutor 并行检查线程池，为空时逐条检查
      */
-    private void applyChecker(MQTransProducer transProducer, final String name, HalfMsgStatusChecker checker, TaskExecutor executor) {
+    private void applyChecker(MQTransProducer transProducer, final String name, final String topic, HalfMsgStatusChecker checker, HttpProducerProperties properties, ThreadPoolExecutor executor, ThreadPoolExecutor checkExecutor) {
         if (null != transProducer && null != checker) {
-            HalfMsgConfirmRunnable runnable = new HalfMsgConfirmRunnable(name, transProducer, checker);
-            executor.execute(runnable);
-            checkerContainer.put(name, runnable);
+            HalfMsgConfirmRunnable runnable = new HalfMsgConfirmRunnable(name, transProducer, checker, properties, checkExecutor, journal);
+            try {
+                synchronized (executor) {
+                    //每个确认线程常驻，线程数达到上限时为新的topic扩大线程池，先扩大最大线程数再扩大核心线程数
+                    int size = executor.getPoolSize();
+                    if (size >= executor.getMaximumPoolSize()) {
+                        executor.setMaximumPoolSize(size + 1);
+                        executor.setCorePoolSize(size + 1);
+                        log.info("enlarge half message confirm pool of HTTP producer {} to {} for topic {}.", name, size + 1, topic);
+                    }
+                    executor.execute(runnable);
+                }
+                checkerContainer.put(name + "_" + topic, runnable);
+            } catch (RejectedExecutionException e) {
+                throw new IllegalStateException("can't start half message confirm thread for HTTP producer " + name + ",topic " + topic, e);
+            }
         }
     }
 }
\ No newline at end of file
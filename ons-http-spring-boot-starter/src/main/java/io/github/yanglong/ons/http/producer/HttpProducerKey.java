@@ -0,0 +1,58 @@
+package io.github.yanglong.ons.http.producer;
+
+import lombok.Getter;
+
+import java.util.Objects;
+
+/**
+ * Description: HTTP消息生产者缓存的key，由生产者名称和topic组成
+ *
+ * 不可变，hash在构造时计算，查找生产者时不需要拼接字符串和计算摘要。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Getter
+public final class HttpProducerKey {
+    /**
+     * 生产者名称
+     */
+    private final String name;
+    /**
+     * topic
+     */
+    private final String topic;
+    /**
+     * 预先计算的hash
+     */
+    private final int hash;
+
+    public HttpProducerKey(String name, String topic) {
+        this.name = name;
+        this.topic = topic;
+        this.hash = 31 * Objects.hashCode(name) + Objects.hashCode(topic);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HttpProducerKey)) {
+            return false;
+        }
+        HttpProducerKey other = (HttpProducerKey) o;
+        return hash == other.hash && Objects.equals(name, other.name) && Objects.equals(topic, other.topic);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name + "_" + topic;
+    }
+}
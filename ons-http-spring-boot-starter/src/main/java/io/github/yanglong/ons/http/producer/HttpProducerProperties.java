@@ -24,4 +24,28 @@ public class HttpProducerProperties extends OnsProducerProperties {
      * 可以使用自定义参数协助业务处理
      */
     private Class<HalfMsgStatusChecker> httpTransChecker;
+    /**
+     * HTTP事务消息模式下，半消息确认线程池大小，每个发送过事务消息的topic占用一个线程，topic数超过时自动扩大，默认4
+     */
+    private int checkerPoolSize = 4;
+    /**
+     * HTTP事务消息模式下，每次拉取的半消息数，最大16，默认3
+     */
+    private int halfBatchSize = 3;
+    /**
+     * HTTP事务消息模式下，拉取半消息的长轮询等待时间，单位秒，默认3
+     */
+    private int halfWaitSeconds = 3;
+    /**
+     * HTTP事务消息模式下，并行调用事务检查接口的线程数，同名生产者的所有topic共用，默认1即逐条检查
+     */
+    private int checkerParallelism = 1;
+    /**
+     * HTTP事务消息模式下，半消息句柄的有效时间，服务端未返回时使用，单位毫秒，默认10000
+     */
+    private long halfHandleTimeout = 10000;
+    /**
+     * HTTP事务消息模式下，句柄剩余有效时间小于此值时不再检查和提交/回滚，等待重新回查，单位毫秒，默认1000
+     */
+    private long halfHandleGuard = 1000;
 }
@@ -4,16 +4,48 @@ import com.aliyun.mq.http.MQProducer;
 import com.aliyun.mq.http.MQTransProducer;
 import com.aliyun.mq.http.model.AsyncCallback;
 import com.aliyun.mq.http.model.TopicMessage;
+import io.github.yanglong.ons.commons.audit.OnsAuditEvent;
+import io.github.yanglong.ons.commons.audit.OnsMessageAudit;
+import io.github.yanglong.ons.commons.codec.OnsCodecException;
+import io.github.yanglong.ons.commons.codec.OnsMessageCodecs;
+import io.github.yanglong.ons.commons.producer.OnsSendException;
+import io.github.yanglong.ons.commons.producer.OnsSendReceipt;
+import io.github.yanglong.ons.commons.producer.OnsSendSpool;
+import io.github.yanglong.ons.commons.producer.OnsSendWindow;
+import io.github.yanglong.ons.commons.producer.OnsSpoolRecord;
+import io.github.yanglong.ons.commons.producer.OnsTransactionJournal;
+import io.github.yanglong.ons.commons.producer.OnsTransactionState;
+import io.github.yanglong.ons.commons.properties.MessageType;
+import io.github.yanglong.ons.commons.utils.OnsBytes;
+import io.github.yanglong.ons.commons.utils.OnsFutures;
+import io.github.yanglong.ons.http.HttpMessageBodies;
 import io.github.yanglong.ons.http.OnsHttpException;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.CollectionUtils;
 
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Description: 封装HTTP发送消息方法，不封装异步发送
+ * Description: 封装HTTP发送消息方法
+ *
+ * sendAsync系列方法返回CompletableFuture，发送失败或超时时future异常完成，可以组合多个发送后统一等待。
+ * 生产者配置了异步发送上限时，异步发送先获取发送窗口，达到上限时按配置的策略阻塞、失败或在调用线程中同步发送。
+ * 普通、顺序、定时消息和sendAsync提供byte[]和ByteBuffer消息体的重载，已序列化的消息体直接发送，不再经过String转换。
+ * 生产者配置了压缩时，超过阈值的消息体压缩并Base64编码后发送，并通过消息属性标记压缩算法，由消费者自动解压。
+ * send和sendAsync可以直接发送对象，按类型选择MessageCodec编码，默认使用Jackson编码为JSON。
+ * 发送的消息通过OnsMessageAudit异步记录审计日志，是否记录消息体由ali-ons.audit配置决定，发送路径上不格式化消息体。
+ * 启用本地事务结果日志时，提交或回滚事务消息前按消息ID记录本地事务结果，半消息回查时优先从日志中获取。
+ * 启用本地发送暂存时，按生产者名称同步发送普通、顺序、延时和定时消息失败后，消息写入本地磁盘，由后台线程重新发送。
  *
  * @author YangLong [410357434@163.com]
  * @version V1.0
@@ -21,23 +53,191 @@ import java.util.Map;
  */
 @Slf4j
 public class HttpSender {
+    /**
+     * 审计日志中的客户端类型
+     */
+    private static final String CLIENT = "HTTP";
+    /**
+     * 等待提交或回滚的事务消息最大跟踪数，超过后淘汰最早的记录，被淘汰的事务回查由HalfMsgStatusChecker回答
+     */
+    private static final int MAX_PENDING_TRANSACTIONS = 65536;
     private final HttpProducerFactory httpProducerFactory;
+    /**
+     * 本地发送暂存，未启用时为空
+     */
+    private final OnsSendSpool spool;
+    /**
+     * 消息对象编解码器
+     */
+    private final OnsMessageCodecs codecs;
+    /**
+     * 启用本地事务结果日志时，等待提交或回滚的事务消息，key为receiptHandle，按发送顺序排列。
+     * 调用方放弃提交或回滚的事务不会被移除，超过日志保留时间或数量上限时淘汰最早的记录，访问时加锁
+     */
+    private final LinkedHashMap<String, PendingTransaction> pendingTransactions = new LinkedHashMap<>(64);
+    /**
+     * 因超过数量上限被淘汰的事务消息数
+     */
+    private final AtomicLong evictedTransactions = new AtomicLong();
 
     public HttpSender(HttpProducerFactory httpProducerFactory) {
+        this(httpProducerFactory, null);
+    }
+
+    public HttpSender(HttpProducerFactory httpProducerFactory, OnsSendSpool spool) {
+        this(httpProducerFactory, spool, OnsMessageCodecs.withDefaults(Collections.emptyList(), null));
+    }
+
+    public HttpSender(HttpProducerFactory httpProducerFactory, OnsSendSpool spool, OnsMessageCodecs codecs) {
         this.httpProducerFactory = httpProducerFactory;
+        this.spool = spool;
+        this.codecs = codecs;
+        if (null != spool) {
+            spool.start(this::replay);
+        }
+    }
+
+    /**
+     * 关闭本地发送暂存，未发送的消息在下次启动后继续发送
+     */
+    public void shutdown() {
+        if (null != spool) {
+            spool.close();
+        }
+    }
+
+    /**
+     * 获取本地发送暂存
+     *
+     * @return 未启用时为空
+     */
+    public OnsSendSpool getSpool() {
+        return spool;
+    }
+
+    /**
+     * 同步发送失败时写入本地发送暂存，没有对应生产者配置的消息不暂存
+     *
+     * @param producerName     消息生产者名字
+     * @param messageType      消息类型
+     * @param topic            topic
+     * @param tag              标签
+     * @param key              业务唯一键值
+     * @param shardingKey      分区标识，非顺序消息为空
+     * @param msg              消息
+     * @param startDeliverTime 定时投递时间，小于等于0时立即投递
+     */
+    private void spool(String producerName, MessageType messageType, String topic, String tag, String key, String shardingKey, String msg, long startDeliverTime) {
+        if (null != msg) {
+            spool(producerName, messageType, topic, tag, key, shardingKey, msg.getBytes(StandardCharsets.UTF_8), startDeliverTime);
+        }
     }
 
     /**
-     * 创建HTTP消息
+     * 同步发送失败时写入本地发送暂存，没有对应生产者配置的消息不暂存
      *
-     * @param tag 标签
-     * @param key 业务唯一键值
-     * @param msg 消息
+     * @param producerName     消息生产者名字
+     * @param messageType      消息类型
+     * @param topic            topic
+     * @param tag              标签
+     * @param key              业务唯一键值
+     * @param shardingKey      分区标识，非顺序消息为空
+     * @param body             消息体
+     * @param startDeliverTime 定时投递时间，小于等于0时立即投递
+     */
+    private void spool(String producerName, MessageType messageType, String topic, String tag, String key, String shardingKey, byte[] body, long startDeliverTime) {
+        if (null == spool || null == body || null == httpProducerFactory.getProducer(producerName, topic)) {
+            return;
+        }
+        OnsSpoolRecord record = OnsSpoolRecord.of(producerName, messageType, topic, tag, key, body);
+        record.setShardingKey(shardingKey);
+        record.setStartDeliverTime(startDeliverTime);
+        if (spool.append(record)) {
+            log.warn("ONS HTTP client spooled failed msg,will resend later.producer={},topic={},key={}", producerName, topic, key);
+        }
+    }
+
+    /**
+     * 重新发送暂存的消息，发送失败时抛出异常，生产者配置已不存在时丢弃消息
+     *
+     * @param record 暂存的消息
+     * @return 是否发送成功
+     */
+    private boolean replay(OnsSpoolRecord record) {
+        MQProducer producer = httpProducerFactory.getProducer(record.getProducerName(), record.getTopic());
+        if (null == producer) {
+            log.error("ONS HTTP client drop spooled msg,producer {} not exists.topic={},key={}", record.getProducerName(), record.getTopic(), record.getKey());
+            return true;
+        }
+        TopicMessage message = createMsg(producer, record.getKey(), record.getTag(), record.getBody());
+        if (null != record.getShardingKey()) {
+            message.setShardingKey(record.getShardingKey());
+        }
+        if (record.getStartDeliverTime() > 0) {
+            message.setStartDeliverTime(record.getStartDeliverTime());
+        }
+        TopicMessage sendResult = producer.publishMessage(message);
+        if (null == sendResult) {
+            return false;
+        }
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.RESEND_SUCCESS, record.getTopic(), record.getTag(), record.getKey(), sendResult.getMessageId(), null, "producer", record.getProducerName());
+        return true;
+    }
+
+    /**
+     * 获取消息生产者，调用方可以持有返回的生产者，使用以MQProducer为参数的发送方法，发送时不再查找生产者
+     *
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @return MQProducer，没有对应配置时返回NULL
+     */
+    public MQProducer getProducer(@NotEmpty final String producerName, @NotEmpty final String topic) {
+        return httpProducerFactory.getProducer(producerName, topic);
+    }
+
+    /**
+     * 创建HTTP消息，按生产者的压缩配置压缩消息体
+     *
+     * @param producer 生产者实例
+     * @param tag      标签
+     * @param key      业务唯一键值
+     * @param msg      消息
      * @return TopicMessage
      */
-    private TopicMessage createMsg(String key, String tag, String msg) {
+    private TopicMessage createMsg(MQProducer producer, String key, String tag, String msg) {
+        TopicMessage topicMessage = createMsg(key, tag, msg.getBytes(StandardCharsets.UTF_8));
+        HttpMessageBodies.compress(topicMessage, httpProducerFactory.getCompressor(producer));
+        return topicMessage;
+    }
+
+    /**
+     * 创建二进制消息体的HTTP消息，按生产者的压缩配置压缩，不压缩时Base64编码，消费端按标记还原原始字节
+     *
+     * @param producer 生产者实例
+     * @param tag      标签
+     * @param key      业务唯一键值
+     * @param body     消息体
+     * @return TopicMessage
+     */
+    private TopicMessage createMsg(MQProducer producer, String key, String tag, byte[] body) {
+        TopicMessage topicMessage = createMsg(key, tag, (byte[]) null);
+        HttpMessageBodies.encode(topicMessage, body, httpProducerFactory.getCompressor(producer));
+        return topicMessage;
+    }
+
+    /**
+     * 创建HTTP消息，直接使用传入的消息体，不复制，消息体为空时由调用方设置
+     *
+     * @param tag  标签
+     * @param key  业务唯一键值
+     * @param body 消息体
+     * @return TopicMessage
+     */
+    private TopicMessage createMsg(String key, String tag, byte[] body) {
         TopicMessage topicMessage = new TopicMessage();
-        topicMessage.setMessageBody(msg.getBytes(StandardCharsets.UTF_8));
+        if (null != body) {
+            topicMessage.setMessageBody(body);
+        }
         topicMessage.setMessageKey(key);
         topicMessage.setMessageTag(tag);
         return topicMessage;
@@ -55,9 +255,13 @@ public class HttpSender {
      * @see #sendMsg(MQProducer, String, String, String)
      */
     public String sendMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg) {
-        log.info("send HTTP mq normal message,producer name is {},message is[topic:{},tag:{},key:{},msg:{}]", producerName, topic, tag, key, msg);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND, topic, tag, key, null, msg);
         MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
-        return this.sendMsg(producer, tag, key, msg);
+        String msgId = this.sendMsg(producer, tag, key, msg);
+        if (null == msgId) {
+            spool(producerName, MessageType.NORMAL, topic, tag, key, null, msg, 0);
+        }
+        return msgId;
     }
 
     /**
@@ -72,11 +276,87 @@ public class HttpSender {
      * @see #sendAsyncMsg(MQProducer, String, String, String, AsyncCallback)
      */
     public void sendAsyncMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final AsyncCallback<TopicMessage> callback) {
-        log.info("send HTTP mq async message,producer name is {},message is[topic:{},tag:{},key:{},msg:{}]", producerName, topic, tag, key, msg);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ASYNC, topic, tag, key, null, msg);
         MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
         this.sendAsyncMsg(producer, tag, key, msg, callback);
     }
 
+    /**
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param msg          消息
+     * @return 发送结果
+     * @see #sendAsync(MQProducer, String, String, String, long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg) {
+        return sendAsync(producerName, topic, tag, key, msg, 0);
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see #sendAsync(MQProducer, String, String, String, long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long timeoutMillis) {
+        MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
+        return this.sendAsync(producer, tag, key, msg, timeoutMillis);
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param shardingKey   分区标识
+     * @param msg           消息
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see #sendOrderAsync(MQProducer, String, String, String, String, long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendOrderAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String shardingKey, @NotEmpty final String msg, final long timeoutMillis) {
+        MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
+        return this.sendOrderAsync(producer, tag, key, shardingKey, msg, timeoutMillis);
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param delayTime     延迟毫秒数
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see #sendTimeAsync(MQProducer, String, String, String, long, long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendDelayAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long delayTime, final long timeoutMillis) {
+        MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
+        return this.sendTimeAsync(producer, tag, key, msg, System.currentTimeMillis() + delayTime, timeoutMillis);
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param timestamp     投递消息时间的UNIX时间戳
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see #sendTimeAsync(MQProducer, String, String, String, long, long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendTimeAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long timestamp, final long timeoutMillis) {
+        MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
+        return this.sendTimeAsync(producer, tag, key, msg, timestamp, timeoutMillis);
+    }
+
     /**
      * 发送顺序消息
      *
@@ -90,9 +370,13 @@ public class HttpSender {
      * @see #sendOrderMsg(MQProducer, String, String, String, String)
      */
     public String sendOrderMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String shardingKey, @NotEmpty final String msg) {
-        log.info("send HTTP mq order message,producer name is {},message is[topic:{},tag:{},key:{},shardingKey:{},msg:{}]", producerName, topic, tag, key, shardingKey, msg);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ORDER, topic, tag, key, null, msg, "shardingKey", shardingKey);
         MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
-        return this.sendOrderMsg(producer, tag, key, shardingKey, msg);
+        String msgId = this.sendOrderMsg(producer, tag, key, shardingKey, msg);
+        if (null == msgId) {
+            spool(producerName, MessageType.ORDER, topic, tag, key, shardingKey, msg, 0);
+        }
+        return msgId;
     }
 
     /**
@@ -108,7 +392,7 @@ public class HttpSender {
      * @see #sendTransactionMsg(MQProducer, String, String, String, Map)
      */
     public String sendTransactionMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, Map<String, String> custom) {
-        log.info("send HTTP mq transaction message,producer name is {},message is [topic:{},tag:{},key:{},msg:{}]", producerName, topic, tag, key, msg);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_TRANSACTION, topic, tag, key, null, msg);
         MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
         return this.sendTransactionMsg(producer, tag, key, msg, custom);
     }
@@ -151,9 +435,14 @@ public class HttpSender {
      * @return msgId，失败返回NULL
      */
     public String sendDelayMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long delayTime) {
-        log.info("send HTTP mq delay message,producer name is {},message is[topic:{},tag:{},key:{},msg:{},delayTime:{}]", producerName, topic, tag, key, msg, delayTime);
         MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
-        return this.sendDelayMsg(producer, tag, key, msg, delayTime);
+        long timestamp = System.currentTimeMillis() + delayTime;
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_TIMING, topic, tag, key, null, msg, "timestamp", timestamp);
+        String msgId = this.sendTimeMsg(producer, tag, key, msg, timestamp);
+        if (null == msgId) {
+            spool(producerName, MessageType.NORMAL, topic, tag, key, null, msg, timestamp);
+        }
+        return msgId;
     }
 
     /**
@@ -168,9 +457,180 @@ public class HttpSender {
      * @return msgId，失败返回NULL
      */
     public String sendTimeMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long timestamp) {
-        log.info("send HTTP mq timing message,producer name is {},message is[topic:{},tag:{},key:{},msg:{},timestamp:{}]", producerName, topic, tag, key, msg, timestamp);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_TIMING, topic, tag, key, null, msg, "timestamp", timestamp);
         MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
-        return this.sendTimeMsg(producer, tag, key, msg, timestamp);
+        String msgId = this.sendTimeMsg(producer, tag, key, msg, timestamp);
+        if (null == msgId) {
+            spool(producerName, MessageType.NORMAL, topic, tag, key, null, msg, timestamp);
+        }
+        return msgId;
+    }
+
+    /**
+     * 同步发送普通消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param body         消息体
+     * @return msgId，失败返回NULL
+     * @see #sendMsg(MQProducer, String, String, byte[])
+     */
+    public String sendMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final byte[] body) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND, topic, tag, key, null, body);
+        MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
+        String msgId = this.sendMsg(producer, tag, key, body);
+        if (null == msgId) {
+            spool(producerName, MessageType.NORMAL, topic, tag, key, null, body, 0);
+        }
+        return msgId;
+    }
+
+    /**
+     * 同步发送普通消息
+     *
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param body         消息体，发送position到limit之间的字节，不改变position
+     * @return msgId，失败返回NULL
+     * @see OnsBytes#toBytes(ByteBuffer)
+     */
+    public String sendMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final ByteBuffer body) {
+        return this.sendMsg(producerName, topic, tag, key, OnsBytes.toBytes(body));
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param body          消息体，直接作为消息内容发送，发送完成前不能修改
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see #sendAsync(MQProducer, String, String, byte[], long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final byte[] body, final long timeoutMillis) {
+        MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
+        return this.sendAsync(producer, tag, key, body, timeoutMillis);
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param body          消息体，发送position到limit之间的字节，不改变position，future完成前不能修改或归还
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see OnsBytes#toBytes(ByteBuffer)
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final ByteBuffer body, final long timeoutMillis) {
+        return this.sendAsync(producerName, topic, tag, key, OnsBytes.toBytes(body), timeoutMillis);
+    }
+
+    /**
+     * 发送消息对象，按payload的运行时类型选择MessageCodec编码后作为普通消息发送，编码器按类型缓存
+     *
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param payload      消息对象
+     * @param <T>          消息对象类型
+     * @return msgId，编码或发送失败返回NULL
+     * @see OnsMessageCodecs
+     */
+    public <T> String send(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final T payload) {
+        byte[] body = encode(producerName, topic, key, payload);
+        return null == body ? null : this.sendMsg(producerName, topic, tag, key, body);
+    }
+
+    /**
+     * 异步发送消息对象，编码失败时future以OnsCodecException异常完成
+     *
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param payload       消息对象
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @param <T>           消息对象类型
+     * @return 发送结果
+     * @see #send(String, String, String, String, Object)
+     */
+    public <T> CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final T payload, final long timeoutMillis) {
+        byte[] body;
+        try {
+            body = codecs.encode(payload);
+        } catch (OnsCodecException e) {
+            return OnsFutures.failed(e);
+        }
+        return this.sendAsync(producerName, topic, tag, key, body, timeoutMillis);
+    }
+
+    /**
+     * 编码消息对象，失败时记录日志
+     *
+     * @param producerName 消息生产者名字
+     * @param topic        topic
+     * @param key          业务唯一键值
+     * @param payload      消息对象
+     * @return 消息体，失败返回NULL
+     */
+    private byte[] encode(final String producerName, final String topic, final String key, final Object payload) {
+        try {
+            return codecs.encode(payload);
+        } catch (OnsCodecException e) {
+            log.error("ONS HTTP client can't encode msg.producer={},topic={},key={}", producerName, topic, key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 发送顺序消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param shardingKey  分区标识
+     * @param body         消息体
+     * @return msgId，失败返回NULL
+     * @see #sendOrderMsg(MQProducer, String, String, String, byte[])
+     */
+    public String sendOrderMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String shardingKey, @NotNull final byte[] body) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ORDER, topic, tag, key, null, body, "shardingKey", shardingKey);
+        MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
+        String msgId = this.sendOrderMsg(producer, tag, key, shardingKey, body);
+        if (null == msgId) {
+            spool(producerName, MessageType.ORDER, topic, tag, key, shardingKey, body, 0);
+        }
+        return msgId;
+    }
+
+    /**
+     * 发送定时消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param body         消息体
+     * @param timestamp    投递消息时间的UNIX时间戳
+     * @return msgId，失败返回NULL
+     * @see #sendTimeMsg(MQProducer, String, String, byte[], long)
+     */
+    public String sendTimeMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final byte[] body, final long timestamp) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_TIMING, topic, tag, key, null, body, "timestamp", timestamp);
+        MQProducer producer = httpProducerFactory.getProducer(producerName, topic);
+        String msgId = this.sendTimeMsg(producer, tag, key, body, timestamp);
+        if (null == msgId) {
+            spool(producerName, MessageType.NORMAL, topic, tag, key, null, body, timestamp);
+        }
+        return msgId;
     }
 
     /**
@@ -185,18 +645,18 @@ public class HttpSender {
     public String sendMsg(MQProducer producer, final String tag, @NotEmpty final String key, @NotEmpty final String msg) {
         String msgId = null;
         if (null != producer) {
-            TopicMessage message = createMsg(key, tag, msg);
+            TopicMessage message = createMsg(producer, key, tag, msg);
             try {
                 TopicMessage sendResult = producer.publishMessage(message);
                 if (null != sendResult) {
                     msgId = sendResult.getMessageId();
-                    log.info("ONS HTTP client send sync message success. topic={}, msgId={}", producer.getTopicName(), msgId);
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, producer.getTopicName(), tag, key, msgId, null);
                 }
             } catch (Exception e) {
-                log.error("ONS HTTP client can't send sync msg,the msg is [topic:{},tag:{},key:{},msg:{}]", producer.getTopicName(), tag, key, msg, e);
+                log.error("ONS HTTP client can't send sync msg,the msg is [topic:{},tag:{},key:{},bodyLength:{}]", producer.getTopicName(), tag, key, StringUtils.length(msg), e);
             }
         } else {
-            log.error("ONS HTTP client can't send sync msg,the producer not ready,the msg is [tag:{},key:{},msg:{}]", tag, key, msg);
+            log.error("ONS HTTP client can't send sync msg,the producer not ready,the msg is [tag:{},key:{},bodyLength:{}]", tag, key, StringUtils.length(msg));
         }
         return msgId;
     }
@@ -212,13 +672,142 @@ public class HttpSender {
      */
     public void sendAsyncMsg(MQProducer producer, final String tag, final String key, @NotEmpty final String msg, final AsyncCallback<TopicMessage> callback) {
         if (null != producer) {
-            TopicMessage message = createMsg(key, tag, msg);
+            TopicMessage message = createMsg(producer, key, tag, msg);
             // 异步发送消息，发送结果通过callback返回给客户端。
-            producer.asyncPublishMessage(message, callback);
-            // 在callback返回之前即可取得msgId。
-            log.info("ONS HTTP client send async message success. key={},msg={}, msgId={}", key, msg, message.getMessageId());
+            sendAsyncWithWindow(producer, message, callback);
         } else {
-            log.error("ONS HTTP client can't send async msg,the producer not ready,the msg is [tag:{},key:{},msg:{}]", tag, key, msg);
+            log.error("ONS HTTP client can't send async msg,the producer not ready,the msg is [tag:{},key:{},bodyLength:{}]", tag, key, StringUtils.length(msg));
+        }
+    }
+
+    /**
+     * 异步发送MQ普通消息，返回的future在发送成功时完成，失败或超时时异常完成
+     *
+     * @param producer      客户端
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置。超时不会取消实际的发送
+     * @return 发送结果
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(MQProducer producer, final String tag, final String key, @NotEmpty final String msg, final long timeoutMillis) {
+        return doSendAsync(producer, createMsg(producer, key, tag, msg), key, timeoutMillis);
+    }
+
+    /**
+     * 异步发送顺序消息，返回的future在发送成功时完成，失败或超时时异常完成
+     *
+     * @param producer      客户端
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param shardingKey   分片key
+     * @param msg           消息
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置。超时不会取消实际的发送
+     * @return 发送结果
+     */
+    public CompletableFuture<OnsSendReceipt> sendOrderAsync(MQProducer producer, final String tag, final String key, @NotEmpty final String shardingKey, @NotEmpty final String msg, final long timeoutMillis) {
+        TopicMessage message = createMsg(producer, key, tag, msg);
+        message.setShardingKey(shardingKey);
+        return doSendAsync(producer, message, key, timeoutMillis);
+    }
+
+    /**
+     * 异步发送定时消息，返回的future在发送成功时完成，失败或超时时异常完成
+     *
+     * @param producer      客户端
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param timestamp     时间戳，时间的UNIX时间毫秒数
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置。超时不会取消实际的发送
+     * @return 发送结果
+     */
+    public CompletableFuture<OnsSendReceipt> sendTimeAsync(MQProducer producer, final String tag, final String key, @NotEmpty final String msg, final long timestamp, final long timeoutMillis) {
+        TopicMessage message = createMsg(producer, key, tag, msg);
+        message.setStartDeliverTime(timestamp);
+        return doSendAsync(producer, message, key, timeoutMillis);
+    }
+
+    /**
+     * 异步发送消息，将AsyncCallback转换为CompletableFuture
+     *
+     * @param producer      客户端
+     * @param message       消息
+     * @param key           业务唯一键值
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     */
+    private CompletableFuture<OnsSendReceipt> doSendAsync(MQProducer producer, final TopicMessage message, final String key, final long timeoutMillis) {
+        if (null == producer) {
+            log.error("ONS HTTP client can't send async msg,the producer not ready,the msg is [tag:{},key:{}]", message.getMessageTag(), key);
+            return OnsFutures.failed(new OnsSendException("HTTP producer is not ready"));
+        }
+        final String topic = producer.getTopicName();
+        CompletableFuture<OnsSendReceipt> future = new CompletableFuture<>();
+        sendAsyncWithWindow(producer, message, new AsyncCallback<TopicMessage>() {
+            @Override
+            public void onSuccess(TopicMessage result) {
+                OnsSendReceipt receipt = OnsSendReceipt.of(topic, result.getMessageId(), key);
+                receipt.setReceiptHandle(result.getReceiptHandle());
+                future.complete(receipt);
+            }
+
+            @Override
+            public void onFail(Exception e) {
+                log.error("ONS HTTP client send async msg failed,the msg is [topic:{},tag:{},key:{}]", topic, message.getMessageTag(), key, e);
+                future.completeExceptionally(new OnsSendException("HTTP send failed,topic is " + topic, e));
+            }
+        });
+        return OnsFutures.withTimeout(future, timeoutMillis);
+    }
+
+    /**
+     * 获取发送窗口后异步发送，发送结果返回后释放窗口。没有配置上限时直接发送。
+     * 被拒绝或发送调用异常时，通过callback的onFail通知调用方
+     *
+     * @param producer 客户端
+     * @param message  消息
+     * @param callback 回调
+     */
+    private void sendAsyncWithWindow(MQProducer producer, final TopicMessage message, final AsyncCallback<TopicMessage> callback) {
+        final OnsSendWindow window = httpProducerFactory.getSendWindow(producer);
+        final int bytes = null == message.getMessageBodyBytes() ? 0 : message.getMessageBodyBytes().length;
+        OnsSendWindow.Admission admission = null == window ? OnsSendWindow.Admission.ACQUIRED : window.acquire(bytes);
+        if (OnsSendWindow.Admission.REJECTED.equals(admission)) {
+            log.error("ONS HTTP client async send rejected,producer {} has {} messages in flight.", window.getName(), window.getInFlight());
+            callback.onFail(new OnsSendException("async send rejected,too many messages in flight for producer " + window.getName()));
+            return;
+        }
+        if (OnsSendWindow.Admission.CALLER_RUNS.equals(admission)) {
+            //窗口已满，在调用线程中同步发送
+            TopicMessage result;
+            try {
+                result = producer.publishMessage(message);
+            } catch (Exception e) {
+                callback.onFail(e);
+                return;
+            }
+            callback.onSuccess(result);
+            return;
+        }
+        AsyncCallback<TopicMessage> releaseCallback = null == window ? callback : new AsyncCallback<TopicMessage>() {
+            @Override
+            public void onSuccess(TopicMessage result) {
+                window.release(bytes);
+                callback.onSuccess(result);
+            }
+
+            @Override
+            public void onFail(Exception e) {
+                window.release(bytes);
+                callback.onFail(e);
+            }
+        };
+        try {
+            producer.asyncPublishMessage(message, releaseCallback);
+        } catch (Exception e) {
+            log.error("ONS HTTP client can't send async msg,the msg is [topic:{},tag:{}]", producer.getTopicName(), message.getMessageTag(), e);
+            releaseCallback.onFail(e);
         }
     }
 
@@ -237,19 +826,19 @@ public class HttpSender {
     public String sendOrderMsg(MQProducer producer, final String tag, @NotEmpty final String key, @NotEmpty final String shardingKey, @NotEmpty final String msg) {
         String msgId = null;
         if (null != producer) {
-            TopicMessage message = createMsg(key, tag, msg);
+            TopicMessage message = createMsg(producer, key, tag, msg);
             message.setShardingKey(shardingKey);
             try {
                 TopicMessage sendResult = producer.publishMessage(message);
                 if (sendResult != null) {
                     msgId = sendResult.getMessageId();
-                    log.info("ONS HTTP client send order message success. msgId={},msg={}", msgId, msg);
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, producer.getTopicName(), tag, key, msgId, null);
                 }
             } catch (Exception e) {
-                log.error("ONS HTTP client can't send order msg,the msg is [tag:{},key:{},shardingKey:{},msg:{}]", tag, key, shardingKey, msg, e);
+                log.error("ONS HTTP client can't send order msg,the msg is [tag:{},key:{},shardingKey:{},bodyLength:{}]", tag, key, shardingKey, StringUtils.length(msg), e);
             }
         } else {
-            log.error("ONS HTTP client can't send order msg,the producer not ready,the msg is [tag:{},key:{},shardingKey:{},msg:{}]", tag, key, shardingKey, msg);
+            log.error("ONS HTTP client can't send order msg,the producer not ready,the msg is [tag:{},key:{},shardingKey:{},bodyLength:{}]", tag, key, shardingKey, StringUtils.length(msg));
         }
         return msgId;
     }
@@ -267,7 +856,7 @@ public class HttpSender {
     public String sendTransactionMsg(MQProducer producer, final String tag, @NotEmpty final String key, @NotEmpty final String msg, Map<String, String> custom) {
         String receiptHandle = null;
         if (null != producer) {
-            TopicMessage message = createMsg(key, tag, msg);
+            TopicMessage message = createMsg(producer, key, tag, msg);
             // 设置事务第一次回查的时间，为相对时间，单位：秒，范围为10~300s之间
             // 第一次事务回查后如果消息没有commit或者rollback，则之后每隔10s左右会回查一次，总共回查一天
             message.setTransCheckImmunityTime(10);
@@ -280,13 +869,14 @@ public class HttpSender {
                 if (sendResult != null) {
                     msgId = sendResult.getMessageId();
                     receiptHandle = sendResult.getReceiptHandle();
-                    log.info("ONS HTTP client send transaction message success. msgId={},key={},receiptHandle={}", msgId, key, receiptHandle);
+                    track(receiptHandle, msgId);
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, producer.getTopicName(), tag, key, msgId, null);
                 }
             } catch (Exception e) {
-                log.error("ONS HTTP client can't send transaction msg,the msg is [tag:{},key:{},msg:{}]", tag, key, msg, e);
+                log.error("ONS HTTP client can't send transaction msg,the msg is [tag:{},key:{},bodyLength:{}]", tag, key, StringUtils.length(msg), e);
             }
         } else {
-            log.error("ONS HTTP client can't send transaction msg,the producer not ready,the msg is [tag:{},key:{},msg:{}]", tag, key, msg);
+            log.error("ONS HTTP client can't send transaction msg,the producer not ready,the msg is [tag:{},key:{},bodyLength:{}]", tag, key, StringUtils.length(msg));
         }
         return receiptHandle;
     }
@@ -300,6 +890,7 @@ public class HttpSender {
      */
     public void commitMsg(MQProducer producer, @NotEmpty final String receiptHandle) throws Exception {
         if (producer instanceof MQTransProducer) {
+            journal(receiptHandle, OnsTransactionState.COMMIT);
             ((MQTransProducer) producer).commit(receiptHandle);
         } else {
             throw new OnsHttpException("producer is null or not a MQTransProducer!");
@@ -315,12 +906,88 @@ public class HttpSender {
      */
     public void rollbackMsg(MQProducer producer, @NotEmpty final String receiptHandle) throws Exception {
         if (producer instanceof MQTransProducer) {
+            journal(receiptHandle, OnsTransactionState.ROLLBACK);
             ((MQTransProducer) producer).rollback(receiptHandle);
         } else {
             throw new OnsHttpException("producer is null or not a MQTransProducer!");
         }
     }
 
+    /**
+     * 启用本地事务结果日志时，在提交或回滚前记录本地事务结果，提交或回滚请求失败时回查可以从日志中获取结果
+     *
+     * @param receiptHandle 发送事务消息返回的receiptHandle
+     * @param state         本地事务结果
+     */
+    private void journal(String receiptHandle, OnsTransactionState state) {
+        OnsTransactionJournal journal = httpProducerFactory.getJournal();
+        if (null == journal || null == receiptHandle) {
+            return;
+        }
+        PendingTransaction pending;
+        synchronized (pendingTransactions) {
+            pending = pendingTransactions.remove(receiptHandle);
+        }
+        if (null != pending) {
+            journal.record(pending.msgId, state);
+        }
+    }
+
+    /**
+     * 启用本地事务结果日志时，记录等待提交或回滚的事务消息，同时淘汰超过日志保留时间的记录，达到数量上限时淘汰最早的记录
+     *
+     * @param receiptHandle 发送事务消息返回的receiptHandle
+     * @param msgId         消息ID
+     */
+    private void track(String receiptHandle, String msgId) {
+        OnsTransactionJournal journal = httpProducerFactory.getJournal();
+        if (null == journal || null == receiptHandle || null == msgId) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expireBefore = now - journal.getRetentionMillis();
+        boolean evicted = false;
+        synchronized (pendingTransactions) {
+            Iterator<PendingTransaction> iterator = pendingTransactions.values().iterator();
+            while (iterator.hasNext()) {
+                PendingTransaction eldest = iterator.next();
+                boolean full = pendingTransactions.size() >= MAX_PENDING_TRANSACTIONS;
+                if (!full && eldest.timestamp >= expireBefore) {
+                    break;
+                }
+                iterator.remove();
+                evicted |= full && eldest.timestamp >= expireBefore;
+            }
+            pendingTransactions.put(receiptHandle, new PendingTransaction(msgId, now));
+        }
+        if (evicted) {
+            long count = evictedTransactions.incrementAndGet();
+            if (1 == count % MAX_PENDING_TRANSACTIONS) {
+                log.warn("ONS HTTP client has more than {} transactions waiting for commit or rollback,{} evicted so far,their check-backs fall back to the checker.", MAX_PENDING_TRANSACTIONS, count);
+            }
+        }
+    }
+
+    /**
+     * 获取因超过数量上限被淘汰的等待提交或回滚的事务消息数
+     *
+     * @return 消息数
+     */
+    public long getEvictedTransactionCount() {
+        return evictedTransactions.get();
+    }
+
+    /**
+     * 获取等待提交或回滚的事务消息数
+     *
+     * @return 消息数
+     */
+    public int getPendingTransactionCount() {
+        synchronized (pendingTransactions) {
+            return pendingTransactions.size();
+        }
+    }
+
     /**
      * 发送延时消息，实际使用的是发送定时消息
      *
@@ -334,7 +1001,6 @@ public class HttpSender {
      */
     public String sendDelayMsg(MQProducer producer, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long delayTime) {
         long timestamp = System.currentTimeMillis() + delayTime;
-        log.info("cast delayTime={} to timestamp={},[tag:{},key:{},msg:{}].", delayTime, timestamp, tag, key, msg);
         return this.sendTimeMsg(producer, tag, key, msg, timestamp);
     }
 
@@ -353,20 +1019,135 @@ public class HttpSender {
     public String sendTimeMsg(MQProducer producer, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long timestamp) {
         String msgId = null;
         if (null != producer) {
-            TopicMessage message = createMsg(key, tag, msg);
+            TopicMessage message = createMsg(producer, key, tag, msg);
             message.setStartDeliverTime(timestamp);
             try {
                 TopicMessage sendResult = producer.publishMessage(message);
                 if (null != sendResult) {
                     msgId = sendResult.getMessageId();
-                    log.info("ONS HTTP client send timing message success. message is [msgId:{},tag:{},key:{},msg:{},timestamp:{}]", msgId, tag, key, msg, timestamp);
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, producer.getTopicName(), tag, key, msgId, null);
+                }
+            } catch (Exception e) {
+                log.error("ONS HTTP client can't send timing msg,the msg is [tag:{},key:{},bodyLength:{},timestamp={}]", tag, key, StringUtils.length(msg), timestamp, e);
+            }
+        } else {
+            log.error("ONS HTTP client can't send timing msg,the producer not ready,the msg is [tag:{},key:{},bodyLength:{},timestamp={}]", tag, key, StringUtils.length(msg), timestamp);
+        }
+        return msgId;
+    }
+
+    /**
+     * 同步发送MQ普通消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producer 客户端
+     * @param tag      标签
+     * @param key      业务唯一键值
+     * @param body     消息体
+     * @return msgId，失败返回NULL
+     */
+    public String sendMsg(MQProducer producer, final String tag, @NotEmpty final String key, @NotNull final byte[] body) {
+        String msgId = null;
+        if (null != producer) {
+            TopicMessage message = createMsg(producer, key, tag, body);
+            try {
+                TopicMessage sendResult = producer.publishMessage(message);
+                if (null != sendResult) {
+                    msgId = sendResult.getMessageId();
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, producer.getTopicName(), tag, key, msgId, null);
                 }
             } catch (Exception e) {
-                log.error("ONS HTTP client can't send timing msg,the msg is [tag:{},key:{},msg:{},timestamp={}]", tag, key, msg, timestamp, e);
+                log.error("ONS HTTP client can't send sync msg,the msg is [topic:{},tag:{},key:{},bodyBytes:{}]", producer.getTopicName(), tag, key, body.length, e);
             }
         } else {
-            log.error("ONS HTTP client can't send timing msg,the producer not ready,the msg is [tag:{},key:{},msg:{},timestamp={}]", tag, key, msg, timestamp);
+            log.error("ONS HTTP client can't send sync msg,the producer not ready,the msg is [tag:{},key:{},bodyBytes:{}]", tag, key, body.length);
         }
         return msgId;
     }
+
+    /**
+     * 异步发送MQ普通消息，消息体直接作为消息内容发送，future完成前不能修改
+     *
+     * @param producer      客户端
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param body          消息体
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(MQProducer producer, final String tag, final String key, @NotNull final byte[] body, final long timeoutMillis) {
+        return doSendAsync(producer, createMsg(producer, key, tag, body), key, timeoutMillis);
+    }
+
+    /**
+     * 发送顺序消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producer    客户端
+     * @param tag         标签
+     * @param key         业务唯一键值
+     * @param shardingKey 分片key
+     * @param body        消息体
+     * @return msgId，失败返回NULL
+     */
+    public String sendOrderMsg(MQProducer producer, final String tag, @NotEmpty final String key, @NotEmpty final String shardingKey, @NotNull final byte[] body) {
+        String msgId = null;
+        if (null != producer) {
+            TopicMessage message = createMsg(producer, key, tag, body);
+            message.setShardingKey(shardingKey);
+            try {
+                TopicMessage sendResult = producer.publishMessage(message);
+                if (sendResult != null) {
+                    msgId = sendResult.getMessageId();
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, producer.getTopicName(), tag, key, msgId, null);
+                }
+            } catch (Exception e) {
+                log.error("ONS HTTP client can't send order msg,the msg is [tag:{},key:{},shardingKey:{},bodyBytes:{}]", tag, key, shardingKey, body.length, e);
+            }
+        } else {
+            log.error("ONS HTTP client can't send order msg,the producer not ready,the msg is [tag:{},key:{},shardingKey:{},bodyBytes:{}]", tag, key, shardingKey, body.length);
+        }
+        return msgId;
+    }
+
+    /**
+     * 发送定时消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producer  客户端
+     * @param tag       标签
+     * @param key       业务唯一键值
+     * @param body      消息体
+     * @param timestamp 时间戳，时间的UNIX时间毫秒数
+     * @return msgId，失败返回NULL
+     */
+    public String sendTimeMsg(MQProducer producer, final String tag, @NotEmpty final String key, @NotNull final byte[] body, final long timestamp) {
+        String msgId = null;
+        if (null != producer) {
+            TopicMessage message = createMsg(producer, key, tag, body);
+            message.setStartDeliverTime(timestamp);
+            try {
+                TopicMessage sendResult = producer.publishMessage(message);
+                if (null != sendResult) {
+                    msgId = sendResult.getMessageId();
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, producer.getTopicName(), tag, key, msgId, null);
+                }
+            } catch (Exception e) {
+                log.error("ONS HTTP client can't send timing msg,the msg is [tag:{},key:{},bodyBytes:{},timestamp={}]", tag, key, body.length, timestamp, e);
+            }
+        } else {
+            log.error("ONS HTTP client can't send timing msg,the producer not ready,the msg is [tag:{},key:{},bodyBytes:{},timestamp={}]", tag, key, body.length, timestamp);
+        }
+        return msgId;
+    }
+
+    /**
+     * 等待提交或回滚的事务消息
+     */
+    private static class PendingTransaction {
+        private final String msgId;
+        private final long timestamp;
+
+        PendingTransaction(String msgId, long timestamp) {
+            this.msgId = msgId;
+            this.timestamp = timestamp;
+        }
+    }
 }
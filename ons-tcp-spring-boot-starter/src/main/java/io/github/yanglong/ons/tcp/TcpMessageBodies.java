@@ -0,0 +1,64 @@
+package io.github.yanglong.ons.tcp;
+
+import com.aliyun.openservices.ons.api.Message;
+import io.github.yanglong.ons.commons.producer.OnsBodyCompressor;
+import io.github.yanglong.ons.commons.utils.OnsCompression;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Description: TCP消息体压缩和解压
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public class TcpMessageBodies {
+
+    /**
+     * 按生产者的压缩配置压缩消息体，并通过用户属性标记压缩算法
+     *
+     * @param message    待发送的消息
+     * @param compressor 压缩配置，为空时不压缩
+     */
+    public static void compress(Message message, OnsBodyCompressor compressor) {
+        if (null == compressor) {
+            return;
+        }
+        byte[] compressed = compressor.compress(message.getBody(), false);
+        if (null != compressed) {
+            message.setBody(compressed);
+            message.putUserProperties(OnsCompression.PROPERTY, compressor.marker(false));
+        }
+    }
+
+    /**
+     * 解压带有压缩标记的消息体，解压后移除标记，重复调用不会再次解压
+     *
+     * @param message 接收到的消息
+     * @return 传入的消息
+     */
+    public static Message decompress(Message message) {
+        String marker = message.getUserProperties(OnsCompression.PROPERTY);
+        if (null != marker) {
+            message.setBody(OnsCompression.decompress(marker, message.getBody()));
+            Properties userProperties = message.getUserProperties();
+            if (null != userProperties) {
+                userProperties.remove(OnsCompression.PROPERTY);
+            }
+        }
+        return message;
+    }
+
+    /**
+     * 解压一批消息
+     *
+     * @param messages 接收到的消息
+     * @return 传入的消息列表
+     */
+    public static List<Message> decompress(List<Message> messages) {
+        messages.forEach(TcpMessageBodies::decompress);
+        return messages;
+    }
+}
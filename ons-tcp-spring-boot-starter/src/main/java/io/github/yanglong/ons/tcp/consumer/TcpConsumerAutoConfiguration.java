@@ -1,5 +1,6 @@
 package io.github.yanglong.ons.tcp.consumer;
 
+import io.github.yanglong.ons.commons.codec.OnsMessageCodecs;
 import io.github.yanglong.ons.commons.properties.OnsAccessProperties;
 import io.github.yanglong.ons.commons.properties.OnsBaseConfig;
 import io.github.yanglong.ons.commons.utils.OnsContextAware;
@@ -40,11 +41,11 @@ public class TcpConsumerAutoConfiguration {
      * @return TcpConsumerFactory
      */
     @Bean(initMethod = "init", destroyMethod = "shutdown")
-    public TcpConsumerFactory onsTcpConsumerFactory() {
+    public TcpConsumerFactory onsTcpConsumerFactory(OnsMessageCodecs codecs) {
         log.debug("config TcpConsumerFactory.");
         OnsAccessProperties defaultAccessProp = onsBaseConfig.getDefaultAccess();
         defaultAccessProp = OnsStringUtils.checkAccess(defaultAccessProp) ? defaultAccessProp : new OnsAccessProperties();
-        TcpConsumerFactory factory = new TcpConsumerFactory(onsContextAware, defaultAccessProp, tcpConsumerConfig.getConsumers());
+        TcpConsumerFactory factory = new TcpConsumerFactory(onsContextAware, defaultAccessProp, tcpConsumerConfig.getConsumers(), codecs, tcpConsumerConfig.getStartup());
         log.debug("config TcpConsumerFactory finished.");
         return factory;
     }
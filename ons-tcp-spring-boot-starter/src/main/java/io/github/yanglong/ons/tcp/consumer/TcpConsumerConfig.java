@@ -1,5 +1,6 @@
 package io.github.yanglong.ons.tcp.consumer;
 
+import io.github.yanglong.ons.commons.properties.OnsStartupProperties;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
@@ -25,4 +26,9 @@ public class TcpConsumerConfig {
      */
     @NestedConfigurationProperty
     private Map<String, TcpConsumerProperties> consumers;
+    /**
+     * 启动配置，各消费者配置并行启动
+     */
+    @NestedConfigurationProperty
+    private OnsStartupProperties startup = new OnsStartupProperties();
 }
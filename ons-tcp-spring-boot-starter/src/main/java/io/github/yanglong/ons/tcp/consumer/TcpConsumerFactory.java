@@ -1,35 +1,49 @@
 package io.github.yanglong.ons.tcp.consumer;
 
+import com.aliyun.openservices.ons.api.Action;
 import com.aliyun.openservices.ons.api.Admin;
 import com.aliyun.openservices.ons.api.Consumer;
+import com.aliyun.openservices.ons.api.MessageListener;
 import com.aliyun.openservices.ons.api.ONSFactory;
 import com.aliyun.openservices.ons.api.PropertyKeyConst;
 import com.aliyun.openservices.ons.api.batch.BatchConsumer;
 import com.aliyun.openservices.ons.api.order.OrderConsumer;
+import io.github.yanglong.ons.commons.codec.MessageDecoder;
+import io.github.yanglong.ons.commons.codec.OnsCodecException;
+import io.github.yanglong.ons.commons.codec.OnsMessageCodecs;
 import io.github.yanglong.ons.commons.factory.OnsFactory;
+import io.github.yanglong.ons.commons.factory.OnsParallelStartup;
+import io.github.yanglong.ons.commons.factory.OnsStartupTiming;
 import io.github.yanglong.ons.commons.listener.OnsMessageListener;
 import io.github.yanglong.ons.commons.properties.MessageType;
 import io.github.yanglong.ons.commons.properties.OnsAccessProperties;
 import io.github.yanglong.ons.commons.properties.OnsConsumerProperties;
+import io.github.yanglong.ons.commons.properties.OnsStartupProperties;
 import io.github.yanglong.ons.commons.properties.OnsSubscriptionProperties;
 import io.github.yanglong.ons.commons.utils.OnsContextAware;
 import io.github.yanglong.ons.commons.utils.OnsStringUtils;
 import io.github.yanglong.ons.tcp.AdminUtils;
+import io.github.yanglong.ons.tcp.TcpMessageBodies;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.CollectionUtils;
 
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Description:消费者实例则在此处进行启动消费
  *
- * HTTP消费端线程使用TaskExecutor来执行。因此必须配置名称为taskExecutor的TaskExecutor！
  * 使用配置文件进行消息订阅的方式，同一个实例同一种消息类型的订阅合并，因此无法对单个订阅关系进行维护，实际可以通过instanceName进行底层共享连接。
+ * 各消费者在当前线程中创建和订阅，启动在有界线程池中并行执行，单个配置失败或超时不影响其他配置，各配置的启动耗时通过getStartupTimings获取。
+ * 生产者压缩的消息体在交给listener前自动解压。普通消息订阅可以使用TcpTypedMessageListener直接接收解码后的消息对象。
  *
  * @author YangLong [410357434@163.com]
  * @version V1.0
@@ -53,11 +67,37 @@ public class TcpConsumerFactory implements OnsFactory {
      * 维护一个消费者配置列表用于管理,构造传入
      */
     private final Map<String, TcpConsumerProperties> consumerProperties;
+    /**
+     * 消息对象编解码器，构造传入
+     */
+    private final OnsMessageCodecs codecs;
+    /**
+     * 启动配置，构造传入
+     */
+    private final OnsStartupProperties startupProperties;
+    /**
+     * 各消费者配置的启动耗时和结果
+     */
+    private final Map<String, OnsStartupTiming> startupTimings = new ConcurrentHashMap<>(16);
+    /**
+     * 工厂是否已关闭，超时后在后台启动完成的消费者发现工厂已关闭时自行关闭
+     */
+    private volatile boolean closed;
 
     public TcpConsumerFactory(OnsContextAware onsContextAware, OnsAccessProperties defaultAccessProperties, Map<String, TcpConsumerProperties> consumerProperties) {
+        this(onsContextAware, defaultAccessProperties, consumerProperties, OnsMessageCodecs.withDefaults(Collections.emptyList(), null));
+    }
+
+    public TcpConsumerFactory(OnsContextAware onsContextAware, OnsAccessProperties defaultAccessProperties, Map<String, TcpConsumerProperties> consumerProperties, OnsMessageCodecs codecs) {
+        this(onsContextAware, defaultAccessProperties, consumerProperties, codecs, new OnsStartupProperties());
+    }
+
+    public TcpConsumerFactory(OnsContextAware onsContextAware, OnsAccessProperties defaultAccessProperties, Map<String, TcpConsumerProperties> consumerProperties, OnsMessageCodecs codecs, OnsStartupProperties startupProperties) {
         this.onsContextAware = onsContextAware;
         this.defaultAccessProperties = defaultAccessProperties;
         this.consumerProperties = consumerProperties;
+        this.codecs = codecs;
+        this.startupProperties = startupProperties;
     }
 
     /**
@@ -89,39 +129,63 @@ public class TcpConsumerFactory implements OnsFactory {
                 }
             }
         });
-        //创建各个消费者，启动并放入容器
-        normalList.forEach(p -> {
-            Properties mqProperties = getConsumerProperty(defaultAccessProperties, p);
-            if (null != mqProperties) {
-                Consumer consumer = createConsumer(mqProperties, p.getSubscriptions(), onsContextAware);
-                consumer.start();
-                consumerContainer.put(p.getConfigName(), consumer);
-            } else {
-                log.error("can't create normal consumer {},mq properties is null!", p.getConfigName());
-            }
-        });
-        batchList.forEach(p -> {
-            Properties mqProperties = getConsumerProperty(defaultAccessProperties, p);
-            if (null != mqProperties) {
-                BatchConsumer consumer = createBatchConsumer(mqProperties, p.getSubscriptions(), onsContextAware);
+        //在当前线程中创建各个消费者并订阅，listener从容器获取；放入容器后在线程池中并行启动，启动失败的移出容器并关闭
+        OnsParallelStartup startup = new OnsParallelStartup("TCP consumer", startupProperties);
+        normalList.forEach(p -> prepare(startup, p, "normal", mqProperties -> createConsumer(mqProperties, p.getSubscriptions(), onsContextAware)));
+        batchList.forEach(p -> prepare(startup, p, "batch", mqProperties -> createBatchConsumer(mqProperties, p.getSubscriptions(), onsContextAware)));
+        orderList.forEach(p -> prepare(startup, p, "order", mqProperties -> createOrderConsumer(mqProperties, p.getSubscriptions(), onsContextAware)));
+        startupTimings.putAll(startup.run());
+    }
+
+    /**
+     * 创建消费者并添加启动任务，创建失败只影响当前配置
+     *
+     * @param startup 并行启动
+     * @param p       消费者配置
+     * @param kind    消费者类型，用于日志输出
+     * @param creator 按MQ客户端配置创建消费者
+     */
+    private void prepare(OnsParallelStartup startup, OnsConsumerProperties p, String kind, Function<Properties, Admin> creator) {
+        Properties mqProperties = getConsumerProperty(defaultAccessProperties, p);
+        if (null == mqProperties) {
+            log.error("can't create {} consumer {},mq properties is null!", kind, p.getConfigName());
+            return;
+        }
+        Admin consumer;
+        try {
+            consumer = creator.apply(mqProperties);
+        } catch (Exception e) {
+            log.error("can't create {} consumer {}!", kind, p.getConfigName(), e);
+            return;
+        }
+        //启动前放入容器，启动超时时关闭工厂也能关闭该消费者
+        consumerContainer.put(p.getConfigName(), consumer);
+        startup.add(p.getConfigName(), () -> {
+            try {
                 consumer.start();
-                consumerContainer.put(p.getConfigName(), consumer);
-            } else {
-                log.error("can't create batch consumer {},mq properties is null!", p.getConfigName());
+            } catch (RuntimeException e) {
+                consumerContainer.remove(p.getConfigName(), consumer);
+                AdminUtils.closeInstance(consumer);
+                throw e;
             }
-        });
-        orderList.forEach(p -> {
-            Properties mqProperties = getConsumerProperty(defaultAccessProperties, p);
-            if (null != mqProperties) {
-                OrderConsumer consumer = createOrderConsumer(mqProperties, p.getSubscriptions(), onsContextAware);
-                consumer.start();
-                consumerContainer.put(p.getConfigName(), consumer);
-            } else {
-                log.error("can't create order consumer {},mq properties is null!", p.getConfigName());
+            if (closed) {
+                //启动期间工厂已关闭
+                consumerContainer.remove(p.getConfigName(), consumer);
+                AdminUtils.closeInstance(consumer);
+                log.warn("TCP consumer factory closed while {} consumer {} starting,consumer closed.", kind, p.getConfigName());
             }
         });
     }
 
+    /**
+     * 获取各消费者配置的启动耗时和结果
+     *
+     * @return key为消费者名称
+     */
+    public Map<String, OnsStartupTiming> getStartupTimings() {
+        return new LinkedHashMap<>(startupTimings);
+    }
+
     /**
      * 创建普通、事务、延时、定时消息消费者
      *
@@ -138,7 +202,14 @@ public class TcpConsumerFactory implements OnsFactory {
                 TcpNormalMessageListener listener = (TcpNormalMessageListener) contextAware.getBean(clazz);
                 String tags = s.getTags();
                 tags = OnsStringUtils.stringReplace(tags, OnsStringUtils.COMMA, "||");
-                consumer.subscribe(s.getTopic(), tags, listener);
+                //压缩的消息体在交给listener前解压
+                consumer.subscribe(s.getTopic(), tags, (message, context) -> listener.consume(TcpMessageBodies.decompress(message), context));
+            } else if (StringUtils.isNotEmpty(topic) && null != clazz && TcpTypedMessageListener.class.isAssignableFrom(clazz)) {
+                MessageListener listener = createTypedListener(clazz, contextAware);
+                if (null != listener) {
+                    String tags = OnsStringUtils.stringReplace(s.getTags(), OnsStringUtils.COMMA, "||");
+                    consumer.subscribe(topic, tags, listener);
+                }
             } else {
                 log.error("can't create normal consumer,the topic or listener is empty!");
             }
@@ -146,6 +217,40 @@ public class TcpConsumerFactory implements OnsFactory {
         return consumer;
     }
 
+    /**
+     * 包装消息对象listener，消息对象类型和解码器在此解析一次，消费时不再反射
+     *
+     * @param clazz        listener实现类
+     * @param contextAware 容器工具类
+     * @return MessageListener，无法解析消息对象类型时返回NULL
+     */
+    @SuppressWarnings("unchecked")
+    private MessageListener createTypedListener(Class<OnsMessageListener> clazz, OnsContextAware contextAware) {
+        Type payloadType = OnsMessageCodecs.resolvePayloadType(clazz, TcpTypedMessageListener.class);
+        if (null == payloadType || null == codecs) {
+            log.error("can't resolve payload type of TCP listener {},subscription ignored.", clazz.getName());
+            return null;
+        }
+        MessageDecoder<Object> decoder;
+        try {
+            decoder = codecs.decoder(payloadType);
+        } catch (OnsCodecException e) {
+            log.error("can't create decoder for TCP listener {},subscription ignored.", clazz.getName(), e);
+            return null;
+        }
+        TcpTypedMessageListener<Object> listener = (TcpTypedMessageListener<Object>) contextAware.getBean(clazz);
+        return (message, context) -> {
+            Object payload;
+            try {
+                payload = decoder.decode(TcpMessageBodies.decompress(message).getBody());
+            } catch (OnsCodecException e) {
+                log.error("can't decode TCP message {} to {},reconsume later.", message.getMsgID(), payloadType.getTypeName(), e);
+                return Action.ReconsumeLater;
+            }
+            return listener.consume(payload, message, context);
+        };
+    }
+
     /**
      * 创建批量消费者。条件时消息类型为NORMAL且batchEnable=true
      *
@@ -162,7 +267,7 @@ public class TcpConsumerFactory implements OnsFactory {
                 TcpBatchMessageListener listener = (TcpBatchMessageListener) contextAware.getBean(clazz);
                 String tags = s.getTags();
                 tags = OnsStringUtils.stringReplace(tags, OnsStringUtils.COMMA, "||");
-                consumer.subscribe(topic, tags, listener);
+                consumer.subscribe(topic, tags, (messages, context) -> listener.consume(TcpMessageBodies.decompress(messages), context));
             } else {
                 log.error("can't create batch consumer,the topic or listener is empty!");
             }
@@ -186,7 +291,7 @@ public class TcpConsumerFactory implements OnsFactory {
                 TcpOrderMessageListener listener = (TcpOrderMessageListener) contextAware.getBean(clazz);
                 String tags = s.getTags();
                 tags = OnsStringUtils.stringReplace(tags, OnsStringUtils.COMMA, "||");
-                consumer.subscribe(s.getTopic(), tags, listener);
+                consumer.subscribe(s.getTopic(), tags, (message, context) -> listener.consume(TcpMessageBodies.decompress(message), context));
             } else {
                 log.error("can't create order consumer,the topic or listener is empty!");
             }
@@ -255,6 +360,7 @@ public class TcpConsumerFactory implements OnsFactory {
      */
     @Override
     public void shutdown() {
+        closed = true;
         consumerContainer.values().forEach(AdminUtils::closeInstance);
     }
 
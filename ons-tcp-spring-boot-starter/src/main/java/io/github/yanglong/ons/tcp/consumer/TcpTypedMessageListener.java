@@ -0,0 +1,28 @@
+package io.github.yanglong.ons.tcp.consumer;
+
+import com.aliyun.openservices.ons.api.Action;
+import com.aliyun.openservices.ons.api.ConsumeContext;
+import com.aliyun.openservices.ons.api.Message;
+import io.github.yanglong.ons.commons.listener.OnsMessageListener;
+
+/**
+ * Description: 普通消息对象处理监听器
+ *
+ * 消息对象类型在创建订阅时从实现类声明的泛型参数解析一次，消息体按该类型解码后交给listener，解码失败的消息稍后重新消费。
+ *
+ * @param <T> 消息对象类型
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+public interface TcpTypedMessageListener<T> extends OnsMessageListener {
+    /**
+     * 消费消息
+     *
+     * @param payload 解码后的消息对象
+     * @param message 接收到的消息，用于获取key、tag、属性等
+     * @param context 消费上下文
+     * @return 消费结果
+     */
+    Action consume(T payload, Message message, ConsumeContext context);
+}
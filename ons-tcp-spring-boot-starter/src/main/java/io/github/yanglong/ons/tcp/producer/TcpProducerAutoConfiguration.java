@@ -1,7 +1,12 @@
 package io.github.yanglong.ons.tcp.producer;
 
+import io.github.yanglong.ons.commons.codec.OnsMessageCodecs;
+import io.github.yanglong.ons.commons.producer.OnsSendSpool;
+import io.github.yanglong.ons.commons.producer.OnsTransactionJournal;
 import io.github.yanglong.ons.commons.properties.OnsAccessProperties;
 import io.github.yanglong.ons.commons.properties.OnsBaseConfig;
+import io.github.yanglong.ons.commons.properties.OnsJournalProperties;
+import io.github.yanglong.ons.commons.properties.OnsSpoolProperties;
 import io.github.yanglong.ons.commons.utils.OnsContextAware;
 import io.github.yanglong.ons.commons.utils.OnsStringUtils;
 import lombok.Data;
@@ -12,6 +17,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 /**
  * Description: ONS TCP 生产者自动配置类
@@ -40,13 +46,29 @@ public class TcpProducerAutoConfiguration {
         log.debug("config TcpProducerFactory.");
         OnsAccessProperties defaultAccessProp = onsBaseConfig.getDefaultAccess();
         defaultAccessProp = OnsStringUtils.checkAccess(defaultAccessProp) ? defaultAccessProp : new OnsAccessProperties();
-        TcpProducerFactory factory = new TcpProducerFactory(defaultAccessProp, onsContextAware, producerConfig.getProducers());
+        OnsJournalProperties journalProperties = producerConfig.getJournal();
+        OnsTransactionJournal journal = null;
+        if (null != journalProperties && journalProperties.isEnable()) {
+            journal = new OnsTransactionJournal("tcp", journalProperties);
+        }
+        TcpProducerFactory factory = new TcpProducerFactory(defaultAccessProp, onsContextAware, producerConfig.getProducers(), journal, producerConfig.getStartup());
         log.debug("config TcpProducerFactory finished.");
         return factory;
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public TcpSender onsTcpSender(TcpProducerFactory factory, OnsMessageCodecs codecs) {
+        OnsSpoolProperties spoolProperties = producerConfig.getSpool();
+        OnsSendSpool spool = null;
+        if (null != spoolProperties && spoolProperties.isEnable()) {
+            spool = new OnsSendSpool("tcp", spoolProperties);
+        }
+        return new TcpSender(factory, spool, codecs);
+    }
+
     @Bean
-    public TcpSender onsTcpSender(TcpProducerFactory factory) {
-        return new TcpSender(factory);
+    @ConditionalOnProperty(prefix = "ali-ons.tcp.producer", name = "refresh-enable", havingValue = "true", matchIfMissing = true)
+    public TcpProducerRefresher onsTcpProducerRefresher(TcpProducerFactory factory, Environment environment) {
+        return new TcpProducerRefresher(factory, environment);
     }
 }
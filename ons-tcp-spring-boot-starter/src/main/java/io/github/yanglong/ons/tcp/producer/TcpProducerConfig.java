@@ -1,5 +1,8 @@
 package io.github.yanglong.ons.tcp.producer;
 
+import io.github.yanglong.ons.commons.properties.OnsJournalProperties;
+import io.github.yanglong.ons.commons.properties.OnsSpoolProperties;
+import io.github.yanglong.ons.commons.properties.OnsStartupProperties;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
@@ -20,9 +23,28 @@ public class TcpProducerConfig {
      * 是否启用HTTP Producer
      */
     private boolean enable;
+    /**
+     * 配置变更时是否刷新生产者，默认true。需要Spring Cloud发布EnvironmentChangeEvent
+     */
+    private boolean refreshEnable = true;
     /**
      * 生产者配置，可以配置多个，使用时可以根据名称获取消息生产者，进行消息发送
      */
     @NestedConfigurationProperty
     private Map<String, TcpProducerProperties> producers;
+    /**
+     * 本地发送暂存配置，所有生产者共用
+     */
+    @NestedConfigurationProperty
+    private OnsSpoolProperties spool = new OnsSpoolProperties();
+    /**
+     * 本地事务结果日志配置，所有事务消息生产者共用
+     */
+    @NestedConfigurationProperty
+    private OnsJournalProperties journal = new OnsJournalProperties();
+    /**
+     * 启动配置，各生产者配置并行创建和启动
+     */
+    @NestedConfigurationProperty
+    private OnsStartupProperties startup = new OnsStartupProperties();
 }
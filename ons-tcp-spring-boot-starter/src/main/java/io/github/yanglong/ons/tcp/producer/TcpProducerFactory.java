@@ -7,27 +7,53 @@ import com.aliyun.openservices.ons.api.PropertyKeyConst;
 import com.aliyun.openservices.ons.api.order.OrderProducer;
 import com.aliyun.openservices.ons.api.transaction.LocalTransactionChecker;
 import com.aliyun.openservices.ons.api.transaction.TransactionProducer;
+import com.aliyun.openservices.ons.api.transaction.TransactionStatus;
 import io.github.yanglong.ons.commons.factory.OnsFactory;
+import io.github.yanglong.ons.commons.factory.OnsParallelStartup;
+import io.github.yanglong.ons.commons.factory.OnsStartupTiming;
+import io.github.yanglong.ons.commons.producer.OnsBodyCompressor;
+import io.github.yanglong.ons.commons.producer.OnsSendWindow;
+import io.github.yanglong.ons.commons.producer.OnsTransactionJournal;
+import io.github.yanglong.ons.commons.producer.OnsTransactionState;
 import io.github.yanglong.ons.commons.properties.ClientType;
 import io.github.yanglong.ons.commons.properties.MessageType;
 import io.github.yanglong.ons.commons.properties.OnsAccessProperties;
+import io.github.yanglong.ons.commons.properties.OnsStartupProperties;
+import io.github.yanglong.ons.commons.properties.SendMode;
 import io.github.yanglong.ons.commons.utils.OnsContextAware;
 import io.github.yanglong.ons.commons.utils.OnsStringUtils;
 import io.github.yanglong.ons.tcp.AdminUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.CollectionUtils;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
 
 /**
  * Description: TCP发送客户端工厂实现
  * <p>
  * 在此处通过配置，生成各类消息的生产者实例，并将对应实例放入容器中，提供给消息发送封装客户端使用。
+ * 容器是写时复制的注册表，替换生产者时整体发布新的注册表，发送方不会读到半更新的状态；按名称发送时租用实例，
+ * 被替换的实例池等待租出的实例全部归还且处理中的消息完成后才关闭，配置变更时由TcpProducerRefresher调用refresh不停机替换有变化的生产者。
+ * 通过getNormalProducer等方法直接获取的实例不计租约，实例池被替换后最多再等待poolDrainMillis即关闭。
+ * 每个配置按poolSize创建一个或多个实例组成实例池，发送时按poolStrategy选择实例；实例数大于1时由后台线程检查各实例，
+ * 未启动或连续发送失败的实例排空后独立重建。
+ * 初始化时各配置的实例在有界线程池中并行创建和启动，单个配置失败或超时不影响其他配置，各配置的启动耗时通过getStartupTimings获取。
+ * 配置了本地事务结果日志时，事务回查先按消息ID从日志中获取结果，未命中时再调用配置的LocalTransactionChecker。
  *
  * @author YangLong [410357434@163.com]
  * @version V1.0
@@ -35,6 +61,14 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Slf4j
 public class TcpProducerFactory implements OnsFactory {
+    /**
+     * 实例池健康检查间隔，单位毫秒
+     */
+    private static final long POOL_CHECK_INTERVAL_MILLIS = 5000;
+    /**
+     * 旧实例池检查租约和处理中消息的间隔，单位毫秒
+     */
+    private static final long RETIRE_CHECK_INTERVAL_MILLIS = 100;
     /**
      * ONS安全配置类
      */
@@ -51,29 +85,81 @@ public class TcpProducerFactory implements OnsFactory {
     private final Map<String, TcpProducerProperties> clientProperties;
 
     /**
-     * 普通消息，延时消息，定时消息生产者实例容器
+     * 生产者注册表，key为生产者名称。写时复制，每次修改发布新的不可变Map，发送方读取到的消息类型、实例池和配置总是同一次注册的
+     */
+    private volatile Map<String, Registration> registry = Collections.emptyMap();
+
+    /**
+     * 注册表写锁
+     */
+    private final Object registryLock = new Object();
+
+    /**
+     * 被替换或移除后等待处理中消息完成的实例池
+     */
+    private final Set<TcpProducerPool<?>> retiring = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 生产者实例所属的实例池
+     */
+    private final Map<Admin, TcpProducerPool<?>> memberPools = new ConcurrentHashMap<>(16);
+
+    /**
+     * 实例池健康检查和旧实例池关闭线程，第一次使用时创建。两者在同一个线程中执行，关闭中的实例池不会同时被重建
+     */
+    private ScheduledThreadPoolExecutor scheduler;
+    /**
+     * 工厂是否已关闭，超时后在后台创建完成的实例池发现工厂已关闭时自行关闭
+     */
+    private volatile boolean closed;
+
+    /**
+     * 是否已启动实例池健康检查，有实例数大于1的配置时才启动
      */
-    private final Map<String, Producer> normalProducerContainer = new ConcurrentHashMap<>(8);
+    private boolean poolCheckScheduled;
 
     /**
-     * 顺序消息生产者实例容器
+     * 注册表中各实例池的异步发送窗口，key为生产者名称，只有配置了上限的普通消息生产者才有
      */
-    private final Map<String, OrderProducer> orderProducerContainer = new ConcurrentHashMap<>(8);
+    private final Map<String, OnsSendWindow> sendWindows = new ConcurrentHashMap<>(8);
 
     /**
-     * 事务消息生产者实例容器
+     * 生产者实例对应的异步发送窗口
      */
-    private final Map<String, TransactionProducer> transactionContainer = new ConcurrentHashMap<>(8);
+    private final Map<Admin, OnsSendWindow> producerWindows = new ConcurrentHashMap<>(8);
 
     /**
-     * 生产者名称-类型映射
+     * 生产者实例对应的消息体压缩配置，只有配置了压缩的生产者才有
+     */
+    private final Map<Admin, OnsBodyCompressor> producerCompressors = new ConcurrentHashMap<>(8);
+
+    /**
+     * 本地事务结果日志，没有启用时为空
+     */
+    private final OnsTransactionJournal journal;
+    /**
+     * 启动配置，构造传入
+     */
+    private final OnsStartupProperties startupProperties;
+    /**
+     * 各生产者配置的启动耗时和结果
      */
-    private final Map<String, MessageType> nameMap = new HashMap<>(16);
+    private final Map<String, OnsStartupTiming> startupTimings = new ConcurrentHashMap<>(16);
 
     public TcpProducerFactory(OnsAccessProperties defaultAccessProperties, OnsContextAware onsContextAware, Map<String, TcpProducerProperties> clientProperties) {
+        this(defaultAccessProperties, onsContextAware, clientProperties, null);
+    }
+
+    public TcpProducerFactory(OnsAccessProperties defaultAccessProperties, OnsContextAware onsContextAware, Map<String, TcpProducerProperties> clientProperties, OnsTransactionJournal journal) {
+        this(defaultAccessProperties, onsContextAware, clientProperties, journal, new OnsStartupProperties());
+    }
+
+    public TcpProducerFactory(OnsAccessProperties defaultAccessProperties, OnsContextAware onsContextAware, Map<String, TcpProducerProperties> clientProperties, OnsTransactionJournal journal, OnsStartupProperties startupProperties) {
         this.defaultAccessProperties = defaultAccessProperties;
         this.onsContextAware = onsContextAware;
         this.clientProperties = clientProperties;
+        this.journal = journal;
+        this.startupProperties = startupProperties;
     }
 
     /**
@@ -86,6 +172,7 @@ public class TcpProducerFactory implements OnsFactory {
             return;
         }
         synchronized (TcpProducerFactory.class) {
+            OnsParallelStartup startup = new OnsParallelStartup("TCP producer", startupProperties);
             clientProperties.forEach((name, property) -> {
                 String accessKey = defaultAccessProperties.getAccessKey();
                 String secretKey = defaultAccessProperties.getSecretKey();
@@ -95,47 +182,55 @@ public class TcpProducerFactory implements OnsFactory {
                     secretKey = custom.getSecretKey();
                 }
                 property.setConfigName(name);
-                switch (property.getMsgType()) {
-                    case NORMAL: {
-                        Producer producer = createNormalProducer(accessKey, secretKey, property.getTimeout(), property.getNameServer());
-                        if (null != producer) {
-                            normalProducerContainer.put(name, producer);
-                            nameMap.put(name, MessageType.NORMAL);
-                        }
-                    }
-                    break;
-                    case ORDER: {
-                        OrderProducer producer = createOrderProducer(accessKey, secretKey, property.getTimeout(), property.getNameServer(), property.getGroup());
-                        if (null != producer) {
-                            orderProducerContainer.put(name, producer);
-                            nameMap.put(name, MessageType.ORDER);
-                        }
-                    }
-                    break;
-                    case TRANSACTION: {
-                        Class<LocalTransactionChecker> clazz = property.getTransChecker();
-                        if (LocalTransactionChecker.class.isAssignableFrom(clazz)) {
-                            LocalTransactionChecker checkListener = onsContextAware.getBean(clazz);
-                            TransactionProducer producer = createTransactionProducer(accessKey, secretKey, property.getTimeout(), property.getNameServer(), property.getGroup(), checkListener);
-                            if (null != producer) {
-                                transactionContainer.put(name, producer);
-                                nameMap.put(name, MessageType.TRANSACTION);
-                            }
-                        } else {
-                            log.error("init error!the class of property[ons.producers.{}.transChecker] must be implement LocalTransactionChecker!", name);
-                        }
-                    }
-                    break;
-                    default:
+                final String ak = accessKey;
+                final String sk = secretKey;
+                //事务状态检查接口在当前线程中从容器获取，启动任务中不访问容器
+                final LocalTransactionChecker checker = getTransactionChecker(name, property);
+                if (MessageType.TRANSACTION.equals(property.getMsgType()) && null == checker) {
+                    return;
                 }
+                startup.add(name, () -> start(name, property, ak, sk, checker));
             });
+            startupTimings.putAll(startup.run());
+            startPoolChecker();
+        }
+    }
+
+    /**
+     * 启动任务，创建实例池并注册，创建失败时抛出异常，记录为该配置启动失败。
+     * 注册后发现工厂已关闭时关闭该实例池，避免启动超时后在后台创建的实例泄漏
+     *
+     * @param name       生产者名称
+     * @param properties 生产者配置
+     * @param ak         身份验证标识
+     * @param sk         身份验证密钥
+     * @param checker    事务状态检查接口，非事务消息为空
+     */
+    private void start(String name, TcpProducerProperties properties, String ak, String sk, LocalTransactionChecker checker) {
+        TcpProducerPool<? extends Admin> pool = buildPool(name, properties, ak, sk, checker);
+        if (null == pool) {
+            throw new IllegalStateException("no instance of TCP producer " + name + " started");
         }
+        register(name, new Registration(properties, pool, ak, sk));
+        if (closed) {
+            closePool(pool);
+            log.warn("TCP producer factory closed while producer {} starting,instances closed.", name);
+        }
+    }
+
+    /**
+     * 获取各生产者配置的启动耗时和结果
+     *
+     * @return key为生产者名称
+     */
+    public Map<String, OnsStartupTiming> getStartupTimings() {
+        return new LinkedHashMap<>(startupTimings);
     }
 
     /**
      * 重新生成生产者实例。会根据<code>properties</code>中的消息类型和<code>name</code>从已有容器中获取客户端实例。
      * 如果没有同名客户端，将生成新客户端。
-     * 如果有同名客户端，根据override参数：如果为true，则用新配置生成客户端，然后替换旧客户端，同时停止旧客户端；如果为false，则不生成新客户端。
+     * 如果有同名客户端，根据override参数：如果为true，则用新配置生成客户端，然后替换旧客户端，旧客户端处理中的消息完成后关闭；如果为false，则不生成新客户端。
      *
      * @param properties producer配置
      * @param name       实例名
@@ -147,54 +242,9 @@ public class TcpProducerFactory implements OnsFactory {
         if (ClientType.TCP.equals(type)) {
             OnsAccessProperties accessProperties = properties.getAccess();
             if (OnsStringUtils.checkAccess(accessProperties)) {
-                MessageType msgType = properties.getMsgType();
-                Admin admin = null;
-                switch (msgType) {
-                    case NORMAL: {
-                        admin = normalProducerContainer.get(name);
-                        if (null == admin || override) {
-                            Producer producer = createNormalProducer(accessProperties.getAccessKey(), accessProperties.getSecretKey(), properties.getTimeout(), properties.getNameServer());
-                            if (null != producer) {
-                                normalProducerContainer.put(name, producer);
-                                build = true;
-                            }
-                        }
-                    }
-                    break;
-                    case ORDER: {
-                        admin = orderProducerContainer.get(name);
-                        if (null == admin || override) {
-                            OrderProducer producer = createOrderProducer(accessProperties.getAccessKey(), accessProperties.getSecretKey(), properties.getTimeout(), properties.getNameServer(), properties.getGroup());
-                            if (null != producer) {
-                                orderProducerContainer.put(name, producer);
-                                build = true;
-                            }
-                        }
-                    }
-                    break;
-                    case TRANSACTION: {
-                        admin = transactionContainer.get(name);
-                        if (null == admin || override) {
-                            LocalTransactionChecker checker = getTransactionCheckerBean(properties);
-                            if (null != checker) {
-                                TransactionProducer producer = createTransactionProducer(accessProperties.getAccessKey(), accessProperties.getSecretKey(), properties.getTimeout(), properties.getNameServer(), properties.getGroup(), checker);
-                                if (null != producer) {
-                                    transactionContainer.put(name, producer);
-                                    build = true;
-                                }
-                            } else {
-                                log.error("reCreate error!the class of property[ons.producers.{}.transChecker] must be implement LocalTransactionChecker!", name);
-                            }
-                        }
-                    }
-                    break;
-                    default:
-                        log.error("unknown producer msgType[{}] by name[{}].", msgType, name);
-                }
-                if (build) {
-                    nameMap.put(name, msgType);
-                    clientProperties.put(name, properties);
-                    AdminUtils.closeInstance(admin);
+                properties.setConfigName(name);
+                if (null == registry.get(name) || override) {
+                    build = replace(name, properties, accessProperties.getAccessKey(), accessProperties.getSecretKey());
                 }
             } else {
                 log.error("instance can't build.because access info is invalid!");
@@ -205,6 +255,418 @@ public class TcpProducerFactory implements OnsFactory {
         return build;
     }
 
+    /**
+     * 按新的配置刷新生产者，用于配置变更后不停机替换生产者。
+     * 配置或认证信息有变化的生产者用新配置创建实例池后替换，新配置中没有的生产者从注册表移除，没有变化的生产者不受影响。
+     * 被替换或移除的实例池不再租出实例，等待租出的实例归还、处理中的同步和异步发送完成或超过poolDrainMillis后关闭。
+     *
+     * @param producers     新的生产者配置
+     * @param defaultAccess 新的默认认证信息，生产者没有单独配置认证信息时使用
+     * @return 替换、新增和移除的生产者数
+     */
+    public int refresh(Map<String, TcpProducerProperties> producers, OnsAccessProperties defaultAccess) {
+        int changed = 0;
+        synchronized (TcpProducerFactory.class) {
+            if (CollectionUtils.isEmpty(producers)) {
+                //没有任何生产者配置多半是配置读取异常，不移除已有生产者
+                log.warn("refresh TCP producers ignored,there is no producer config.");
+                return 0;
+            }
+            for (Map.Entry<String, TcpProducerProperties> entry : producers.entrySet()) {
+                String name = entry.getKey();
+                TcpProducerProperties properties = entry.getValue();
+                properties.setConfigName(name);
+                OnsAccessProperties access = OnsStringUtils.checkAccess(properties.getAccess()) ? properties.getAccess() : defaultAccess;
+                if (!OnsStringUtils.checkAccess(access)) {
+                    log.error("refresh TCP producer {} error,access info is invalid!", name);
+                    continue;
+                }
+                Registration current = registry.get(name);
+                if (null != current && current.matches(properties, access.getAccessKey(), access.getSecretKey())) {
+                    continue;
+                }
+                if (replace(name, properties, access.getAccessKey(), access.getSecretKey())) {
+                    changed++;
+                }
+            }
+            for (String name : registry.keySet()) {
+                if (!producers.containsKey(name) && removeProducer(name)) {
+                    changed++;
+                }
+            }
+        }
+        log.info("refresh TCP producers finished,{} changed.", changed);
+        return changed;
+    }
+
+    /**
+     * 移除生产者，移除后按名称获取不到实例，原实例池等待租出的实例归还且处理中的消息完成后关闭
+     *
+     * @param name 生产者名称
+     * @return true-已移除，false-没有该生产者
+     */
+    public boolean removeProducer(@NotEmpty String name) {
+        Registration old;
+        synchronized (registryLock) {
+            old = registry.get(name);
+            if (null == old) {
+                return false;
+            }
+            Map<String, Registration> copy = new HashMap<>(registry);
+            copy.remove(name);
+            registry = Collections.unmodifiableMap(copy);
+        }
+        sendWindows.remove(name);
+        retire(name, old);
+        return true;
+    }
+
+    /**
+     * 用新配置创建实例池并替换注册表中的同名生产者，创建失败时保留原生产者
+     *
+     * @param name       生产者名称
+     * @param properties 生产者配置
+     * @param ak         身份验证标识
+     * @param sk         身份验证密钥
+     * @return true-已替换
+     */
+    private boolean replace(String name, TcpProducerProperties properties, String ak, String sk) {
+        LocalTransactionChecker checker = getTransactionChecker(name, properties);
+        if (MessageType.TRANSACTION.equals(properties.getMsgType()) && null == checker) {
+            return false;
+        }
+        TcpProducerPool<? extends Admin> pool = buildPool(name, properties, ak, sk, checker);
+        if (null == pool) {
+            log.error("TCP producer {} can't build,keep the old one.", name);
+            return false;
+        }
+        Registration old = register(name, new Registration(properties, pool, ak, sk));
+        if (null != old) {
+            retire(name, old);
+        }
+        if (closed) {
+            closePool(pool);
+            log.warn("TCP producer factory closed while producer {} replacing,instances closed.", name);
+            return false;
+        }
+        startPoolChecker();
+        log.info("TCP producer {} {}.", name, null == old ? "added" : "replaced");
+        return true;
+    }
+
+    /**
+     * 按消息类型创建实例池
+     *
+     * @param name       生产者名称
+     * @param properties 生产者配置
+     * @param ak         身份验证标识
+     * @param sk         身份验证密钥
+     * @param checker    事务状态检查接口，非事务消息为空
+     * @return 实例池，一个实例都没有创建成功时返回NULL
+     */
+    private TcpProducerPool<? extends Admin> buildPool(String name, TcpProducerProperties properties, String ak, String sk, LocalTransactionChecker checker) {
+        switch (properties.getMsgType()) {
+            case NORMAL:
+                return createPool(name, properties, i -> createNormalProducer(ak, sk, properties.getTimeout(), properties.getNameServer(), instanceName(properties, i)));
+            case ORDER:
+                return createPool(name, properties, i -> createOrderProducer(ak, sk, properties.getTimeout(), properties.getNameServer(), properties.getGroup(), instanceName(properties, i)));
+            case TRANSACTION:
+                return createPool(name, properties, i -> createTransactionProducer(ak, sk, properties.getTimeout(), properties.getNameServer(), properties.getGroup(), checker, instanceName(properties, i)));
+            default:
+                log.error("unknown producer msgType[{}] by name[{}].", properties.getMsgType(), name);
+                return null;
+        }
+    }
+
+    /**
+     * 写时复制注册生产者
+     *
+     * @param name         生产者名称
+     * @param registration 注册信息
+     * @return 被替换的注册信息/null
+     */
+    private Registration register(String name, Registration registration) {
+        synchronized (registryLock) {
+            Map<String, Registration> copy = new HashMap<>(registry);
+            Registration old = copy.put(name, registration);
+            registry = Collections.unmodifiableMap(copy);
+            return old;
+        }
+    }
+
+    /**
+     * 退役已从注册表移除的实例池，租出的实例全部归还且处理中的消息完成，或超过poolDrainMillis后关闭。
+     * 退役后实例池不再租出实例，退役前已从注册表读到旧实例池的发送方重新读取注册表，已租出的实例由租约计数覆盖到发送完成
+     *
+     * @param name 生产者名称
+     * @param old  原注册信息
+     */
+    private void retire(String name, Registration old) {
+        final TcpProducerPool<?> pool = old.pool;
+        final long drainMillis = Math.max(0, old.properties.getPoolDrainMillis());
+        final long deadline = System.currentTimeMillis() + drainMillis;
+        pool.retire();
+        retiring.add(pool);
+        Runnable check = new Runnable() {
+            @Override
+            public void run() {
+                boolean drained = pool.isDrained();
+                if (!drained && System.currentTimeMillis() < deadline && schedule(this)) {
+                    return;
+                }
+                if (!drained) {
+                    log.warn("TCP producer {} old instances still have {} leases and {} messages in flight after {}ms,close them.", name, pool.getLeases(), pool.getTotalInFlight(), drainMillis);
+                }
+                retiring.remove(pool);
+                closePool(pool);
+                log.info("TCP producer {} old instances closed.", name);
+            }
+        };
+        if (pool.isDrained()) {
+            check.run();
+        } else if (!schedule(check)) {
+            //已关闭，不再等待
+            retiring.remove(pool);
+            closePool(pool);
+        }
+    }
+
+    /**
+     * 延迟RETIRE_CHECK_INTERVAL_MILLIS执行旧实例池检查
+     *
+     * @param task 检查任务
+     * @return false-工厂已关闭，任务不会执行
+     */
+    private boolean schedule(Runnable task) {
+        try {
+            scheduler().schedule(task, RETIRE_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 获取生产者实例的异步发送窗口
+     *
+     * @param producer 生产者实例
+     * @return 没有配置上限时返回NULL
+     */
+    public OnsSendWindow getSendWindow(Admin producer) {
+        return null == producer ? null : producerWindows.get(producer);
+    }
+
+    /**
+     * 获取生产者实例的消息体压缩配置
+     *
+     * @param producer 生产者实例
+     * @return 没有配置压缩时返回NULL
+     */
+    public OnsBodyCompressor getCompressor(Admin producer) {
+        return null == producer ? null : producerCompressors.get(producer);
+    }
+
+    /**
+     * 获取各生产者的异步发送窗口，用于观察处理中的消息数和字节数
+     *
+     * @return key为生产者名称
+     */
+    public Map<String, OnsSendWindow> getSendWindows() {
+        return new HashMap<>(sendWindows);
+    }
+
+    /**
+     * 创建生产者实例池，实例创建时注册发送窗口、压缩配置和所属实例池，关闭时移除。
+     * 每个实例池按自己的配置创建一个异步发送窗口，池内重建的实例沿用该窗口；同名生产者替换后新实例池使用新窗口，
+     * 旧实例池处理中的消息仍在旧窗口中释放
+     *
+     * @param name       生产者名称
+     * @param properties 生产者配置
+     * @param creator    按实例序号创建并启动实例
+     * @param <T>        生产者类型
+     * @return 实例池，一个实例都没有创建成功时返回NULL
+     */
+    private <T extends Admin> TcpProducerPool<T> createPool(String name, TcpProducerProperties properties, IntFunction<T> creator) {
+        //重建的实例创建时实例池已存在，直接登记所属实例池
+        final AtomicReference<TcpProducerPool<T>> owner = new AtomicReference<>();
+        final OnsSendWindow window = MessageType.NORMAL.equals(properties.getMsgType()) ? OnsSendWindow.of(name, properties) : null;
+        TcpProducerPool<T> pool = new TcpProducerPool<>(name, properties.getPoolStrategy(), properties.getPoolSize(), new TcpProducerPool.MemberFactory<T>() {
+            @Override
+            public T create(int index) {
+                T member = creator.apply(index);
+                if (null != member) {
+                    if (null != owner.get()) {
+                        memberPools.put(member, owner.get());
+                    }
+                    if (null != window) {
+                        producerWindows.put(member, window);
+                    }
+                    registerCompressor(properties, member);
+                }
+                return member;
+            }
+
+            @Override
+            public void destroy(T member) {
+                memberPools.remove(member);
+                producerWindows.remove(member);
+                producerCompressors.remove(member);
+                AdminUtils.closeInstance(member);
+            }
+        });
+        if (!pool.isCreated()) {
+            return null;
+        }
+        owner.set(pool);
+        pool.members().forEach(member -> memberPools.put(member, pool));
+        if (null != window) {
+            sendWindows.put(name, window);
+        } else {
+            sendWindows.remove(name);
+        }
+        return pool;
+    }
+
+    /**
+     * 关闭实例池中的所有实例
+     *
+     * @param pool 实例池
+     */
+    private void closePool(TcpProducerPool<?> pool) {
+        if (null == pool) {
+            return;
+        }
+        for (Admin member : pool.members()) {
+            memberPools.remove(member);
+            producerWindows.remove(member);
+            producerCompressors.remove(member);
+            AdminUtils.closeInstance(member);
+        }
+    }
+
+    /**
+     * 获取后台线程，第一次调用时创建
+     *
+     * @return ScheduledThreadPoolExecutor
+     */
+    private synchronized ScheduledThreadPoolExecutor scheduler() {
+        if (null == scheduler) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ons-tcp-producer-");
+            threadFactory.setDaemon(true);
+            scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+        }
+        return scheduler;
+    }
+
+    /**
+     * 有实例数大于1的配置时启动实例池健康检查，只启动一次
+     */
+    private synchronized void startPoolChecker() {
+        if (poolCheckScheduled || registry.values().stream().noneMatch(r -> r.pool.size() > 1)) {
+            return;
+        }
+        try {
+            scheduler().scheduleWithFixedDelay(this::checkPools, POOL_CHECK_INTERVAL_MILLIS, POOL_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            poolCheckScheduled = true;
+        } catch (RejectedExecutionException e) {
+            log.warn("TCP producer factory is shutdown,pool check not started.");
+        }
+    }
+
+    /**
+     * 检查所有实例数大于1的实例池，排空并重建不健康的实例
+     */
+    private void checkPools() {
+        registry.forEach((name, registration) -> {
+            if (registration.pool.size() <= 1) {
+                return;
+            }
+            try {
+                registration.pool.heal(registration.properties.getPoolFailureThreshold(), registration.properties.getPoolDrainMillis());
+            } catch (Exception e) {
+                log.error("check TCP producer pool {} error!", name, e);
+            }
+        });
+    }
+
+    /**
+     * 生产者实例的InstanceName，实例数大于1时在配置的instanceName（未配置时为生产者名称）后加实例序号
+     *
+     * @param properties 生产者配置
+     * @param index      实例序号
+     * @return 实例数为1时返回配置的instanceName，为空时不设置
+     */
+    private String instanceName(TcpProducerProperties properties, int index) {
+        if (properties.getPoolSize() <= 1) {
+            return properties.getInstanceName();
+        }
+        String base = StringUtils.isEmpty(properties.getInstanceName()) ? properties.getConfigName() : properties.getInstanceName();
+        return base + "-" + index;
+    }
+
+    /**
+     * 记录生产者实例开始发送一条消息，不属于实例池的实例忽略
+     *
+     * @param producer 生产者实例
+     */
+    public void beginSend(Admin producer) {
+        TcpProducerPool<?> pool = null == producer ? null : memberPools.get(producer);
+        if (null != pool) {
+            pool.begin(producer);
+        }
+    }
+
+    /**
+     * 记录生产者实例完成发送一条消息
+     *
+     * @param producer 生产者实例
+     * @param success  是否发送成功
+     */
+    public void endSend(Admin producer, boolean success) {
+        TcpProducerPool<?> pool = null == producer ? null : memberPools.get(producer);
+        if (null != pool) {
+            pool.end(producer, success);
+        }
+    }
+
+    /**
+     * 获取生产者名称对应的实例池，用于观察各实例处理中的消息数和重建次数
+     *
+     * @param name 生产者名称
+     * @return 实例池/null
+     */
+    public TcpProducerPool<?> getProducerPool(@NotEmpty String name) {
+        Registration registration = null == name ? null : registry.get(name);
+        return null == registration ? null : registration.pool;
+    }
+
+    /**
+     * 获取注册表中指定类型的实例池
+     *
+     * @param name 生产者名称
+     * @param type 消息类型
+     * @param <T>  生产者类型，与消息类型对应
+     * @return 实例池，没有该生产者或类型不符时返回NULL
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Admin> TcpProducerPool<T> getPool(String name, MessageType type) {
+        Registration registration = null == name ? null : registry.get(name);
+        return null != registration && type.equals(registration.type) ? (TcpProducerPool<T>) registration.pool : null;
+    }
+
+    /**
+     * 为生产者实例设置消息体压缩配置
+     *
+     * @param properties 生产者配置
+     * @param producer   生产者实例
+     */
+    private void registerCompressor(TcpProducerProperties properties, Admin producer) {
+        OnsBodyCompressor compressor = OnsBodyCompressor.of(properties);
+        if (null != compressor) {
+            producerCompressors.put(producer, compressor);
+        }
+    }
+
     /**
      * 获取生产者名称对应配置的消息类型
      *
@@ -212,49 +674,118 @@ public class TcpProducerFactory implements OnsFactory {
      * @return 消息类型
      */
     public MessageType getClientMsgTypeByName(@NotEmpty String name) {
-        return nameMap.get(name);
+        Registration registration = null == name ? null : registry.get(name);
+        return null == registration ? null : registration.type;
+    }
+
+    /**
+     * 获取生产者名称对应配置的默认发送方式
+     *
+     * @param name 生产者名称
+     * @return 没有对应配置时为SYNC
+     */
+    public SendMode getSendMode(@NotEmpty String name) {
+        Registration registration = null == name ? null : registry.get(name);
+        TcpProducerProperties properties = null == registration ? null : registration.properties;
+        return null == properties || null == properties.getSendMode() ? SendMode.SYNC : properties.getSendMode();
+    }
+
+    /**
+     * 根据<code>name</code>租用普通消息，延时消息，定时消息，生产者实例，发送完成后关闭租约归还
+     *
+     * @param name 名称，配置中map的key
+     * @return 租约，没有该生产者时实例为NULL
+     */
+    public TcpProducerPool.Lease<Producer> leaseNormalProducer(@NotEmpty String name) {
+        return lease(name, MessageType.NORMAL, null);
+    }
+
+    /**
+     * 根据<code>name</code>租用顺序消息生产者实例，同一个shardingKey固定使用实例池中的同一个实例，发送完成后关闭租约归还
+     *
+     * @param name        名称，配置中map的key
+     * @param shardingKey 分片key
+     * @return 租约，没有该生产者时实例为NULL
+     */
+    public TcpProducerPool.Lease<OrderProducer> leaseOrderProducer(@NotEmpty String name, String shardingKey) {
+        return lease(name, MessageType.ORDER, shardingKey);
+    }
+
+    /**
+     * 根据<code>name</code>租用事务消息生产者实例，发送完成后关闭租约归还
+     *
+     * @param name 名称，配置中map的key
+     * @return 租约，没有该生产者时实例为NULL
+     */
+    public TcpProducerPool.Lease<TransactionProducer> leaseTransactionProducer(@NotEmpty String name) {
+        return lease(name, MessageType.TRANSACTION, null);
+    }
+
+    /**
+     * 从注册表中的实例池租用实例，读到的实例池已退役时重新读取注册表，退役前注册表已发布新的实例池或已移除该生产者
+     *
+     * @param name     生产者名称
+     * @param type     消息类型
+     * @param affinity 亲和键
+     * @param <T>      生产者类型，与消息类型对应
+     * @return 租约，没有该生产者时实例为NULL
+     */
+    private <T extends Admin> TcpProducerPool.Lease<T> lease(String name, MessageType type, Object affinity) {
+        while (true) {
+            TcpProducerPool<T> pool = getPool(name, type);
+            if (null == pool) {
+                return TcpProducerPool.Lease.empty();
+            }
+            TcpProducerPool.Lease<T> lease = pool.lease(affinity);
+            if (null != lease) {
+                return lease;
+            }
+        }
     }
 
     /**
-     * 根据<code>name</code>获取普通消息，延时消息，定时消息，生产者实例
+     * 根据<code>name</code>获取普通消息，延时消息，定时消息，生产者实例。获取的实例不计租约，实例池被替换后最多再等待poolDrainMillis即关闭
      *
      * @param name 名称，配置中map的key
      * @return 消息生产者/null
      */
     public Producer getNormalProducer(@NotEmpty String name) {
-        Producer producer = null;
-        if (MessageType.NORMAL.equals(this.getClientMsgTypeByName(name))) {
-            producer = this.normalProducerContainer.get(name);
-        }
-        return producer;
+        TcpProducerPool<Producer> pool = getPool(name, MessageType.NORMAL);
+        return null == pool ? null : pool.select();
     }
 
     /**
-     * 根据<code>name</code>获取顺序消息生产者实例
+     * 根据<code>name</code>获取顺序消息生产者实例。获取的实例不计租约，实例池被替换后最多再等待poolDrainMillis即关闭
      *
      * @param name 名称，配置中map的key
      * @return 顺序消息生产者/null
      */
     public OrderProducer getOrderProducer(@NotEmpty String name) {
-        OrderProducer producer = null;
-        if (MessageType.ORDER.equals(this.getClientMsgTypeByName(name))) {
-            producer = this.orderProducerContainer.get(name);
-        }
-        return producer;
+        TcpProducerPool<OrderProducer> pool = getPool(name, MessageType.ORDER);
+        return null == pool ? null : pool.select();
+    }
+
+    /**
+     * 根据<code>name</code>获取顺序消息生产者实例，同一个shardingKey固定使用实例池中的同一个实例，该实例不健康时按策略选择，获取的实例不计租约
+     *
+     * @param name        名称，配置中map的key
+     * @param shardingKey 分片key
+     * @return 顺序消息生产者/null
+     */
+    public OrderProducer getOrderProducer(@NotEmpty String name, String shardingKey) {
+        TcpProducerPool<OrderProducer> pool = getPool(name, MessageType.ORDER);
+        return null == pool ? null : pool.select(shardingKey);
     }
 
     /**
-     * 根据<code>name</code>获取事务消息生产者实例
+     * 根据<code>name</code>获取事务消息生产者实例。获取的实例不计租约，实例池被替换后最多再等待poolDrainMillis即关闭
      *
      * @param name 名称，配置中map的key
      * @return 事务消息生产者/null
      */
     public TransactionProducer getTransactionProducer(@NotEmpty String name) {
-        TransactionProducer producer = null;
-        if (MessageType.TRANSACTION.equals(this.getClientMsgTypeByName(name))) {
-            producer = this.transactionContainer.get(name);
-        }
-        return producer;
+        TcpProducerPool<TransactionProducer> pool = getPool(name, MessageType.TRANSACTION);
+        return null == pool ? null : pool.select();
     }
 
     /**
@@ -263,15 +794,16 @@ public class TcpProducerFactory implements OnsFactory {
      * @param accessKey  身份验证标识
      * @param secretKey  身份验证密钥
      * @param timeout    发送超时时间
-     * @param nameServer tcp连接点
+     * @param nameServer   tcp连接点
+     * @param instanceName 实例名，为空时不设置
      * @return tcp普通消息生产者实例
      */
-    private Producer createNormalProducer(String accessKey, String secretKey, String timeout, String nameServer) {
+    private Producer createNormalProducer(String accessKey, String secretKey, String timeout, String nameServer, String instanceName) {
         if (OnsStringUtils.isAnyEmpty(accessKey, secretKey, nameServer)) {
             log.error("MQ producer can't init,because init parameter can't resolved!");
             return null;
         }
-        Properties properties = getClientProperties(accessKey, secretKey, timeout, nameServer);
+        Properties properties = getClientProperties(accessKey, secretKey, timeout, nameServer, instanceName);
         Producer producer;
         try {
             producer = ONSFactory.createProducer(properties);
@@ -291,15 +823,16 @@ public class TcpProducerFactory implements OnsFactory {
      * @param secretKey  身份验证密钥
      * @param timeout    发送超时时间
      * @param nameServer tcp连接点
-     * @param group      发送者group，此group不能和其他类型消息混用
+     * @param group        发送者group，此group不能和其他类型消息混用
+     * @param instanceName 实例名，为空时不设置
      * @return 顺序消息生产者
      */
-    private OrderProducer createOrderProducer(String accessKey, String secretKey, String timeout, String nameServer, String group) {
+    private OrderProducer createOrderProducer(String accessKey, String secretKey, String timeout, String nameServer, String group, String instanceName) {
         if (OnsStringUtils.isAnyEmpty(accessKey, secretKey, nameServer, group)) {
             log.error("MQ order producer can't init,because init parameter can't resolve!");
             return null;
         }
-        Properties properties = getClientProperties(accessKey, secretKey, timeout, nameServer);
+        Properties properties = getClientProperties(accessKey, secretKey, timeout, nameServer, instanceName);
         properties.put(PropertyKeyConst.GROUP_ID, group);
         OrderProducer producer;
         try {
@@ -322,18 +855,19 @@ public class TcpProducerFactory implements OnsFactory {
      * @param nameServer         tcp连接点
      * @param group              发送者group，此group不能和其他类型消息混用
      * @param transactionChecker 事务状态检查接口实现类
+     * @param instanceName       实例名，为空时不设置
      * @return 事务消息生产者
      */
-    private TransactionProducer createTransactionProducer(String accessKey, String secretKey, String timeout, String nameServer, String group, LocalTransactionChecker transactionChecker) {
+    private TransactionProducer createTransactionProducer(String accessKey, String secretKey, String timeout, String nameServer, String group, LocalTransactionChecker transactionChecker, String instanceName) {
         if (null == transactionChecker && OnsStringUtils.isAnyEmpty(accessKey, secretKey, nameServer, group)) {
             log.error("MQ transaction producer can't init,because init parameter can't resolve!");
             return null;
         }
-        Properties properties = getClientProperties(accessKey, secretKey, timeout, nameServer);
+        Properties properties = getClientProperties(accessKey, secretKey, timeout, nameServer, instanceName);
         properties.put(PropertyKeyConst.GROUP_ID, group);
         TransactionProducer producer;
         try {
-            producer = ONSFactory.createTransactionProducer(properties, transactionChecker);
+            producer = ONSFactory.createTransactionProducer(properties, journaled(transactionChecker));
             // 在发送消息前，必须调用start方法来启动Producer，只需调用一次即可。
             producer.start();
         } catch (Exception e) {
@@ -353,16 +887,50 @@ public class TcpProducerFactory implements OnsFactory {
      */
     @Override
     public void shutdown() {
-        //循环所有容器，对容器中生产者调用shutdown
-        if (!CollectionUtils.isEmpty(normalProducerContainer)) {
-            normalProducerContainer.values().forEach(AdminUtils::closeInstance);
+        closed = true;
+        synchronized (this) {
+            if (null != scheduler) {
+                scheduler.shutdownNow();
+            }
         }
-        if (!CollectionUtils.isEmpty(orderProducerContainer)) {
-            orderProducerContainer.values().forEach(AdminUtils::closeInstance);
+        //关闭注册表中和等待退役的所有实例池
+        registry.values().forEach(registration -> closePool(registration.pool));
+        retiring.forEach(this::closePool);
+        retiring.clear();
+        if (null != journal) {
+            journal.close();
         }
-        if (!CollectionUtils.isEmpty(transactionContainer)) {
-            transactionContainer.values().forEach(AdminUtils::closeInstance);
+    }
+
+    /**
+     * 获取本地事务结果日志
+     *
+     * @return 没有启用时返回NULL
+     */
+    public OnsTransactionJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 启用本地事务结果日志时，包装事务状态检查接口，先从日志中获取结果
+     *
+     * @param checker 事务状态检查接口实现类
+     * @return LocalTransactionChecker
+     */
+    private LocalTransactionChecker journaled(final LocalTransactionChecker checker) {
+        if (null == journal || null == checker) {
+            return checker;
         }
+        return msg -> {
+            OnsTransactionState state = journal.lookup(msg.getMsgID());
+            if (OnsTransactionState.COMMIT.equals(state)) {
+                return TransactionStatus.CommitTransaction;
+            }
+            if (OnsTransactionState.ROLLBACK.equals(state)) {
+                return TransactionStatus.RollbackTransaction;
+            }
+            return checker.check(msg);
+        };
     }
 
     /**
@@ -371,10 +939,11 @@ public class TcpProducerFactory implements OnsFactory {
      * @param accessKey  身份验证标识
      * @param secretKey  身份验证密钥
      * @param timeout    发送超时时间
-     * @param nameServer tcp连接点
+     * @param nameServer   tcp连接点
+     * @param instanceName 实例名，为空时不设置
      * @return 通用的properties
      */
-    private Properties getClientProperties(String accessKey, String secretKey, String timeout, String nameServer) {
+    private Properties getClientProperties(String accessKey, String secretKey, String timeout, String nameServer, String instanceName) {
         Properties properties = new Properties();
         // AccessKey ID阿里云身份验证，在阿里云服务器管理控制台创建。
         properties.put(PropertyKeyConst.AccessKey, accessKey);
@@ -384,9 +953,36 @@ public class TcpProducerFactory implements OnsFactory {
         properties.setProperty(PropertyKeyConst.SendMsgTimeoutMillis, timeout);
         // 设置TCP协议接入点，进入控制台的实例详情页面的TCP协议客户端接入点区域查看。
         properties.put(PropertyKeyConst.NAMESRV_ADDR, nameServer);
+        //同一进程中InstanceName相同的实例共享底层连接，实例池中的各实例使用不同的InstanceName
+        if (StringUtils.isNotEmpty(instanceName)) {
+            properties.put(PropertyKeyConst.InstanceName, instanceName);
+        }
         return properties;
     }
 
+    /**
+     * 事务消息生产者获取事务状态检查接口，获取失败只记录日志
+     *
+     * @param name       生产者名称
+     * @param properties 生产者配置
+     * @return 非事务消息或获取失败时返回NULL
+     */
+    private LocalTransactionChecker getTransactionChecker(String name, TcpProducerProperties properties) {
+        if (!MessageType.TRANSACTION.equals(properties.getMsgType())) {
+            return null;
+        }
+        LocalTransactionChecker checker = null;
+        try {
+            checker = getTransactionCheckerBean(properties);
+        } catch (Exception e) {
+            log.error("can't get transChecker bean of TCP producer {}.", name, e);
+        }
+        if (null == checker) {
+            log.error("the class of property[ons.producers.{}.transChecker] must be implement LocalTransactionChecker!", name);
+        }
+        return checker;
+    }
+
     /**
      * 使用配置中LocalTransactionChecker的实现类全限定名获取Spring容器中对应的实例
      *
@@ -401,4 +997,32 @@ public class TcpProducerFactory implements OnsFactory {
         }
         return checker;
     }
+
+    /**
+     * 注册表中的一个生产者，创建后不再修改
+     */
+    private static final class Registration {
+        private final MessageType type;
+        private final TcpProducerPool<? extends Admin> pool;
+        private final TcpProducerProperties properties;
+        /**
+         * 注册时的配置内容和认证信息，配置对象可能被容器原地重新绑定，刷新时按注册时的内容判断是否变化
+         */
+        private final String fingerprint;
+
+        Registration(TcpProducerProperties properties, TcpProducerPool<? extends Admin> pool, String accessKey, String secretKey) {
+            this.type = properties.getMsgType();
+            this.pool = pool;
+            this.properties = properties;
+            this.fingerprint = fingerprint(properties, accessKey, secretKey);
+        }
+
+        boolean matches(TcpProducerProperties other, String accessKey, String secretKey) {
+            return fingerprint.equals(fingerprint(other, accessKey, secretKey));
+        }
+
+        private static String fingerprint(TcpProducerProperties properties, String accessKey, String secretKey) {
+            return properties + "|" + accessKey + "|" + secretKey;
+        }
+    }
 }
@@ -0,0 +1,435 @@
+package io.github.yanglong.ons.tcp.producer;
+
+import com.aliyun.openservices.ons.api.Admin;
+import io.github.yanglong.ons.commons.properties.PoolStrategy;
+import io.github.yanglong.ons.tcp.AdminUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Description: 同一生产者配置的TCP生产者实例池
+ *
+ * 发送时按策略从健康的实例中选择一个，顺序消息按shardingKey固定选择同一个实例，发送前后由TcpSender记录实例处理中的消息数和连续失败次数。
+ * 未启动或连续失败达到阈值的实例标记为排空，不再分配新消息，处理中的消息完成或等待超时后关闭并重建，各实例独立重建。
+ * 处理中的消息数、连续失败次数和排空时间记录在每个实例自己的计数对象中，重建时整体替换，旧实例迟到的计数不会影响新实例。
+ * 没有健康实例时仍返回一个实例，由发送方按实例未就绪处理。
+ * 按名称发送时通过lease租用实例，从选择实例开始计数到发送方归还为止；实例池退役后不再租出实例，租出的实例全部归还且处理中的消息完成后才算排空。
+ *
+ * @param <T> 生产者类型
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class TcpProducerPool<T extends Admin> {
+    /**
+     * 生产者名称
+     */
+    @Getter
+    private final String name;
+    /**
+     * 选择实例的策略
+     */
+    @Getter
+    private final PoolStrategy strategy;
+    private final MemberFactory<T> memberFactory;
+    /**
+     * 各位置的实例及其计数，实例创建失败时实例为NULL
+     */
+    private final AtomicReferenceArray<Member<T>> members;
+    private final AtomicInteger cursor = new AtomicInteger();
+    /**
+     * 重建的实例数
+     */
+    private final AtomicLong restartCount = new AtomicLong();
+    /**
+     * 租出未归还的实例数
+     */
+    private final AtomicInteger leases = new AtomicInteger();
+    /**
+     * 是否已退役，退役后不再租出实例
+     */
+    private volatile boolean retired;
+
+    public TcpProducerPool(String name, PoolStrategy strategy, int size, MemberFactory<T> memberFactory) {
+        this.name = name;
+        this.strategy = null == strategy ? PoolStrategy.ROUND_ROBIN : strategy;
+        this.memberFactory = memberFactory;
+        int poolSize = Math.max(1, size);
+        this.members = new AtomicReferenceArray<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            members.set(i, new Member<>(memberFactory.create(i)));
+        }
+    }
+
+    /**
+     * 实例数
+     *
+     * @return 实例数
+     */
+    public int size() {
+        return members.length();
+    }
+
+    /**
+     * 是否至少创建成功了一个实例
+     *
+     * @return true-有实例
+     */
+    public boolean isCreated() {
+        for (int i = 0; i < members.length(); i++) {
+            if (null != members.get(i).instance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按策略选择一个实例
+     *
+     * @return 实例，没有健康实例时返回第一个存在的实例
+     */
+    public T select() {
+        int size = members.length();
+        if (1 == size) {
+            return members.get(0).instance;
+        }
+        Member<T> selected = null;
+        if (PoolStrategy.LEAST_IN_FLIGHT.equals(strategy)) {
+            for (int i = 0; i < size; i++) {
+                Member<T> member = members.get(i);
+                if (member.isAvailable() && (null == selected || member.inFlight.get() < selected.inFlight.get())) {
+                    selected = member;
+                }
+            }
+        } else {
+            int start = cursor.getAndIncrement() & Integer.MAX_VALUE;
+            for (int k = 0; k < size; k++) {
+                Member<T> member = members.get((start + k) % size);
+                if (member.isAvailable()) {
+                    selected = member;
+                    break;
+                }
+            }
+        }
+        if (null != selected) {
+            return selected.instance;
+        }
+        for (int i = 0; i < size; i++) {
+            T instance = members.get(i).instance;
+            if (null != instance) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按亲和键选择实例，同一个键固定使用同一个实例，该实例不可用时按策略选择
+     *
+     * @param affinity 亲和键，如顺序消息的shardingKey，为空时按策略选择
+     * @return 实例
+     */
+    public T select(Object affinity) {
+        int size = members.length();
+        if (1 == size || null == affinity) {
+            return select();
+        }
+        Member<T> member = members.get(Math.floorMod(affinity.hashCode(), size));
+        return member.isAvailable() ? member.instance : select();
+    }
+
+    /**
+     * 按策略租用一个实例，用完后关闭租约归还
+     *
+     * @return 租约，实例池已退役时返回NULL，应重新从注册表获取实例池
+     */
+    public Lease<T> lease() {
+        return lease(null);
+    }
+
+    /**
+     * 按亲和键租用一个实例，用完后关闭租约归还。先计数再检查退役标记，退役方先设置标记再检查计数，两者至少有一方能看到对方
+     *
+     * @param affinity 亲和键，如顺序消息的shardingKey，为空时按策略选择
+     * @return 租约，实例池已退役时返回NULL，应重新从注册表获取实例池
+     */
+    public Lease<T> lease(Object affinity) {
+        leases.incrementAndGet();
+        if (retired) {
+            leases.decrementAndGet();
+            return null;
+        }
+        return new Lease<>(this, select(affinity));
+    }
+
+    /**
+     * 退役实例池，之后不再租出实例
+     */
+    public void retire() {
+        retired = true;
+    }
+
+    /**
+     * 租出的实例是否已全部归还且没有处理中的消息
+     *
+     * @return true-已排空
+     */
+    public boolean isDrained() {
+        return 0 == leases.get() && 0 == getTotalInFlight();
+    }
+
+    /**
+     * 获取租出未归还的实例数
+     *
+     * @return 租约数
+     */
+    public int getLeases() {
+        return leases.get();
+    }
+
+    /**
+     * 记录实例开始发送一条消息
+     *
+     * @param member 实例
+     */
+    public void begin(Admin member) {
+        Member<T> holder = holderOf(member);
+        if (null != holder) {
+            holder.inFlight.incrementAndGet();
+        }
+    }
+
+    /**
+     * 记录实例完成发送一条消息，已被重建替换的实例忽略
+     *
+     * @param member  实例
+     * @param success 是否发送成功
+     */
+    public void end(Admin member, boolean success) {
+        Member<T> holder = holderOf(member);
+        if (null == holder) {
+            return;
+        }
+        holder.inFlight.decrementAndGet();
+        if (success) {
+            holder.failures.set(0);
+        } else {
+            holder.failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * 检查各实例，不健康的实例标记为排空，排空完成或超时后关闭并重建。由工厂的健康检查线程调用
+     *
+     * @param failureThreshold 连续失败阈值，小于等于0时只按实例状态判断
+     * @param drainMillis      排空最长等待时间
+     */
+    public void heal(int failureThreshold, long drainMillis) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < members.length(); i++) {
+            Member<T> member = members.get(i);
+            long since = member.drainingSince;
+            if (0 == since) {
+                boolean failing = failureThreshold > 0 && member.failures.get() >= failureThreshold;
+                if (AdminUtils.isInstanceReady(member.instance) && !failing) {
+                    continue;
+                }
+                since = now;
+                member.drainingSince = now;
+                log.warn("TCP producer {} member {} is unhealthy,started:{},failures:{},drain it.", name, i, AdminUtils.isInstanceReady(member.instance), member.failures.get());
+            }
+            if (member.inFlight.get() > 0 && now - since < drainMillis) {
+                continue;
+            }
+            restart(i, member);
+        }
+    }
+
+    /**
+     * 获取所有实例
+     *
+     * @return 实例，创建失败的实例不包括在内
+     */
+    public List<T> members() {
+        List<T> list = new ArrayList<>(members.length());
+        for (int i = 0; i < members.length(); i++) {
+            T instance = members.get(i).instance;
+            if (null != instance) {
+                list.add(instance);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 获取各实例处理中的消息数
+     *
+     * @return 按实例序号排列
+     */
+    public int[] getInFlight() {
+        int[] snapshot = new int[members.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = members.get(i).inFlight.get();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 获取所有实例处理中的消息总数
+     *
+     * @return 消息数
+     */
+    public int getTotalInFlight() {
+        int total = 0;
+        for (int i = 0; i < members.length(); i++) {
+            total += members.get(i).inFlight.get();
+        }
+        return total;
+    }
+
+    public long getRestartCount() {
+        return restartCount.get();
+    }
+
+    /**
+     * 查找实例当前的计数对象
+     *
+     * @param instance 实例
+     * @return 已被重建替换或不属于实例池时返回NULL
+     */
+    private Member<T> holderOf(Admin instance) {
+        if (null == instance) {
+            return null;
+        }
+        for (int i = 0; i < members.length(); i++) {
+            Member<T> member = members.get(i);
+            if (member.instance == instance) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 关闭并重建实例，新实例使用新的计数对象；重建失败时保持排空状态，下一轮再重建
+     *
+     * @param index  实例序号
+     * @param member 原实例及其计数
+     */
+    private void restart(int index, Member<T> member) {
+        if (null != member.instance) {
+            memberFactory.destroy(member.instance);
+        }
+        Member<T> created = new Member<>(memberFactory.create(index));
+        restartCount.incrementAndGet();
+        if (AdminUtils.isInstanceReady(created.instance)) {
+            log.info("TCP producer {} member {} restarted.", name, index);
+        } else {
+            created.drainingSince = member.drainingSince;
+            log.error("TCP producer {} member {} can't restart,retry later.", name, index);
+        }
+        members.set(index, created);
+    }
+
+    /**
+     * 实例及其处理中的消息数、连续失败次数和排空时间
+     *
+     * @param <T> 生产者类型
+     */
+    private static final class Member<T extends Admin> {
+        /**
+         * 实例，创建失败时为NULL
+         */
+        private final T instance;
+        /**
+         * 处理中的消息数
+         */
+        private final AtomicInteger inFlight = new AtomicInteger();
+        /**
+         * 连续失败次数
+         */
+        private final AtomicInteger failures = new AtomicInteger();
+        /**
+         * 开始排空的时间，0表示未排空，只由健康检查线程修改
+         */
+        private volatile long drainingSince;
+
+        Member(T instance) {
+            this.instance = instance;
+        }
+
+        boolean isAvailable() {
+            return 0 == drainingSince && AdminUtils.isInstanceReady(instance);
+        }
+    }
+
+    /**
+     * 实例租约，关闭时归还实例，重复关闭只归还一次。租约只在租用的线程中使用，不能跨线程共享
+     *
+     * @param <T> 生产者类型
+     */
+    public static final class Lease<T extends Admin> implements AutoCloseable {
+        private static final Lease<Admin> EMPTY = new Lease<>(null, null);
+        private final TcpProducerPool<T> pool;
+        /**
+         * 租用的实例，没有该生产者时为NULL
+         */
+        @Getter
+        private final T member;
+        private boolean released;
+
+        private Lease(TcpProducerPool<T> pool, T member) {
+            this.pool = pool;
+            this.member = member;
+        }
+
+        /**
+         * 没有对应实例池时的空租约
+         *
+         * @param <T> 生产者类型
+         * @return 实例为NULL的租约
+         */
+        @SuppressWarnings("unchecked")
+        public static <T extends Admin> Lease<T> empty() {
+            return (Lease<T>) EMPTY;
+        }
+
+        @Override
+        public void close() {
+            if (null != pool && !released) {
+                released = true;
+                pool.leases.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 实例的创建和销毁，由工厂实现，负责实例相关的发送窗口、压缩配置等的注册和移除
+     *
+     * @param <T> 生产者类型
+     */
+    public interface MemberFactory<T extends Admin> {
+        /**
+         * 创建并启动实例
+         *
+         * @param index 实例序号
+         * @return 实例，创建失败时为NULL
+         */
+        T create(int index);
+
+        /**
+         * 关闭实例
+         *
+         * @param member 实例
+         */
+        void destroy(T member);
+    }
+}
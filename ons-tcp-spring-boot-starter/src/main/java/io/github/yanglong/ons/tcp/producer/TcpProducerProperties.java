@@ -3,8 +3,11 @@ package io.github.yanglong.ons.tcp.producer;
 import com.aliyun.openservices.ons.api.transaction.LocalTransactionChecker;
 import io.github.yanglong.ons.commons.properties.ClientType;
 import io.github.yanglong.ons.commons.properties.OnsProducerProperties;
+import io.github.yanglong.ons.commons.properties.PoolStrategy;
+import io.github.yanglong.ons.commons.properties.SendMode;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 /**
  * Description: TCP发送者属性配置
@@ -15,6 +18,7 @@ import lombok.EqualsAndHashCode;
  */
 @Data
 @EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
 public class TcpProducerProperties extends OnsProducerProperties {
     /**
      * 固定为HTTP
@@ -25,4 +29,25 @@ public class TcpProducerProperties extends OnsProducerProperties {
      * TCP模式下，如果是事务消息，需要设置事务确认接口实现类，配置文件中设置实现类的全限定名称
      */
     private Class<LocalTransactionChecker> transChecker;
+
+    /**
+     * 同一配置创建的生产者实例数，默认1。大于1时各实例使用不同的InstanceName，不共享底层连接
+     */
+    private int poolSize = 1;
+    /**
+     * 生产者实例数大于1时选择实例的策略，默认ROUND_ROBIN
+     */
+    private PoolStrategy poolStrategy = PoolStrategy.ROUND_ROBIN;
+    /**
+     * 实例连续发送失败达到此次数时视为不健康，停止分配新消息并重建，默认5，小于等于0时只按实例状态判断
+     */
+    private int poolFailureThreshold = 5;
+    /**
+     * 不健康实例或配置刷新后被替换的实例池等待处理中消息完成的最长时间，超过后直接关闭，单位毫秒，默认10000
+     */
+    private long poolDrainMillis = 10000;
+    /**
+     * 按生产者名称发送普通消息时的默认发送方式，默认SYNC。ONEWAY时sendMsg不等待Broker确认，失败不写入本地发送暂存
+     */
+    private SendMode sendMode = SendMode.SYNC;
 }
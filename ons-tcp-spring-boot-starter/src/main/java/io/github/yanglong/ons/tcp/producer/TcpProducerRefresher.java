@@ -0,0 +1,99 @@
+package io.github.yanglong.ons.tcp.producer;
+
+import io.github.yanglong.ons.commons.properties.OnsAccessProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Description: 配置变更后刷新TCP生产者
+ *
+ * 监听Spring Cloud的EnvironmentChangeEvent，按类名识别，不依赖spring-cloud-context。变更的配置项属于ali-ons.default-access或ali-ons.tcp.producer时，
+ * 从Environment重新绑定生产者配置和默认认证信息，由TcpProducerFactory替换有变化的生产者，被替换的实例处理中的消息完成后关闭。
+ * 只刷新生产者配置，spool、journal、startup等配置需要重启生效。没有使用Spring Cloud时可以在配置变更后调用refresh方法。
+ *
+ * @author YangLong [410357434@163.com]
+ * @version V1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class TcpProducerRefresher implements ApplicationListener<ApplicationEvent> {
+    private static final String ENVIRONMENT_CHANGE_EVENT = "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+    private static final String PRODUCER_PREFIX = "ali-ons.tcp.producer";
+    private static final String ACCESS_PREFIX = "ali-ons.default-access";
+    private final TcpProducerFactory factory;
+    private final Environment environment;
+
+    public TcpProducerRefresher(TcpProducerFactory factory, Environment environment) {
+        this.factory = factory;
+        this.environment = environment;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (ENVIRONMENT_CHANGE_EVENT.equals(event.getClass().getName()) && isProducerChanged(changedKeys(event))) {
+            refresh();
+        }
+    }
+
+    /**
+     * 从Environment重新绑定生产者配置并刷新生产者
+     *
+     * @return 替换、新增和移除的生产者数，配置绑定失败时返回0
+     */
+    public int refresh() {
+        try {
+            Binder binder = Binder.get(environment);
+            TcpProducerConfig config = binder.bind(PRODUCER_PREFIX, TcpProducerConfig.class).orElse(null);
+            if (null == config) {
+                log.warn("refresh TCP producers ignored,there is no config of {}.", PRODUCER_PREFIX);
+                return 0;
+            }
+            OnsAccessProperties defaultAccess = binder.bind(ACCESS_PREFIX, OnsAccessProperties.class).orElse(null);
+            return factory.refresh(config.getProducers(), defaultAccess);
+        } catch (Exception e) {
+            log.error("refresh TCP producers error,keep the current producers!", e);
+            return 0;
+        }
+    }
+
+    /**
+     * 变更的配置项中是否有生产者配置，无法获取变更项时按有变更处理
+     *
+     * @param keys 变更的配置项
+     * @return true-有生产者配置变更
+     */
+    private boolean isProducerChanged(Collection<?> keys) {
+        if (null == keys) {
+            return true;
+        }
+        String producer = normalize(PRODUCER_PREFIX);
+        String access = normalize(ACCESS_PREFIX);
+        return keys.stream().map(key -> normalize(String.valueOf(key))).anyMatch(key -> key.startsWith(producer) || key.startsWith(access));
+    }
+
+    /**
+     * 配置项统一为小写、点分隔，兼容环境变量等形式
+     *
+     * @param key 配置项
+     * @return 统一后的配置项
+     */
+    private static String normalize(String key) {
+        return key.toLowerCase(Locale.ROOT).replace('_', '.').replace('-', '.');
+    }
+
+    private static Collection<?> changedKeys(ApplicationEvent event) {
+        try {
+            Object keys = event.getClass().getMethod("getKeys").invoke(event);
+            return keys instanceof Collection ? (Collection<?>) keys : null;
+        } catch (ReflectiveOperationException e) {
+            log.debug("can't get changed keys of {}.", event.getClass().getName());
+            return null;
+        }
+    }
+}
@@ -1,23 +1,58 @@
 package io.github.yanglong.ons.tcp.producer;
 
+import com.aliyun.openservices.ons.api.Admin;
 import com.aliyun.openservices.ons.api.Message;
+import com.aliyun.openservices.ons.api.OnExceptionContext;
 import com.aliyun.openservices.ons.api.Producer;
 import com.aliyun.openservices.ons.api.SendCallback;
 import com.aliyun.openservices.ons.api.SendResult;
+import com.aliyun.openservices.ons.api.exception.ONSClientException;
 import com.aliyun.openservices.ons.api.order.OrderProducer;
 import com.aliyun.openservices.ons.api.transaction.LocalTransactionExecuter;
 import com.aliyun.openservices.ons.api.transaction.TransactionProducer;
+import com.aliyun.openservices.ons.api.transaction.TransactionStatus;
+import io.github.yanglong.ons.commons.audit.OnsAuditEvent;
+import io.github.yanglong.ons.commons.audit.OnsMessageAudit;
+import io.github.yanglong.ons.commons.codec.OnsCodecException;
+import io.github.yanglong.ons.commons.codec.OnsMessageCodecs;
+import io.github.yanglong.ons.commons.producer.OnsSendException;
+import io.github.yanglong.ons.commons.producer.OnsSendReceipt;
+import io.github.yanglong.ons.commons.producer.OnsSendSpool;
+import io.github.yanglong.ons.commons.producer.OnsSendWindow;
+import io.github.yanglong.ons.commons.producer.OnsSpoolRecord;
+import io.github.yanglong.ons.commons.producer.OnsTransactionJournal;
+import io.github.yanglong.ons.commons.producer.OnsTransactionState;
+import io.github.yanglong.ons.commons.properties.MessageType;
+import io.github.yanglong.ons.commons.properties.SendMode;
+import io.github.yanglong.ons.commons.utils.OnsBytes;
+import io.github.yanglong.ons.commons.utils.OnsFutures;
 import io.github.yanglong.ons.tcp.AdminUtils;
+import io.github.yanglong.ons.tcp.TcpMessageBodies;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Description: TC消息发送客户端封装
  *
  * 使用OnsTcpProducerFactory中的容器获取对应名称的producer实例，进行消息发送。
- * 没有对异步发送进行延时和定时消息封装。
+ * sendAsync系列方法返回CompletableFuture，发送失败或超时时future异常完成，可以组合多个发送后统一等待。
+ * 生产者配置了异步发送上限时，异步发送先获取发送窗口，达到上限时按配置的策略阻塞、失败或在调用线程中同步发送。
+ * 普通、顺序、定时消息和sendAsync提供byte[]和ByteBuffer消息体的重载，已序列化的消息体直接发送，不再经过String转换。
+ * 生产者配置了压缩时，超过阈值的消息体压缩后发送，并通过用户属性标记压缩算法，由消费者自动解压。
+ * send和sendAsync可以直接发送对象，按类型选择MessageCodec编码，默认使用Jackson编码为JSON。
+ * 发送的消息通过OnsMessageAudit异步记录审计日志，是否记录消息体由ali-ons.audit配置决定，发送路径上不格式化消息体。
+ * 按生产者名称发送时从实例池中选择实例，发送前后记录实例处理中的消息数和发送结果，用于实例选择和健康检查。
+ * sendOneway单向发送普通消息，不等待Broker确认，只统计发送和失败次数；生产者配置sendMode为ONEWAY时，按名称调用sendMsg也使用单向发送。
+ * 启用本地事务结果日志时，事务消息的本地事务结果按消息ID写入日志，事务回查时优先从日志中获取。
+ * 启用本地发送暂存时，按生产者名称同步发送普通、顺序、延时和定时消息失败后，消息写入本地磁盘，由后台线程在生产者恢复后重新发送。
  *
  * @author YangLong [410357434@163.com]
  * @version V1.0
@@ -25,29 +60,238 @@ import java.nio.charset.StandardCharsets;
  */
 @Slf4j
 public class TcpSender {
+    /**
+     * 审计日志中的客户端类型
+     */
+    private static final String CLIENT = "TCP";
     private final TcpProducerFactory tcpProducerFactory;
+    /**
+     * 本地发送暂存，未启用时为空
+     */
+    private final OnsSendSpool spool;
+    /**
+     * 消息对象编解码器
+     */
+    private final OnsMessageCodecs codecs;
+    /**
+     * 单向发送的消息数
+     */
+    private final LongAdder onewayCount = new LongAdder();
+    /**
+     * 单向发送在本地失败的消息数，单向发送不等待Broker确认，Broker端的失败不计入
+     */
+    private final LongAdder onewayFailedCount = new LongAdder();
 
     public TcpSender(TcpProducerFactory tcpProducerFactory) {
+        this(tcpProducerFactory, null);
+    }
+
+    public TcpSender(TcpProducerFactory tcpProducerFactory, OnsSendSpool spool) {
+        this(tcpProducerFactory, spool, OnsMessageCodecs.withDefaults(Collections.emptyList(), null));
+    }
+
+    public TcpSender(TcpProducerFactory tcpProducerFactory, OnsSendSpool spool, OnsMessageCodecs codecs) {
         this.tcpProducerFactory = tcpProducerFactory;
+        this.spool = spool;
+        this.codecs = codecs;
+        if (null != spool) {
+            spool.start(this::replay);
+        }
+    }
+
+    /**
+     * 关闭本地发送暂存，未发送的消息在下次启动后继续发送
+     */
+    public void shutdown() {
+        if (null != spool) {
+            spool.close();
+        }
+    }
+
+    /**
+     * 获取本地发送暂存
+     *
+     * @return 未启用时为空
+     */
+    public OnsSendSpool getSpool() {
+        return spool;
+    }
+
+    /**
+     * 获取单向发送的消息数
+     *
+     * @return 消息数
+     */
+    public long getOnewayCount() {
+        return onewayCount.sum();
+    }
+
+    /**
+     * 获取单向发送在本地失败的消息数，包括生产者未就绪和客户端抛出异常
+     *
+     * @return 消息数
+     */
+    public long getOnewayFailedCount() {
+        return onewayFailedCount.sum();
+    }
+
+    /**
+     * 同步发送失败时写入本地发送暂存
+     *
+     * @param producerName     消息生产者名字
+     * @param messageType      消息类型
+     * @param topic            topic
+     * @param tag              标签
+     * @param key              业务唯一键值
+     * @param shardingKey      分区标识，非顺序消息为空
+     * @param msg              消息
+     * @param startDeliverTime 定时投递时间，小于等于0时立即投递
+     */
+    private void spool(String producerName, MessageType messageType, String topic, String tag, String key, String shardingKey, String msg, long startDeliverTime) {
+        if (null != msg) {
+            spool(producerName, messageType, topic, tag, key, shardingKey, msg.getBytes(StandardCharsets.UTF_8), startDeliverTime);
+        }
+    }
+
+    /**
+     * 同步发送失败时写入本地发送暂存
+     *
+     * @param producerName     消息生产者名字
+     * @param messageType      消息类型
+     * @param topic            topic
+     * @param tag              标签
+     * @param key              业务唯一键值
+     * @param shardingKey      分区标识，非顺序消息为空
+     * @param body             消息体
+     * @param startDeliverTime 定时投递时间，小于等于0时立即投递
+     */
+    private void spool(String producerName, MessageType messageType, String topic, String tag, String key, String shardingKey, byte[] body, long startDeliverTime) {
+        if (null == spool || null == body) {
+            return;
+        }
+        OnsSpoolRecord record = OnsSpoolRecord.of(producerName, messageType, topic, tag, key, body);
+        record.setShardingKey(shardingKey);
+        record.setStartDeliverTime(startDeliverTime);
+        if (spool.append(record)) {
+            log.warn("ONS TCP client spooled failed msg,will resend later.producer={},topic={},key={}", producerName, topic, key);
+        }
+    }
+
+    /**
+     * 重新发送暂存的消息，生产者未就绪或发送失败时返回false，生产者配置已不存在时丢弃消息
+     *
+     * @param record 暂存的消息
+     * @return 是否发送成功
+     */
+    private boolean replay(OnsSpoolRecord record) {
+        Message message = createMsg(record.getTopic(), record.getTag(), record.getKey(), record.getBody());
+        if (record.getStartDeliverTime() > 0) {
+            message.setStartDeliverTime(record.getStartDeliverTime());
+        }
+        SendResult sendResult;
+        if (MessageType.ORDER.equals(record.getMessageType())) {
+            try (TcpProducerPool.Lease<OrderProducer> lease = tcpProducerFactory.leaseOrderProducer(record.getProducerName(), record.getShardingKey())) {
+                OrderProducer producer = lease.getMember();
+                if (null == producer) {
+                    log.error("ONS TCP client drop spooled msg,producer {} not exists.topic={},key={}", record.getProducerName(), record.getTopic(), record.getKey());
+                    return true;
+                }
+                if (!AdminUtils.isInstanceReady(producer)) {
+                    return false;
+                }
+                TcpMessageBodies.compress(message, tcpProducerFactory.getCompressor(producer));
+                sendResult = producer.send(message, record.getShardingKey());
+            }
+        } else {
+            try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(record.getProducerName())) {
+                Producer producer = lease.getMember();
+                if (null == producer) {
+                    log.error("ONS TCP client drop spooled msg,producer {} not exists.topic={},key={}", record.getProducerName(), record.getTopic(), record.getKey());
+                    return true;
+                }
+                if (!AdminUtils.isInstanceReady(producer)) {
+                    return false;
+                }
+                TcpMessageBodies.compress(message, tcpProducerFactory.getCompressor(producer));
+                sendResult = producer.send(message);
+            }
+        }
+        if (null == sendResult) {
+            return false;
+        }
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.RESEND_SUCCESS, record.getTopic(), record.getTag(), record.getKey(), sendResult.getMessageId(), null, "producer", record.getProducerName());
+        return true;
+    }
+
+    /**
+     * 启用本地事务结果日志时，包装本地事务执行器，本地事务提交或回滚后按消息ID记录结果，用于回答事务回查
+     *
+     * @param executer 本地事务执行器
+     * @return LocalTransactionExecuter
+     */
+    private LocalTransactionExecuter journaled(final LocalTransactionExecuter executer) {
+        final OnsTransactionJournal journal = tcpProducerFactory.getJournal();
+        if (null == journal || null == executer) {
+            return executer;
+        }
+        return (msg, arg) -> {
+            TransactionStatus status = executer.execute(msg, arg);
+            if (TransactionStatus.CommitTransaction.equals(status)) {
+                journal.record(msg.getMsgID(), OnsTransactionState.COMMIT);
+            } else if (TransactionStatus.RollbackTransaction.equals(status)) {
+                journal.record(msg.getMsgID(), OnsTransactionState.ROLLBACK);
+            }
+            return status;
+        };
+    }
+
+    /**
+     * 创建消息发送msg，按生产者的压缩配置压缩消息体
+     *
+     * @param producer 生产者实例
+     * @param topic    topic
+     * @param tag      标签
+     * @param key      业务唯一键值
+     * @param msg      消息
+     * @return ons发送的msg
+     */
+    private Message createMsg(final Admin producer, final String topic, final String tag, final String key, final String msg) {
+        return createMsg(producer, topic, tag, key, msg.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
-     * 创建消息发送msg
+     * 创建消息发送msg，按生产者的压缩配置压缩消息体，不压缩时直接使用传入的消息体
+     *
+     * @param producer 生产者实例
+     * @param topic    topic
+     * @param tag      标签
+     * @param key      业务唯一键值
+     * @param body     消息体
+     * @return ons发送的msg
+     */
+    private Message createMsg(final Admin producer, final String topic, final String tag, final String key, final byte[] body) {
+        Message message = createMsg(topic, tag, key, body);
+        TcpMessageBodies.compress(message, tcpProducerFactory.getCompressor(producer));
+        return message;
+    }
+
+    /**
+     * 创建消息发送msg，直接使用传入的消息体，不复制
      *
      * @param topic topic
      * @param tag   标签
      * @param key   业务唯一键值
-     * @param msg   消息
+     * @param body  消息体
      * @return ons发送的msg
      */
-    private Message createMsg(final String topic, final String tag, final String key, final String msg) {
+    private Message createMsg(final String topic, final String tag, final String key, final byte[] body) {
         Message message = new Message(
                 // Message所属的Topic。
                 topic,
                 // Message Tag，可理解为Gmail中的标签，对消息进行再归类，方便Consumer指定过滤条件在消息队列RocketMQ版的服务器过滤。
                 tag,
                 // Message Body，任何二进制形式的数据，消息队列RocketMQ版不做任何干预，需要Producer与Consumer协商好一致的序列化和反序列化方式。
-                msg.getBytes(StandardCharsets.UTF_8));
+                body);
         // 设置代表消息的业务关键属性，请尽可能全局唯一。以方便您在无法正常收到消息情况下，可通过控制台查询消息并补发。
         // 注意：不设置也不会影响消息正常收发。
         message.setKey(key);
@@ -60,12 +304,52 @@ public class TcpSender {
      * @param tag          标签
      * @param key          业务唯一键值
      * @param msg          消息
-     * @return msgId，失败返回NULL
+     * @return msgId，失败返回NULL。生产者配置sendMode为ONEWAY时单向发送，msgId由客户端生成
      * @see #sendMsg(Producer, String, String, String, String)
+     * @see #sendOneway(Producer, String, String, String, String)
      */
     public String sendMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg) {
-        Producer producer = tcpProducerFactory.getNormalProducer(producerName);
-        return this.sendMsg(producer, topic, tag, key, msg);
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            if (SendMode.ONEWAY.equals(tcpProducerFactory.getSendMode(producerName))) {
+                return this.sendOneway(producer, topic, tag, key, msg);
+            }
+            String msgId = this.sendMsg(producer, topic, tag, key, msg);
+            if (null == msgId) {
+                spool(producerName, MessageType.NORMAL, topic, tag, key, null, msg, 0);
+            }
+            return msgId;
+        }
+    }
+
+    /**
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param msg          消息
+     * @return 客户端生成的msgId，本地失败返回NULL
+     * @see #sendOneway(Producer, String, String, String, String)
+     */
+    public String sendOneway(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, final String key, @NotEmpty final String msg) {
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            return this.sendOneway(lease.getMember(), topic, tag, key, msg);
+        }
+    }
+
+    /**
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param body         消息体，直接作为消息内容发送，不做编码转换
+     * @return 客户端生成的msgId，本地失败返回NULL
+     * @see #sendOneway(Producer, String, String, String, byte[])
+     */
+    public String sendOneway(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, final String key, @NotNull final byte[] body) {
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            return this.sendOneway(lease.getMember(), topic, tag, key, body);
+        }
     }
 
     /**
@@ -78,8 +362,76 @@ public class TcpSender {
      * @see #sendAsyncMsg(Producer, String, String, String, String, SendCallback)
      */
     public void sendAsyncMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final SendCallback callback) {
-        Producer producer = tcpProducerFactory.getNormalProducer(producerName);
-        this.sendAsyncMsg(producer, topic, tag, key, msg, callback);
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            this.sendAsyncMsg(producer, topic, tag, key, msg, callback);
+        }
+    }
+
+    /**
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param msg          消息
+     * @return 发送结果
+     * @see #sendAsync(Producer, String, String, String, String, long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg) {
+        return sendAsync(producerName, topic, tag, key, msg, 0);
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see #sendAsync(Producer, String, String, String, String, long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long timeoutMillis) {
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            return this.sendAsync(producer, topic, tag, key, msg, timeoutMillis);
+        }
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param delayTime     延迟毫秒数
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see #sendTimeAsync(Producer, String, String, String, String, long, long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendDelayAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long delayTime, final long timeoutMillis) {
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            return this.sendTimeAsync(producer, topic, tag, key, msg, System.currentTimeMillis() + delayTime, timeoutMillis);
+        }
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param timestamp     投递消息时间的UNIX时间戳
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see #sendTimeAsync(Producer, String, String, String, String, long, long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendTimeAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long timestamp, final long timeoutMillis) {
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            return this.sendTimeAsync(producer, topic, tag, key, msg, timestamp, timeoutMillis);
+        }
     }
 
     /**
@@ -93,8 +445,14 @@ public class TcpSender {
      * @see #sendOrderMsg(OrderProducer, String, String, String, String, String)
      */
     public String sendOrderMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String shardingKey, @NotEmpty final String msg) {
-        OrderProducer producer = tcpProducerFactory.getOrderProducer(producerName);
-        return this.sendOrderMsg(producer, topic, tag, key, shardingKey, msg);
+        try (TcpProducerPool.Lease<OrderProducer> lease = tcpProducerFactory.leaseOrderProducer(producerName, shardingKey)) {
+            OrderProducer producer = lease.getMember();
+            String msgId = this.sendOrderMsg(producer, topic, tag, key, shardingKey, msg);
+            if (null == msgId) {
+                spool(producerName, MessageType.ORDER, topic, tag, key, shardingKey, msg, 0);
+            }
+            return msgId;
+        }
     }
 
     /**
@@ -109,8 +467,10 @@ public class TcpSender {
      * @see #sendTransactionMsg(TransactionProducer, LocalTransactionExecuter, String, String, String, String, Object)
      */
     public String sendTransactionMsg(@NotEmpty final String producerName, LocalTransactionExecuter executer, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final Object custom) {
-        TransactionProducer producer = tcpProducerFactory.getTransactionProducer(producerName);
-        return this.sendTransactionMsg(producer, executer, topic, tag, key, msg, custom);
+        try (TcpProducerPool.Lease<TransactionProducer> lease = tcpProducerFactory.leaseTransactionProducer(producerName)) {
+            TransactionProducer producer = lease.getMember();
+            return this.sendTransactionMsg(producer, executer, topic, tag, key, msg, custom);
+        }
     }
 
     /**
@@ -123,8 +483,15 @@ public class TcpSender {
      * @return msgId，失败返回NULL
      */
     public String sendDelayMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long delayTime) {
-        Producer producer = tcpProducerFactory.getNormalProducer(producerName);
-        return this.sendDelayMsg(producer, topic, tag, key, msg, delayTime);
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            long timestamp = System.currentTimeMillis() + delayTime;
+            String msgId = this.sendTimeMsg(producer, topic, tag, key, msg, timestamp);
+            if (null == msgId) {
+                spool(producerName, MessageType.NORMAL, topic, tag, key, null, msg, timestamp);
+            }
+            return msgId;
+        }
     }
 
     /**
@@ -137,8 +504,182 @@ public class TcpSender {
      * @return msgId，失败返回NULL
      */
     public String sendTimeMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long timestamp) {
-        Producer producer = tcpProducerFactory.getNormalProducer(producerName);
-        return this.sendTimeMsg(producer, topic, tag, key, msg, timestamp);
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            String msgId = this.sendTimeMsg(producer, topic, tag, key, msg, timestamp);
+            if (null == msgId) {
+                spool(producerName, MessageType.NORMAL, topic, tag, key, null, msg, timestamp);
+            }
+            return msgId;
+        }
+    }
+
+    /**
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param body         消息体，直接作为消息内容发送，不做编码转换
+     * @return msgId，失败返回NULL。生产者配置sendMode为ONEWAY时单向发送，msgId由客户端生成
+     * @see #sendMsg(Producer, String, String, String, byte[])
+     * @see #sendOneway(Producer, String, String, String, byte[])
+     */
+    public String sendMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final byte[] body) {
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            if (SendMode.ONEWAY.equals(tcpProducerFactory.getSendMode(producerName))) {
+                return this.sendOneway(producer, topic, tag, key, body);
+            }
+            String msgId = this.sendMsg(producer, topic, tag, key, body);
+            if (null == msgId) {
+                spool(producerName, MessageType.NORMAL, topic, tag, key, null, body, 0);
+            }
+            return msgId;
+        }
+    }
+
+    /**
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param body         消息体，发送position到limit之间的字节，不改变position
+     * @return msgId，失败返回NULL
+     * @see OnsBytes#toBytes(ByteBuffer)
+     */
+    public String sendMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final ByteBuffer body) {
+        return this.sendMsg(producerName, topic, tag, key, OnsBytes.toBytes(body));
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param body          消息体，直接作为消息内容发送，发送完成前不能修改
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see #sendAsync(Producer, String, String, String, byte[], long)
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final byte[] body, final long timeoutMillis) {
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            return this.sendAsync(producer, topic, tag, key, body, timeoutMillis);
+        }
+    }
+
+    /**
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param body          消息体，发送position到limit之间的字节，不改变position，future完成前不能修改或归还
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     * @see OnsBytes#toBytes(ByteBuffer)
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final ByteBuffer body, final long timeoutMillis) {
+        return this.sendAsync(producerName, topic, tag, key, OnsBytes.toBytes(body), timeoutMillis);
+    }
+
+    /**
+     * 发送消息对象，按payload的运行时类型选择MessageCodec编码后作为普通消息发送，编码器按类型缓存
+     *
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param payload      消息对象
+     * @param <T>          消息对象类型
+     * @return msgId，编码或发送失败返回NULL
+     * @see OnsMessageCodecs
+     */
+    public <T> String send(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final T payload) {
+        byte[] body = encode(producerName, topic, key, payload);
+        return null == body ? null : this.sendMsg(producerName, topic, tag, key, body);
+    }
+
+    /**
+     * 异步发送消息对象，编码失败时future以OnsCodecException异常完成
+     *
+     * @param producerName  消息生产者名字，在配置文件中配置
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param payload       消息对象
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @param <T>           消息对象类型
+     * @return 发送结果
+     * @see #send(String, String, String, String, Object)
+     */
+    public <T> CompletableFuture<OnsSendReceipt> sendAsync(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final T payload, final long timeoutMillis) {
+        byte[] body;
+        try {
+            body = codecs.encode(payload);
+        } catch (OnsCodecException e) {
+            return OnsFutures.failed(e);
+        }
+        return this.sendAsync(producerName, topic, tag, key, body, timeoutMillis);
+    }
+
+    /**
+     * 编码消息对象，失败时记录日志
+     *
+     * @param producerName 消息生产者名字
+     * @param topic        topic
+     * @param key          业务唯一键值
+     * @param payload      消息对象
+     * @return 消息体，失败返回NULL
+     */
+    private byte[] encode(final String producerName, final String topic, final String key, final Object payload) {
+        try {
+            return codecs.encode(payload);
+        } catch (OnsCodecException e) {
+            log.error("ONS TCP client can't encode msg.producer={},topic={},key={}", producerName, topic, key, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param shardingKey  分区标识
+     * @param body         消息体，直接作为消息内容发送，不做编码转换
+     * @return msgId，失败返回NULL
+     * @see #sendOrderMsg(OrderProducer, String, String, String, String, byte[])
+     */
+    public String sendOrderMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String shardingKey, @NotNull final byte[] body) {
+        try (TcpProducerPool.Lease<OrderProducer> lease = tcpProducerFactory.leaseOrderProducer(producerName, shardingKey)) {
+            OrderProducer producer = lease.getMember();
+            String msgId = this.sendOrderMsg(producer, topic, tag, key, shardingKey, body);
+            if (null == msgId) {
+                spool(producerName, MessageType.ORDER, topic, tag, key, shardingKey, body, 0);
+            }
+            return msgId;
+        }
+    }
+
+    /**
+     * @param producerName 消息生产者名字，在配置文件中配置
+     * @param topic        topic
+     * @param tag          标签
+     * @param key          业务唯一键值
+     * @param body         消息体，直接作为消息内容发送，不做编码转换
+     * @param timestamp    投递消息时间的UNIX时间戳
+     * @return msgId，失败返回NULL
+     * @see #sendTimeMsg(Producer, String, String, String, byte[], long)
+     */
+    public String sendTimeMsg(@NotEmpty final String producerName, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final byte[] body, final long timestamp) {
+        try (TcpProducerPool.Lease<Producer> lease = tcpProducerFactory.leaseNormalProducer(producerName)) {
+            Producer producer = lease.getMember();
+            String msgId = this.sendTimeMsg(producer, topic, tag, key, body, timestamp);
+            if (null == msgId) {
+                spool(producerName, MessageType.NORMAL, topic, tag, key, null, body, timestamp);
+            }
+            return msgId;
+        }
     }
 
     /**
@@ -152,25 +693,95 @@ public class TcpSender {
      * @return msgId，失败返回NULL
      */
     public String sendMsg(Producer producer, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg) {
-        log.info("ONS send normal sync msg.topic={},tag={},key={},body={}.", topic, tag, key, msg);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND, topic, tag, key, null, msg);
         String msgId = null;
         if (AdminUtils.isInstanceReady(producer)) {
-            Message message = createMsg(topic, tag, key, msg);
+            Message message = createMsg(producer, topic, tag, key, msg);
+            tcpProducerFactory.beginSend(producer);
             try {
                 SendResult sendResult = producer.send(message);
                 if (null != sendResult) {
                     msgId = sendResult.getMessageId();
-                    log.info("ONS TCP client send sync message success. topic={}, msgId={}", topic, msgId);
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, topic, tag, key, msgId, null);
                 }
             } catch (Exception e) {
-                log.error("ONS TCP client can't send sync msg,the msg is [topic:{},tag:{},key:{},msg:{}]", topic, tag, key, msg, e);
+                log.error("ONS TCP client can't send sync msg,the msg is [topic:{},tag:{},key:{},bodyLength:{}]", topic, tag, key, StringUtils.length(msg), e);
+            } finally {
+                tcpProducerFactory.endSend(producer, null != msgId);
             }
         } else {
-            log.error("ONS TCP client can't send sync msg,the producer not ready,the msg is [topic:{},tag:{},key:{},msg:{}]", topic, tag, key, msg);
+            log.error("ONS TCP client can't send sync msg,the producer not ready,the msg is [topic:{},tag:{},key:{},bodyLength:{}]", topic, tag, key, StringUtils.length(msg));
         }
         return msgId;
     }
 
+    /**
+     * 单向发送MQ普通消息，只将消息写入网络，不等待Broker确认，没有发送结果和回调。
+     * 适用于日志、监控等吞吐量大且允许少量丢失的消息，发送结果只通过发送次数和本地失败次数统计
+     *
+     * @param producer 客户端
+     * @param topic    topic
+     * @param tag      标签
+     * @param key      业务唯一键值
+     * @param msg      消息
+     * @return 客户端生成的msgId，本地失败返回NULL
+     */
+    public String sendOneway(Producer producer, @NotEmpty final String topic, final String tag, final String key, @NotEmpty final String msg) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ONEWAY, topic, tag, key, null, msg);
+        onewayCount.increment();
+        if (AdminUtils.isInstanceReady(producer)) {
+            return doSendOneway(producer, createMsg(producer, topic, tag, key, msg));
+        }
+        onewayFailedCount.increment();
+        log.error("ONS TCP client can't send oneway msg,the producer not ready,the msg is [topic:{},tag:{},key:{},bodyLength:{}]", topic, tag, key, StringUtils.length(msg));
+        return null;
+    }
+
+    /**
+     * 单向发送MQ普通消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producer 客户端
+     * @param topic    topic
+     * @param tag      标签
+     * @param key      业务唯一键值
+     * @param body     消息体
+     * @return 客户端生成的msgId，本地失败返回NULL
+     * @see #sendOneway(Producer, String, String, String, String)
+     */
+    public String sendOneway(Producer producer, @NotEmpty final String topic, final String tag, final String key, @NotNull final byte[] body) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ONEWAY, topic, tag, key, null, body);
+        onewayCount.increment();
+        if (AdminUtils.isInstanceReady(producer)) {
+            return doSendOneway(producer, createMsg(producer, topic, tag, key, body));
+        }
+        onewayFailedCount.increment();
+        log.error("ONS TCP client can't send oneway msg,the producer not ready,the msg is [topic:{},tag:{},key:{},bodyBytes:{}]", topic, tag, key, body.length);
+        return null;
+    }
+
+    /**
+     * 单向发送，客户端抛出异常时计入本地失败次数
+     *
+     * @param producer 客户端
+     * @param message  消息
+     * @return 客户端生成的msgId，失败返回NULL
+     */
+    private String doSendOneway(Producer producer, final Message message) {
+        boolean success = false;
+        tcpProducerFactory.beginSend(producer);
+        try {
+            producer.sendOneway(message);
+            success = true;
+            return message.getMsgID();
+        } catch (Exception e) {
+            onewayFailedCount.increment();
+            log.error("ONS TCP client can't send oneway msg,the msg is [topic:{},tag:{},key:{}]", message.getTopic(), message.getTag(), message.getKey(), e);
+            return null;
+        } finally {
+            tcpProducerFactory.endSend(producer, success);
+        }
+    }
+
     /**
      * 异步发送MQ普通消息
      *
@@ -182,18 +793,158 @@ public class TcpSender {
      * @param callback 回调
      */
     public void sendAsyncMsg(Producer producer, @NotEmpty final String topic, final String tag, final String key, @NotEmpty final String msg, final SendCallback callback) {
-        log.info("ONS send normal async msg.topic={},tag={},key={},body={}.", topic, tag, key, msg);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ASYNC, topic, tag, key, null, msg);
         if (AdminUtils.isInstanceReady(producer)) {
-            Message message = createMsg(topic, tag, key, msg);
+            Message message = createMsg(producer, topic, tag, key, msg);
             // 异步发送消息，发送结果通过callback返回给客户端。
-            producer.sendAsync(message, callback);
-            // 在callback返回之前即可取得msgId。
-            log.info("ONS TCP client send async message success. topic={}, msgId={}", topic, message.getMsgID());
+            sendAsyncWithWindow(producer, message, callback);
         } else {
-            log.error("ONS TCP client can't send async msg,the producer not ready,the msg is [topic:{},tag:{},key:{},msg:{}]", topic, tag, key, msg);
+            log.error("ONS TCP client can't send async msg,the producer not ready,the msg is [topic:{},tag:{},key:{},bodyLength:{}]", topic, tag, key, StringUtils.length(msg));
+        }
+    }
+
+    /**
+     * 异步发送MQ普通消息，返回的future在发送成功时完成，失败或超时时异常完成
+     *
+     * @param producer      客户端
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置。超时不会取消实际的发送
+     * @return 发送结果
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(Producer producer, @NotEmpty final String topic, final String tag, final String key, @NotEmpty final String msg, final long timeoutMillis) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ASYNC, topic, tag, key, null, msg);
+        return doSendAsync(producer, createMsg(producer, topic, tag, key, msg), timeoutMillis);
+    }
+
+    /**
+     * 异步发送定时消息，返回的future在发送成功时完成，失败或超时时异常完成
+     *
+     * @param producer      客户端
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param msg           消息
+     * @param timestamp     时间戳，时间的UNIX时间毫秒数
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置。超时不会取消实际的发送
+     * @return 发送结果
+     */
+    public CompletableFuture<OnsSendReceipt> sendTimeAsync(Producer producer, @NotEmpty final String topic, final String tag, final String key, @NotEmpty final String msg, final long timestamp, final long timeoutMillis) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_TIMING, topic, tag, key, null, msg, "timestamp", timestamp);
+        Message message = createMsg(producer, topic, tag, key, msg);
+        message.setStartDeliverTime(timestamp);
+        return doSendAsync(producer, message, timeoutMillis);
+    }
+
+    /**
+     * 异步发送消息，将SendCallback转换为CompletableFuture
+     *
+     * @param producer      客户端
+     * @param message       消息
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     */
+    private CompletableFuture<OnsSendReceipt> doSendAsync(Producer producer, final Message message, final long timeoutMillis) {
+        final String topic = message.getTopic();
+        final String key = message.getKey();
+        if (!AdminUtils.isInstanceReady(producer)) {
+            log.error("ONS TCP client can't send async msg,the producer not ready,the msg is [topic:{},tag:{},key:{}]", topic, message.getTag(), key);
+            return OnsFutures.failed(new OnsSendException("TCP producer is not ready,topic is " + topic));
+        }
+        CompletableFuture<OnsSendReceipt> future = new CompletableFuture<>();
+        sendAsyncWithWindow(producer, message, new SendCallback() {
+            @Override
+            public void onSuccess(SendResult sendResult) {
+                future.complete(OnsSendReceipt.of(topic, sendResult.getMessageId(), key));
+            }
+
+            @Override
+            public void onException(OnExceptionContext context) {
+                log.error("ONS TCP client send async msg failed,the msg is [topic:{},key:{},msgId:{}]", topic, key, context.getMessageId(), context.getException());
+                future.completeExceptionally(new OnsSendException("TCP send failed,topic is " + topic + ",msgId is " + context.getMessageId(), context.getException()));
+            }
+        });
+        return OnsFutures.withTimeout(future, timeoutMillis);
+    }
+
+    /**
+     * 获取发送窗口后异步发送，发送结果返回后释放窗口。没有配置上限时直接发送。
+     * 被拒绝或发送调用异常时，通过callback的onException通知调用方
+     *
+     * @param producer 客户端
+     * @param message  消息
+     * @param callback 回调
+     */
+    private void sendAsyncWithWindow(Producer producer, final Message message, final SendCallback callback) {
+        final OnsSendWindow window = tcpProducerFactory.getSendWindow(producer);
+        final int bytes = null == message.getBody() ? 0 : message.getBody().length;
+        OnsSendWindow.Admission admission = null == window ? OnsSendWindow.Admission.ACQUIRED : window.acquire(bytes);
+        if (OnsSendWindow.Admission.REJECTED.equals(admission)) {
+            log.error("ONS TCP client async send rejected,producer {} has {} messages in flight.", window.getName(), window.getInFlight());
+            callback.onException(exceptionContext(message, new ONSClientException("async send rejected,too many messages in flight for producer " + window.getName())));
+            return;
+        }
+        if (OnsSendWindow.Admission.CALLER_RUNS.equals(admission)) {
+            //窗口已满，在调用线程中同步发送
+            SendResult sendResult;
+            tcpProducerFactory.beginSend(producer);
+            try {
+                sendResult = producer.send(message);
+            } catch (Exception e) {
+                tcpProducerFactory.endSend(producer, false);
+                callback.onException(exceptionContext(message, e instanceof ONSClientException ? (ONSClientException) e : new ONSClientException(e)));
+                return;
+            }
+            tcpProducerFactory.endSend(producer, true);
+            callback.onSuccess(sendResult);
+            return;
+        }
+        SendCallback releaseCallback = new SendCallback() {
+            @Override
+            public void onSuccess(SendResult sendResult) {
+                release(true);
+                callback.onSuccess(sendResult);
+            }
+
+            @Override
+            public void onException(OnExceptionContext context) {
+                release(false);
+                callback.onException(context);
+            }
+
+            private void release(boolean success) {
+                tcpProducerFactory.endSend(producer, success);
+                if (null != window) {
+                    window.release(bytes);
+                }
+            }
+        };
+        tcpProducerFactory.beginSend(producer);
+        try {
+            producer.sendAsync(message, releaseCallback);
+        } catch (Exception e) {
+            log.error("ONS TCP client can't send async msg,the msg is [topic:{},tag:{},key:{}]", message.getTopic(), message.getTag(), message.getKey(), e);
+            releaseCallback.onException(exceptionContext(message, e instanceof ONSClientException ? (ONSClientException) e : new ONSClientException(e)));
         }
     }
 
+    /**
+     * 生成发送失败的上下文
+     *
+     * @param message 消息
+     * @param e       异常
+     * @return OnExceptionContext
+     */
+    private OnExceptionContext exceptionContext(Message message, ONSClientException e) {
+        OnExceptionContext context = new OnExceptionContext();
+        context.setTopic(message.getTopic());
+        context.setMessageId(message.getMsgID());
+        context.setException(e);
+        return context;
+    }
+
     /**
      * 发送顺序消息,如果不传递shardingKey,将默认使用key作为shardingKey。
      * 消息发送失败，需要进行重试处理，可重新发送这条消息或持久化这条数据进行补偿处理。
@@ -208,21 +959,24 @@ public class TcpSender {
      * @return msgId，失败返回NULL
      */
     public String sendOrderMsg(OrderProducer producer, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String shardingKey, @NotEmpty final String msg) {
-        log.info("ONS send order msg.topic={},tag={},key={},shardingKey={},body={}.", topic, tag, key, shardingKey, msg);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ORDER, topic, tag, key, null, msg, "shardingKey", shardingKey);
         String msgId = null;
         if (AdminUtils.isInstanceReady(producer)) {
-            Message message = createMsg(topic, tag, key, msg);
+            Message message = createMsg(producer, topic, tag, key, msg);
+            tcpProducerFactory.beginSend(producer);
             try {
                 SendResult sendResult = producer.send(message, shardingKey);
                 if (sendResult != null) {
                     msgId = sendResult.getMessageId();
-                    log.info("ONS TCP client send order message success. topic={}, msgId={}", topic, msgId);
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, topic, tag, key, msgId, null);
                 }
             } catch (Exception e) {
-                log.error("ONS TCP client can't send order msg,the msg is [topic:{},tag:{},key:{},shardingKey:{},msg:{}]", topic, tag, key, shardingKey, msg, e);
+                log.error("ONS TCP client can't send order msg,the msg is [topic:{},tag:{},key:{},shardingKey:{},bodyLength:{}]", topic, tag, key, shardingKey, StringUtils.length(msg), e);
+            } finally {
+                tcpProducerFactory.endSend(producer, null != msgId);
             }
         } else {
-            log.error("ONS TCP client can't send order msg,the producer not ready,the msg is [topic:{},tag:{},key:{},shardingKey:{},msg:{}]", topic, tag, key, shardingKey, msg);
+            log.error("ONS TCP client can't send order msg,the producer not ready,the msg is [topic:{},tag:{},key:{},shardingKey:{},bodyLength:{}]", topic, tag, key, shardingKey, StringUtils.length(msg));
         }
         return msgId;
     }
@@ -240,21 +994,24 @@ public class TcpSender {
      * @return msgId，失败返回NULL
      */
     public String sendTransactionMsg(TransactionProducer producer, LocalTransactionExecuter executer, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final Object custom) {
-        log.info("ONS send transaction msg.topic={},tag={},key={},body={}.", topic, tag, key, msg);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_TRANSACTION, topic, tag, key, null, msg);
         String msgId = null;
         if (AdminUtils.isInstanceReady(producer)) {
-            Message message = createMsg(topic, tag, key, msg);
+            Message message = createMsg(producer, topic, tag, key, msg);
+            tcpProducerFactory.beginSend(producer);
             try {
-                SendResult sendResult = producer.send(message, executer, custom);
+                SendResult sendResult = producer.send(message, journaled(executer), custom);
                 if (sendResult != null) {
                     msgId = sendResult.getMessageId();
-                    log.info("ONS TCP client send transaction message success. topic={}, msgId={}", topic, msgId);
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, topic, tag, key, msgId, null);
                 }
             } catch (Exception e) {
-                log.error("ONS TCP client can't send transaction msg,the msg is [topic:{},tag:{},key:{},msg:{}]", topic, tag, key, msg, e);
+                log.error("ONS TCP client can't send transaction msg,the msg is [topic:{},tag:{},key:{},bodyLength:{}]", topic, tag, key, StringUtils.length(msg), e);
+            } finally {
+                tcpProducerFactory.endSend(producer, null != msgId);
             }
         } else {
-            log.error("ONS TCP client can't send transaction msg,the producer not ready,the msg is [topic:{},tag:{},key:{},msg:{}]", topic, tag, key, msg);
+            log.error("ONS TCP client can't send transaction msg,the producer not ready,the msg is [topic:{},tag:{},key:{},bodyLength:{}]", topic, tag, key, StringUtils.length(msg));
         }
         return msgId;
     }
@@ -272,9 +1029,7 @@ public class TcpSender {
      * @see #sendTimeMsg
      */
     public String sendDelayMsg(Producer producer, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long delayTime) {
-        log.info("ONS send delay msg.topic={},tag={},key={},body={},delayTime={}.", topic, tag, key, msg, delayTime);
         long timestamp = System.currentTimeMillis() + delayTime;
-        log.info("cast delayTime={} to timestamp={},topic={},tag={},key={},body={}.", delayTime, timestamp, topic, tag, key, msg);
         return sendTimeMsg(producer, topic, tag, key, msg, timestamp);
     }
 
@@ -292,24 +1047,144 @@ public class TcpSender {
      * @return msgId，失败返回NULL
      */
     public String sendTimeMsg(Producer producer, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String msg, final long timestamp) {
-        log.info("ONS send timing msg.topic={},tag={},key={},body={},delayTime={}.", topic, tag, key, msg, timestamp);
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_TIMING, topic, tag, key, null, msg, "timestamp", timestamp);
         String msgId = null;
         if (AdminUtils.isInstanceReady(producer)) {
-            Message message = createMsg(topic, tag, key, msg);
+            Message message = createMsg(producer, topic, tag, key, msg);
             message.setStartDeliverTime(timestamp);
+            tcpProducerFactory.beginSend(producer);
+            try {
+                SendResult sendResult = producer.send(message);
+                if (null != sendResult) {
+                    msgId = sendResult.getMessageId();
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, topic, tag, key, msgId, null);
+                }
+            } catch (Exception e) {
+                log.error("ONS TCP client can't send timing msg,the msg is [topic:{},tag:{},key:{},bodyLength:{},timestamp={}]", topic, tag, key, StringUtils.length(msg), timestamp, e);
+            } finally {
+                tcpProducerFactory.endSend(producer, null != msgId);
+            }
+        } else {
+            log.error("ONS TCP client can't send timing msg,the producer not ready,the msg is [topic:{},tag:{},key:{},bodyLength:{},timestamp={}]", topic, tag, key, StringUtils.length(msg), timestamp);
+        }
+        return msgId;
+    }
+
+    /**
+     * 同步发送MQ普通消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producer 客户端
+     * @param topic    topic
+     * @param tag      标签
+     * @param key      业务唯一键值
+     * @param body     消息体
+     * @return msgId，失败返回NULL
+     */
+    public String sendMsg(Producer producer, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final byte[] body) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND, topic, tag, key, null, body);
+        String msgId = null;
+        if (AdminUtils.isInstanceReady(producer)) {
+            Message message = createMsg(producer, topic, tag, key, body);
+            tcpProducerFactory.beginSend(producer);
             try {
                 SendResult sendResult = producer.send(message);
                 if (null != sendResult) {
                     msgId = sendResult.getMessageId();
-                    log.info("ONS TCP client send timing message success. topic={}, msgId={}", topic, msgId);
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, topic, tag, key, msgId, null);
+                }
+            } catch (Exception e) {
+                log.error("ONS TCP client can't send sync msg,the msg is [topic:{},tag:{},key:{},bodyBytes:{}]", topic, tag, key, body.length, e);
+            } finally {
+                tcpProducerFactory.endSend(producer, null != msgId);
+            }
+        } else {
+            log.error("ONS TCP client can't send sync msg,the producer not ready,the msg is [topic:{},tag:{},key:{},bodyBytes:{}]", topic, tag, key, body.length);
+        }
+        return msgId;
+    }
+
+    /**
+     * 异步发送MQ普通消息，消息体直接作为消息内容发送，future完成前不能修改
+     *
+     * @param producer      客户端
+     * @param topic         topic
+     * @param tag           标签
+     * @param key           业务唯一键值
+     * @param body          消息体
+     * @param timeoutMillis 超时时间，单位毫秒，小于等于0时不设置
+     * @return 发送结果
+     */
+    public CompletableFuture<OnsSendReceipt> sendAsync(Producer producer, @NotEmpty final String topic, final String tag, final String key, @NotNull final byte[] body, final long timeoutMillis) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ASYNC, topic, tag, key, null, body);
+        return doSendAsync(producer, createMsg(producer, topic, tag, key, body), timeoutMillis);
+    }
+
+    /**
+     * 发送顺序消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producer    客户端
+     * @param topic       topic
+     * @param tag         标签
+     * @param key         业务唯一键值
+     * @param shardingKey 分片key
+     * @param body        消息体
+     * @return msgId，失败返回NULL
+     */
+    public String sendOrderMsg(OrderProducer producer, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotEmpty final String shardingKey, @NotNull final byte[] body) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_ORDER, topic, tag, key, null, body, "shardingKey", shardingKey);
+        String msgId = null;
+        if (AdminUtils.isInstanceReady(producer)) {
+            Message message = createMsg(producer, topic, tag, key, body);
+            tcpProducerFactory.beginSend(producer);
+            try {
+                SendResult sendResult = producer.send(message, shardingKey);
+                if (sendResult != null) {
+                    msgId = sendResult.getMessageId();
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, topic, tag, key, msgId, null);
                 }
             } catch (Exception e) {
-                log.error("ONS TCP client can't send timing msg,the msg is [topic:{},tag:{},key:{},msg:{},timestamp={}]", topic, tag, key, msg, timestamp, e);
+                log.error("ONS TCP client can't send order msg,the msg is [topic:{},tag:{},key:{},shardingKey:{},bodyBytes:{}]", topic, tag, key, shardingKey, body.length, e);
+            } finally {
+                tcpProducerFactory.endSend(producer, null != msgId);
             }
         } else {
-            log.error("ONS TCP client can't send timing msg,the producer not ready,the msg is [topic:{},tag:{},key:{},msg:{},timestamp={}]", topic, tag, key, msg, timestamp);
+            log.error("ONS TCP client can't send order msg,the producer not ready,the msg is [topic:{},tag:{},key:{},shardingKey:{},bodyBytes:{}]", topic, tag, key, shardingKey, body.length);
         }
         return msgId;
     }
 
+    /**
+     * 发送定时消息，消息体直接作为消息内容发送，不做编码转换
+     *
+     * @param producer  客户端
+     * @param topic     topic
+     * @param tag       标签
+     * @param key       业务唯一键值
+     * @param body      消息体
+     * @param timestamp 时间戳，时间的UNIX时间毫秒数
+     * @return msgId，失败返回NULL
+     */
+    public String sendTimeMsg(Producer producer, @NotEmpty final String topic, final String tag, @NotEmpty final String key, @NotNull final byte[] body, final long timestamp) {
+        OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_TIMING, topic, tag, key, null, body, "timestamp", timestamp);
+        String msgId = null;
+        if (AdminUtils.isInstanceReady(producer)) {
+            Message message = createMsg(producer, topic, tag, key, body);
+            message.setStartDeliverTime(timestamp);
+            tcpProducerFactory.beginSend(producer);
+            try {
+                SendResult sendResult = producer.send(message);
+                if (null != sendResult) {
+                    msgId = sendResult.getMessageId();
+                    OnsMessageAudit.get().record(CLIENT, OnsAuditEvent.SEND_SUCCESS, topic, tag, key, msgId, null);
+                }
+            } catch (Exception e) {
+                log.error("ONS TCP client can't send timing msg,the msg is [topic:{},tag:{},key:{},bodyBytes:{},timestamp={}]", topic, tag, key, body.length, timestamp, e);
+            } finally {
+                tcpProducerFactory.endSend(producer, null != msgId);
+            }
+        } else {
+            log.error("ONS TCP client can't send timing msg,the producer not ready,the msg is [topic:{},tag:{},key:{},bodyBytes:{},timestamp={}]", topic, tag, key, body.length, timestamp);
+        }
+        return msgId;
+    }
 }